@@ -0,0 +1,63 @@
+package jman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import jman.JManBoard;
+import jman.Piece;
+import org.openjdk.jmh.annotations.*;
+
+/** Cost of the basic cell operations of a board: pieceAt() at random
+  * positions and move() of one walker back and forth, by storage. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessBenchmark {
+
+    private static final int POSITIONS = 1024;  // # of random positions; a power of 2
+
+    @Param({"200", "2000"})
+    int size;
+
+    @Param({"objects", "primitive", "chunked"})
+    String storage;
+
+    private JManBoard board;       // board with density 0.25, for pieceAt
+    private JManBoard moveBoard;   // empty board with one walker, for move
+    private int[] xs = new int[POSITIONS];
+    private int[] ys = new int[POSITIONS];
+    private int k;
+    private boolean left = true;   // "the walker of moveBoard is at (10, 10)"
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Boards.newBoard(size, 0.25, storage, 42);
+        for (int i = 0; i < POSITIONS; i++) {
+            xs[i] = board.rand(0, size - 1);
+            ys[i] = board.rand(0, size - 1);
+        }
+        moveBoard = new JManBoard(size, size, 0, 0, 0, Boards.storage(storage), 42);
+        moveBoard.placePiece(Piece.WALKER, 10, 10);
+    }
+
+    @Benchmark
+    public Piece pieceAt() {
+        k = (k + 1) & (POSITIONS - 1);
+        return board.pieceAt(xs[k], ys[k]);
+    }
+
+    @Benchmark
+    public boolean isEmpty() {
+        k = (k + 1) & (POSITIONS - 1);
+        return board.isEmpty(xs[k], ys[k]);
+    }
+
+    @Benchmark
+    public void move() {
+        if (left) moveBoard.move(10, 10, 11, 10);
+        else moveBoard.move(11, 10, 10, 10);
+        left = !left;
+    }
+}
@@ -0,0 +1,41 @@
+package jman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import jman.Autopilot;
+import jman.JManBoard;
+import org.openjdk.jmh.annotations.*;
+
+/** Time taken by the Autopilot to plan one move on the default 20 x 20
+  * board, by search depth and beam width.  Each plan makes at most
+  * 4 * depth * beam states. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutopilotBenchmark {
+
+    @Param({"8", "12"})
+    int depth;
+
+    @Param({"64", "256"})
+    int beam;
+
+    private JManBoard board;
+    private Autopilot autopilot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = new JManBoard(JManBoard.DEFAULT_WIDTH, JManBoard.DEFAULT_HEIGHT,
+                              JManBoard.DEFAULT_BLOCKS, JManBoard.DEFAULT_WALKERS,
+                              JManBoard.DEFAULT_PILLARS, JManBoard.STORAGE_OBJECTS, 42);
+        autopilot = new Autopilot(depth, beam);
+    }
+
+    @Benchmark
+    public int plan() {
+        return autopilot.nextDirection(board);
+    }
+}
@@ -0,0 +1,87 @@
+package jman.bench;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import jman.DirectionProvider;
+import jman.JManBoard;
+import jman.SimulationThread;
+import org.openjdk.jmh.annotations.*;
+
+/** Throughput of rounds played in batches: JManBoard.act(directions, from, n)
+  * against a round at a time (as in TickBenchmark), and SimulationThread.play(n, p)
+  * against a move() command per round, which publishes the board after
+  * every round.  Scores are rounds per second. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchTickBenchmark {
+
+    /** Rounds played per invocation. */
+    static final int BATCH = 1024;
+
+    @Param({"20", "200"})
+    int size;
+
+    @Param({"0.25"})
+    double density;
+
+    @Param({"objects", "primitive"})
+    String storage;
+
+    private JManBoard board;
+    private int[] directions = new int[BATCH];
+    private DirectionProvider provider = b -> JManBoard.MOVE_UP + (int) (b.getTicks() & 3);
+    private SimulationThread simulation;
+    private Semaphore published = new Semaphore(0);  // a permit per round published
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Boards.newBoard(size, density, storage, 42);
+        for (int i= 0; i < BATCH; i= i+1) {
+            directions[i] = JManBoard.MOVE_UP + (i & 3);
+        }
+        simulation = new SimulationThread(Boards.newBoard(size, density, storage, 42),
+                                          cells -> published.release());
+        simulation.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        simulation.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void perRound() {
+        for (int i= 0; i < BATCH; i= i+1) {
+            board.changeJManDirection(directions[i]);
+            board.act();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void batch() {
+        board.act(directions, 0, BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void threadPerRound() throws InterruptedException {
+        for (int i= 0; i < BATCH; i= i+1) {
+            simulation.move(directions[i]);
+        }
+        published.acquire(BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void threadBatch() throws InterruptedException {
+        simulation.play(BATCH, provider);
+        published.acquire();
+    }
+}
@@ -0,0 +1,53 @@
+package jman.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Entry point of benchmarks.jar.  It takes the usual JMH command line,
+  * but unless told otherwise it turns on the gc (allocation) profiler and
+  * writes the results as JSON to jmh-result.json, so that runs can be
+  * compared to find regressions.  E.g.
+  *   java -jar jman-benchmarks/target/benchmarks.jar TickBenchmark -p size=2000
+  */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+        if (cmd.shouldListProfilers()) {
+            cmd.listProfilers();
+            return;
+        }
+        if (cmd.shouldListResultFormats()) {
+            cmd.listResultFormats();
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            options.result("jmh-result.json");
+        }
+
+        Runner runner = new Runner(options.build());
+        if (cmd.shouldList()) {
+            runner.list();
+        } else if (cmd.shouldListWithParams()) {
+            runner.listWithParams(cmd);
+        } else {
+            runner.run();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package jman.bench;
+
+import jman.JManBoard;
+
+/** Helpers that make the boards used by the benchmarks. */
+final class Boards {
+
+    private Boards() {
+    }
+
+    /** Yields: the JManBoard storage constant named by s
+      * ("objects", "primitive" or "chunked"). */
+    static int storage(String s) {
+        if (s.equals("objects")) return JManBoard.STORAGE_OBJECTS;
+        if (s.equals("primitive")) return JManBoard.STORAGE_PRIMITIVE;
+        if (s.equals("chunked")) return JManBoard.STORAGE_CHUNKED;
+        throw new IllegalArgumentException("Unknown storage: " + s);
+    }
+
+    /** Yields: a size x size board stored as named by storage, on which
+      * about density of the cells hold a piece: half of them blocks, a
+      * quarter walkers and a quarter pillars, as in the default game. */
+    static JManBoard newBoard(int size, double density, String storage, long seed) {
+        int pieces = (int) Math.min((long) (density * size * size), (long) size * size - 1);
+        int bl = pieces / 2;
+        int wa = pieces / 4;
+        int pi = pieces - bl - wa;
+        return new JManBoard(size, size, bl, wa, pi, storage(storage), seed);
+    }
+}
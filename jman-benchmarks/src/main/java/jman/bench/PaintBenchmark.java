@@ -0,0 +1,55 @@
+package jman.bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import jman.BoardPainter;
+import jman.JManBoard;
+import jman.JManFrame;
+import org.openjdk.jmh.annotations.*;
+
+/** Time to paint a whole board, as JManFrame does after every round,
+  * into an offscreen image (so no display is needed). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+
+    @Param({"20", "200"})
+    int size;
+
+    @Param({"0.05", "0.25"})
+    double density;
+
+    @Param({"objects", "primitive"})
+    String storage;
+
+    private JManBoard board;
+    private BoardPainter painter;
+    private BufferedImage image;
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Boards.newBoard(size, density, storage, 42);
+        painter = new BoardPainter(size, size);
+        image = new BufferedImage(size * JManFrame.TILE_WIDTH, size * JManFrame.TILE_HEIGHT,
+                                  BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        painter.paint(g, board);
+        return image;
+    }
+}
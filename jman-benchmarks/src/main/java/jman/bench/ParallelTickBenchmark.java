@@ -0,0 +1,52 @@
+package jman.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import jman.JManBoard;
+import org.openjdk.jmh.annotations.*;
+
+/** Throughput of JManBoard.act(pool), i.e. of rounds of one big board played
+  * in parallel, by number of threads, to measure how it scales. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelTickBenchmark {
+
+    @Param({"1000", "4000"})
+    int size;
+
+    @Param({"0.25"})
+    double density;
+
+    @Param({"objects", "primitive"})
+    String storage;
+
+    @Param({"1", "2", "4", "8", "16"})
+    int threads;
+
+    private JManBoard board;
+    private ForkJoinPool pool;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Boards.newBoard(size, density, storage, 42);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void act() {
+        round = round + 1;
+        board.changeJManDirection(JManBoard.MOVE_UP + (round & 3));
+        board.act(pool);
+    }
+}
@@ -0,0 +1,34 @@
+package jman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import jman.JManBoard;
+import org.openjdk.jmh.annotations.*;
+
+/** Time to make a new board and put its pieces on it (initializeBoard),
+  * by board size, density and storage. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SetupBenchmark {
+
+    @Param({"20", "200", "2000"})
+    int size;
+
+    @Param({"0.05", "0.25", "0.9"})
+    double density;
+
+    @Param({"objects", "primitive", "chunked"})
+    String storage;
+
+    private long seed;
+
+    @Benchmark
+    public JManBoard newBoard() {
+        seed = seed + 1;
+        return Boards.newBoard(size, density, storage, seed);
+    }
+}
@@ -0,0 +1,41 @@
+package jman.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import jman.JManBoard;
+import org.openjdk.jmh.annotations.*;
+
+/** Throughput of JManBoard.act(), i.e. of whole rounds of the game,
+  * by board size, density and storage. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickBenchmark {
+
+    @Param({"20", "200", "2000"})
+    int size;
+
+    @Param({"0.05", "0.25"})
+    double density;
+
+    @Param({"objects", "primitive", "chunked"})
+    String storage;
+
+    private JManBoard board;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Boards.newBoard(size, density, storage, 42);
+    }
+
+    @Benchmark
+    public void act() {
+        round = round + 1;
+        board.changeJManDirection(JManBoard.MOVE_UP + (round & 3));
+        board.act();
+    }
+}
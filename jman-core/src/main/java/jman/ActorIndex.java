@@ -0,0 +1,98 @@
+package jman;
+
+import java.util.Arrays;
+
+/** This class is a MODEL class; an instance of this class is a dense list
+  * of the positions of the pieces on a board that do something when they
+  * act (walkers and pillars).  A round only has to visit this list rather
+  * than every cell of the board.
+  * The slot of each piece in the list is also kept in the board storage,
+  * so that the entry of a piece can be found when it moves or is captured. */
+class ActorIndex {
+
+    private BoardStorage storage; // storage that keeps the slot of each piece
+    private int[] xs = new int[16];     // x coordinate of the piece in each slot
+    private int[] ys = new int[16];     // y coordinate of the piece in each slot
+    private int[] epochs = new int[16]; // round in which each piece last acted
+    private int size;                   // slots 0..size-1 are in use
+
+    /** Constructor: an empty index of the pieces kept in s. */
+    ActorIndex(BoardStorage s) {
+        storage = s;
+    }
+
+    /** Yields: the number of pieces in this index. */
+    int size() {
+        return size;
+    }
+
+    /** Yields: the x coordinate of the piece in slot s. */
+    int getX(int s) {
+        return xs[s];
+    }
+
+    /** Yields: the y coordinate of the piece in slot s. */
+    int getY(int s) {
+        return ys[s];
+    }
+
+    /** Add the piece at (x, y) to this index; it has not acted this round.
+      * Precondition: the piece is in the storage and not in this index. */
+    void add(int x, int y) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, 2*size);
+            ys = Arrays.copyOf(ys, 2*size);
+            epochs = Arrays.copyOf(epochs, 2*size);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        epochs[size] = 0;
+        storage.setSlot(x, y, size);
+        size= size+1;
+    }
+
+    /** Record that the piece in slot s is now at (x, y). */
+    void moveTo(int s, int x, int y) {
+        xs[s] = x;
+        ys[s] = y;
+    }
+
+    /** Remove the piece in slot s from this index, moving the last piece
+      * into slot s. */
+    void remove(int s) {
+        size= size-1;
+        if (s != size) {
+            xs[s] = xs[size];
+            ys[s] = ys[size];
+            epochs[s] = epochs[size];
+            storage.setSlot(xs[s], ys[s], s);
+        }
+    }
+
+    /** Put the piece at (x, y) back in slot s, moving the piece in slot s to
+      * a new last slot: the reverse of remove(s).
+      * Precondition: the piece is in the storage and not in this index, and
+      * 0 <= s <= size(). */
+    void insert(int s, int x, int y) {
+        add(x, y);
+        if (s != size - 1) {
+            int last = size - 1;
+            xs[last] = xs[s];
+            ys[last] = ys[s];
+            epochs[last] = epochs[s];
+            storage.setSlot(xs[last], ys[last], last);
+            xs[s] = x;
+            ys[s] = y;
+            epochs[s] = 0;
+            storage.setSlot(x, y, s);
+        }
+    }
+
+    /** If the piece in slot s has not acted in round epoch, mark it as having
+      * acted and yield true; otherwise yield false. */
+    boolean markActed(int s, int epoch) {
+        if (epochs[s] == epoch) return false;
+        epochs[s] = epoch;
+        return true;
+    }
+}
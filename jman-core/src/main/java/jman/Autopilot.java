@@ -0,0 +1,403 @@
+package jman;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/** This class is a CONTROLLER class; an instance of this class plans
+  * J*Man's moves with a beam search over the next rounds.
+  *
+  * Walkers and pillars move at random, so the search assumes the most
+  * likely outcome of every round: a walker stays where it is (it moves with
+  * probability 1/3) and a pillar keeps its color (it does so with
+  * probability 7/9).  Then only J*Man moves, so a state of the search is
+  * just J*Man's position and color and the list of cells whose pieces it
+  * has captured; cloning a state copies at most depth ints, whatever the
+  * size of the board.  The plan is made again before every round, so the
+  * moves the search did not foresee are taken into account.
+  *
+  * Each level of the search makes the four moves from each of the best
+  * states of the level before, drops states already reached (by a Zobrist
+  * hash), and keeps the best beam states.  A state is scored by the pieces
+  * captured, captures made sooner scoring more and walkers, which are
+  * harder to catch, more than pillars, less the distance to the nearest
+  * piece J*Man could capture next.  The board is looked at only in a window
+  * around J*Man, which is widened when nothing J*Man could capture is in it.
+  *
+  * Walkers never change color, and J*Man changes color only by capturing,
+  * so J*Man captures colors in turn around the cycle red, yellow, green,
+  * and the walkers left can all be captured only if there are enough
+  * pillars left to fill the turns between them.  When the window is the
+  * whole board, a state that cannot win in this way is all but ruled out.
+  *
+  * The buffers of a search are made once per thread, so making a plan does
+  * not allocate, and one instance may be shared by boards that are played
+  * on different threads. */
+public class Autopilot implements DirectionProvider {
+
+    /** Default number of rounds looked ahead. */
+    public static final int DEFAULT_DEPTH = 12;
+    /** Default number of states kept at each level of the search. */
+    public static final int DEFAULT_BEAM  = 256;
+
+    /** Radius of the smallest window of the board that is searched. */
+    private static final int MIN_RADIUS = 16;
+
+    private int depth;  // rounds looked ahead
+    private int beam;   // states kept at each level
+    private ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+    private LongAdder expanded = new LongAdder(); // states made by all searches
+
+    /** Constructor: an autopilot that looks DEFAULT_DEPTH rounds ahead,
+      * keeping DEFAULT_BEAM states at each level. */
+    public Autopilot() {
+        this(DEFAULT_DEPTH, DEFAULT_BEAM);
+    }
+
+    /** Constructor: an autopilot that looks depth rounds ahead, keeping
+      * beam states at each level.  Precondition: depth > 0 and beam > 0. */
+    public Autopilot(int depth, int beam) {
+        this.depth = depth;
+        this.beam  = beam;
+    }
+
+    public int nextDirection(JManBoard b) {
+        Search s = searches.get();
+        int d = s.plan(b);
+        expanded.add(s.expanded);
+        return d;
+    }
+
+    /** Yields: the number of states made by the searches of this autopilot so far. */
+    public long getExpandedStates() {
+        return expanded.sum();
+    }
+
+    /** Yields: representation of this policy */
+    public String toString() {
+        return "autopilot(depth=" + depth + ", beam=" + beam + ")";
+    }
+
+    /* The buffers of the searches made on one thread. */
+    private class Search {
+        // Score of a capture made in the first round; one less per later round.
+        private static final int CAPTURE = 1000;
+        private static final int WALKER_BONUS = 200;
+        // Score of a state from which the game can no longer be won.
+        private static final int DEAD_END = -1000000;
+
+        // The window of the board searched: columns x0..x0+ww-1 and rows
+        // y0..y0+wh-1, with the type and color code of each cell (row-major).
+        private int x0, y0, ww, wh;
+        private byte[] types = new byte[0];
+        private byte[] colors = new byte[0];
+        private int[] pieces = new int[0]; // cells of the walkers and pillars in the window
+        private int pieceCount;
+        private boolean whole;      // "the window is the whole board"
+        private int pillars;        // # of pillars on the board, if whole
+        private int[] walkers = new int[3]; // # of walkers of each color code, if whole
+        private long[] zPos = new long[0]; // Zobrist keys of J*Man being in each cell
+        private long[] zCap = new long[0]; // Zobrist keys of each cell being captured
+        private long[] zColor = new long[4];
+
+        // Two levels of states: the parents and their children.  State i of
+        // a level has J*Man in cell pos[i] with color code color[i], has
+        // captured the pieces in cells caps[i*depth..i*depth+capCount[i]-1],
+        // was reached by first making move first[i], and has hash hash[i].
+        // Its captures are worth gain[i], and it is ranked by score[i].
+        private Level parents = new Level();
+        private Level children = new Level();
+        private long[] keys = new long[0]; // scores and indices of the children, to sort
+        private int[] chosen = new int[0]; // indices of the parents kept
+        private long[] seen = new long[0]; // open-addressing set of hashes of this level
+        private int expanded;              // states made by the last plan
+
+        Search() {
+            JManRandom r = new JManRandom(0x4A4D616EL);
+            for (int i= 0; i < zColor.length; i= i+1) {
+                zColor[i] = r.nextLong();
+            }
+            parents.ensure(4*beam);
+            children.ensure(4*beam);
+            keys = new long[4*beam];
+            chosen = new int[beam];
+            seen = new long[Integer.highestOneBit(8*beam) << 1];
+        }
+
+        /* Yields: the direction J*Man should move on b. */
+        int plan(JManBoard b) {
+            JMan jMan = b.getJMan();
+            int jColor = jMan.getColor();
+            int r = MIN_RADIUS;
+            copyWindow(b, jMan.getX(), jMan.getY(), r, jColor);
+            while (!anyEdible(jColor) && (ww < b.getWidth() || wh < b.getHeight())) {
+                r = 2*r;
+                copyWindow(b, jMan.getX(), jMan.getY(), r, jColor);
+            }
+
+            expanded = 0;
+            parents.pos[0] = (jMan.getY() - y0)*ww + (jMan.getX() - x0);
+            parents.color[0] = (byte) jColor;
+            parents.capCount[0] = 0;
+            parents.first[0] = JManBoard.MOVE_NONE;
+            parents.gain[0] = 0;
+            int n = 1;
+            chosen[0] = 0;
+
+            for (int step= 0; step < depth; step= step+1) {
+                int m = expand(n, step);
+                // Keep the best (at most) beam children as the next parents.
+                for (int i= 0; i < m; i= i+1) {
+                    keys[i] = ((long) -children.score[i] << 32) | i;
+                }
+                Arrays.sort(keys, 0, m);
+                n = Math.min(m, beam);
+                for (int i= 0; i < n; i= i+1) {
+                    chosen[i] = (int) keys[i];
+                }
+                Level t = parents;
+                parents = children;
+                children = t;
+            }
+            return parents.first[chosen[0]];
+        }
+
+        /* Make the children of the n chosen parents, made in round step
+         * (0 is the next round), dropping those already made.
+         * Yields: the number of children. */
+        private int expand(int n, int step) {
+            Arrays.fill(seen, 0);
+            int m = 0;
+            for (int k= 0; k < n; k= k+1) {
+                int p = chosen[k];
+                for (int d= JManBoard.MOVE_UP; d <= JManBoard.MOVE_RIGHT; d= d+1) {
+                    if (child(p, d, m, step)) {
+                        m= m+1;
+                    }
+                }
+            }
+            return m;
+        }
+
+        /* Make child c of parent p by moving J*Man in direction d in round
+         * step.  Yields: "the child is a state not made before in this level". */
+        private boolean child(int p, int d, int c, int step) {
+            int pos = parents.pos[p];
+            int color = parents.color[p];
+            int caps = parents.capCount[p];
+            int gain = parents.gain[p];
+            long h = parents.hash[p];
+            int x = pos % ww, y = pos / ww;
+            int to = pos;
+
+            if (d == JManBoard.MOVE_UP) y--;
+            else if (d == JManBoard.MOVE_DOWN) y++;
+            else if (d == JManBoard.MOVE_LEFT) x--;
+            else x++;
+
+            int captured = -1;
+            if (x >= 0 && y >= 0 && x < ww && y < wh) {
+                int cell = y*ww + x;
+                int t = types[cell];
+                if (t == BoardCells.EMPTY || captured(p, cell)) {
+                    to = cell;
+                } else if (t != Piece.BLOCK && Piece.canCapture(color, colors[cell])) {
+                    to = cell;
+                    captured = cell;
+                }
+            }
+            expanded= expanded+1;
+
+            if (captured != -1) {
+                h = h ^ zCap[captured] ^ zColor[color] ^ zColor[colors[captured]];
+                color = colors[captured];
+                gain = gain + CAPTURE - step + (types[captured] == Piece.WALKER ? WALKER_BONUS : 0);
+                if (whole && gain > DEAD_END/2 && deadEnd(p, captured, color)) {
+                    gain = gain + DEAD_END;
+                }
+            }
+            h = h ^ zPos[pos] ^ zPos[to];
+            if (!add(h)) return false;
+
+            children.pos[c] = to;
+            children.color[c] = (byte) color;
+            children.hash[c] = h;
+            children.first[c] = step == 0 ? d : parents.first[p];
+            System.arraycopy(parents.caps, p*depth, children.caps, c*depth, caps);
+            if (captured != -1) {
+                children.caps[c*depth + caps] = captured;
+                caps= caps+1;
+            }
+            children.capCount[c] = caps;
+            children.gain[c] = gain;
+            children.score[c] = gain - distanceToEdible(c, to, color);
+            return true;
+        }
+
+        /* Yields: "parent p has captured the piece in cell". */
+        private boolean captured(int p, int cell) {
+            int base = p*depth;
+            for (int i= 0; i < parents.capCount[p]; i= i+1) {
+                if (parents.caps[base + i] == cell) return true;
+            }
+            return false;
+        }
+
+        /* Yields: "after parent p captures the piece in cell captured, making
+         * J*Man of color code color, the pieces left cannot all be captured". */
+        private boolean deadEnd(int p, int captured, int color) {
+            int pillarsLeft = pillars;
+            int r = walkers[0], g = walkers[1], y = walkers[2];
+            int base = p*depth;
+            for (int i= 0; i <= parents.capCount[p]; i= i+1) {
+                int cell = i < parents.capCount[p] ? parents.caps[base + i] : captured;
+                if (types[cell] == Piece.PILLAR) {
+                    pillarsLeft= pillarsLeft-1;
+                } else if (colors[cell] == Piece.RED) {
+                    r= r-1;
+                } else if (colors[cell] == Piece.GREEN) {
+                    g= g-1;
+                } else {
+                    y= y-1;
+                }
+            }
+            // J*Man captures colors in turn around the cycle, starting with the
+            // one it can capture now, and each of the n pieces left takes one
+            // capture; a pillar can be captured in any turn (by waiting for
+            // its color), but a walker only in the turns of its color.
+            int n = r + g + y + pillarsLeft;
+            int[] left = {r, g, y};
+            int c = color;
+            for (int k= 0; k < 3; k= k+1) {
+                c = prey(c);
+                if (left[c] > (n - k + 2) / 3) return true;
+            }
+            return false;
+        }
+
+        /* Yields: the color code of the pieces J*Man of color code c can capture. */
+        private int prey(int c) {
+            return c == Piece.GREEN ? Piece.RED : (c == Piece.RED ? Piece.YELLOW : Piece.GREEN);
+        }
+
+        /* Yields: the distance from cell pos to the nearest piece that J*Man
+         * of color code color could capture and that child c has not
+         * captured.  If there is none, yield ww+wh more than the distance
+         * to the nearest pillar, which will change color sooner or later,
+         * or 3*(ww+wh) if there is no pillar either. */
+        private int distanceToEdible(int c, int pos, int color) {
+            int x = pos % ww, y = pos / ww;
+            int far = ww + wh;
+            int best = far;       // distance to the nearest piece J*Man can capture
+            int pillar = 2*far;   // distance to the nearest pillar
+            int base = c*depth;
+            int caps = children.capCount[c];
+            for (int i= 0; i < pieceCount; i= i+1) {
+                int cell = pieces[i];
+                boolean edible = Piece.canCapture(color, colors[cell]);
+                if (!edible && types[cell] != Piece.PILLAR) continue;
+                int dist = Math.abs(cell % ww - x) + Math.abs(cell / ww - y);
+                if (dist >= (edible ? best : pillar)) continue;
+                boolean gone = false;
+                for (int j= 0; j < caps; j= j+1) {
+                    if (children.caps[base + j] == cell) gone = true;
+                }
+                if (gone) continue;
+                if (edible) best = dist;
+                if (types[cell] == Piece.PILLAR) pillar = Math.min(pillar, dist);
+            }
+            return best < far ? best : far + pillar;
+        }
+
+        /* Add h to the hashes of this level.  Yields: "h was not there". */
+        private boolean add(long h) {
+            if (h == 0) h = 1;
+            int mask = seen.length - 1;
+            int i = (int) (h ^ (h >>> 32)) & mask;
+            while (seen[i] != 0) {
+                if (seen[i] == h) return false;
+                i = (i + 1) & mask;
+            }
+            seen[i] = h;
+            return true;
+        }
+
+        /* Yields: "a piece in the window can be captured by J*Man of color code jColor". */
+        private boolean anyEdible(int jColor) {
+            for (int i= 0; i < pieceCount; i= i+1) {
+                if (Piece.canCapture(jColor, colors[pieces[i]])) return true;
+            }
+            return false;
+        }
+
+        /* Copy the cells of b within distance r of (jx, jy) into the window
+         * (leaving out J*Man), and start the hash of the root state. */
+        private void copyWindow(JManBoard b, int jx, int jy, int r, int jColor) {
+            x0 = Math.max(0, jx - r);
+            y0 = Math.max(0, jy - r);
+            ww = Math.min(b.getWidth(), jx + r + 1) - x0;
+            wh = Math.min(b.getHeight(), jy + r + 1) - y0;
+            int cells = ww*wh;
+            if (types.length < cells) {
+                types  = new byte[cells];
+                colors = new byte[cells];
+                pieces = new int[cells];
+                int old = zPos.length;
+                zPos = Arrays.copyOf(zPos, cells);
+                zCap = Arrays.copyOf(zCap, cells);
+                JManRandom z = new JManRandom(old);
+                for (int i= old; i < cells; i= i+1) {
+                    zPos[i] = z.nextLong();
+                    zCap[i] = z.nextLong();
+                }
+            }
+            pieceCount = 0;
+            whole = ww == b.getWidth() && wh == b.getHeight();
+            pillars = 0;
+            Arrays.fill(walkers, 0);
+            for (int j= 0; j < wh; j= j+1) {
+                for (int i= 0; i < ww; i= i+1) {
+                    int cell = j*ww + i;
+                    int t = b.typeAt(x0 + i, y0 + j);
+                    if (t == Piece.JMAN) t = BoardCells.EMPTY;
+                    types[cell] = (byte) t;
+                    colors[cell] = t == BoardCells.EMPTY ? 0 : (byte) b.colorAt(x0 + i, y0 + j);
+                    if (t == Piece.WALKER || t == Piece.PILLAR) {
+                        pieces[pieceCount] = cell;
+                        pieceCount= pieceCount+1;
+                    }
+                    if (t == Piece.PILLAR) {
+                        pillars= pillars+1;
+                    } else if (t == Piece.WALKER) {
+                        walkers[colors[cell]]++;
+                    }
+                }
+            }
+            parents.hash[0] = zPos[(jy - y0)*ww + (jx - x0)] ^ zColor[jColor];
+        }
+    }
+
+    /* The states of one level of a search, in parallel arrays. */
+    private class Level {
+        int[] pos = new int[0];
+        byte[] color = new byte[0];
+        int[] capCount = new int[0];
+        int[] caps = new int[0];
+        int[] first = new int[0];
+        int[] gain = new int[0];
+        int[] score = new int[0];
+        long[] hash = new long[0];
+
+        /* Make room for n states. */
+        void ensure(int n) {
+            if (pos.length >= n) return;
+            pos = new int[n];
+            color = new byte[n];
+            capCount = new int[n];
+            caps = new int[n*depth];
+            first = new int[n];
+            gain = new int[n];
+            score = new int[n];
+            hash = new long[n];
+        }
+    }
+}
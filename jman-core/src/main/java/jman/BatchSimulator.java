@@ -0,0 +1,220 @@
+package jman;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/** This class is a CONTROLLER class that plays many games without any
+  * view.  Each game is an independent JManBoard played until J*Man has
+  * captured every walker and pillar or the round limit is reached; the
+  * games are spread over all cores with a fork-join pool.  Nothing in
+  * this class uses Swing or AWT, so it can run on machines without a
+  * display.
+  *
+  * To run a batch from the command line:
+  *   java -cp jman-core/target/classes jman.BatchSimulator --width 200 --height 200 --walkers 500 --games 1000
+  * See usage() for all of the options. */
+public class BatchSimulator {
+
+    private ForkJoinPool pool;  // the pool that plays the games
+
+    /** Constructor: a simulator that plays games on the common fork-join pool,
+      * which has one thread per core. */
+    public BatchSimulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /** Constructor: a simulator that plays games on pool. */
+    public BatchSimulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** Play n games of configuration c, giving the result of each game to
+      * out as soon as it is over, and yield the totals of the batch.
+      * out is called from the threads of the pool, so it must be thread-safe;
+      * results arrive in no particular order. */
+    public Summary run(SimulationConfig c, int n, Consumer<GameResult> out) {
+        Summary s = new Summary();
+        long start = System.nanoTime();
+        pool.invoke(new Games(c, 0, n, out, s));
+        s.nanos = System.nanoTime() - start;
+        return s;
+    }
+
+    /** Yields: the result of playing game number game of configuration c on
+      * the current thread. */
+    public static GameResult play(SimulationConfig c, int game) {
+        long start = System.nanoTime();
+        JManBoard b = c.newBoard(game);
+        DirectionProvider policy = c.getPolicy();
+        long t = c.getTicks();
+        b.act(t - b.getTicks(), policy);
+        return new GameResult(game, b, System.nanoTime() - start);
+    }
+
+    /* Task that plays games lo..hi-1, splitting the range in halves
+     * so that idle threads can steal work. */
+    private static class Games extends RecursiveAction {
+        private SimulationConfig c;
+        private int lo;
+        private int hi;
+        private Consumer<GameResult> out;
+        private Summary s;
+
+        Games(SimulationConfig c, int lo, int hi, Consumer<GameResult> out, Summary s) {
+            this.c = c;
+            this.lo = lo;
+            this.hi = hi;
+            this.out = out;
+            this.s = s;
+        }
+
+        protected void compute() {
+            if (hi - lo == 1) {
+                GameResult r = play(c, lo);
+                s.games.increment();
+                s.ticks.add(r.getTicks());
+                s.captures.add(r.getCaptures());
+                s.setup.add(r.getSetupNanos());
+                if (r.isWon()) s.won.increment();
+                out.accept(r);
+            } else if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Games(c, lo, mid, out, s), new Games(c, mid, hi, out, s));
+            }
+        }
+    }
+
+    /** An instance of this class holds the totals of one batch of games. */
+    public static class Summary {
+        private LongAdder games    = new LongAdder(); // # of games played
+        private LongAdder ticks    = new LongAdder(); // # of rounds played in all games
+        private LongAdder captures = new LongAdder(); // # of captures in all games
+        private LongAdder won      = new LongAdder(); // # of games J*Man won
+        private LongAdder setup    = new LongAdder(); // time spent putting pieces on boards
+        private long nanos;                           // wall-clock time of the batch
+
+        /** Yields: the number of games played */
+        public long getGames() {
+            return games.sum();
+        }
+
+        /** Yields: the number of rounds played in all games */
+        public long getTicks() {
+            return ticks.sum();
+        }
+
+        /** Yields: the number of pieces captured in all games */
+        public long getCaptures() {
+            return captures.sum();
+        }
+
+        /** Yields: the number of games in which J*Man captured every piece */
+        public long getWon() {
+            return won.sum();
+        }
+
+        /** Yields: the time spent putting pieces on the boards of all games,
+          * in nanoseconds (summed over all threads) */
+        public long getSetupNanos() {
+            return setup.sum();
+        }
+
+        /** Yields: the wall-clock time of the batch in nanoseconds */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /** Yields: the number of games played per second of wall-clock time */
+        public double gamesPerSecond() {
+            return getGames() * 1e9 / nanos;
+        }
+
+        /** Yields: the number of rounds played per second of wall-clock time */
+        public double ticksPerSecond() {
+            return getTicks() * 1e9 / nanos;
+        }
+
+        /** Yields: representation of these totals */
+        public String toString() {
+            return String.format("games=%d won=%d ticks=%d captures=%d setup=%.3fs "
+                                 + "time=%.3fs games/sec=%.1f ticks/sec=%.1f",
+                                 getGames(), getWon(), getTicks(), getCaptures(),
+                                 getSetupNanos() / 1e9, nanos / 1e9,
+                                 gamesPerSecond(), ticksPerSecond());
+        }
+    }
+
+    /** Run one batch given on the command line, printing each game as a
+      * line of comma-separated values and the totals at the end. */
+    public static void main(String[] args) {
+        int w = JManBoard.DEFAULT_WIDTH, h = JManBoard.DEFAULT_HEIGHT;
+        int bl = JManBoard.DEFAULT_BLOCKS, wa = JManBoard.DEFAULT_WALKERS;
+        int pi = JManBoard.DEFAULT_PILLARS;
+        int storage = JManBoard.STORAGE_OBJECTS;
+        long t = 1000;
+        int n = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        DirectionProvider policy = new RandomDirectionProvider();
+        Long seed = null;
+
+        for (int i= 0; i + 1 < args.length; i= i+2) {
+            String v = args[i+1];
+            switch (args[i]) {
+                case "--width":   w = Integer.parseInt(v); break;
+                case "--height":  h = Integer.parseInt(v); break;
+                case "--blocks":  bl = Integer.parseInt(v); break;
+                case "--walkers": wa = Integer.parseInt(v); break;
+                case "--pillars": pi = Integer.parseInt(v); break;
+                case "--ticks":   t = Long.parseLong(v); break;
+                case "--games":   n = Integer.parseInt(v); break;
+                case "--threads": threads = Integer.parseInt(v); break;
+                case "--storage": storage = parseStorage(v); break;
+                case "--policy":  policy = parsePolicy(v); break;
+                case "--seed":    seed = Long.parseLong(v); break;
+                default: usage(); return;
+            }
+        }
+        if (args.length % 2 != 0) {
+            usage();
+            return;
+        }
+
+        SimulationConfig c = new SimulationConfig(w, h, bl, wa, pi, policy, t);
+        c.setStorage(storage);
+        if (seed != null) c.setSeed(seed);
+        System.out.println("# " + c + " games=" + n + " threads=" + threads);
+        System.out.println(GameResult.HEADER);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Summary s = new BatchSimulator(pool).run(c, n, System.out::println);
+        pool.shutdown();
+        System.out.println("# " + s);
+        if (GameMetrics.ENABLED) {
+            System.out.println("# " + GameMetrics.report().replace("\n", "\n# "));
+        }
+    }
+
+    /* Yields: the storage constant named by v. */
+    private static int parseStorage(String v) {
+        if (v.equals("objects")) return JManBoard.STORAGE_OBJECTS;
+        if (v.equals("primitive")) return JManBoard.STORAGE_PRIMITIVE;
+        if (v.equals("chunked")) return JManBoard.STORAGE_CHUNKED;
+        throw new IllegalArgumentException("Unknown storage: " + v);
+    }
+
+    /* Yields: the policy named by v. */
+    private static DirectionProvider parsePolicy(String v) {
+        if (v.equals("random")) return new RandomDirectionProvider();
+        if (v.equals("autopilot")) return new Autopilot();
+        throw new IllegalArgumentException("Unknown policy: " + v);
+    }
+
+    /* Print the command-line options. */
+    private static void usage() {
+        System.err.println("usage: java jman.BatchSimulator [--width w] [--height h] [--blocks bl]");
+        System.err.println("         [--walkers wa] [--pillars pi] [--ticks t] [--games n]");
+        System.err.println("         [--threads k] [--storage objects|primitive|chunked] [--policy random|autopilot]");
+        System.err.println("         [--seed s]");
+    }
+}
@@ -1,4 +1,4 @@
-import java.awt.*;
+package jman;
 
 /** This class is a MODEL class; an instance of this class represents
   * a Block, storing data such as current position and color.
@@ -10,7 +10,7 @@ public class Block extends Piece {
     /** Constructor: a new Block at position (x, y) 
       * an Block is always colored white         */
     public Block (int x, int y) {
-        super(Piece.BLOCK, x, y, Color.white);
+        super(Piece.BLOCK, x, y, Piece.WHITE);
     }
 
     /** Yields: representation of this piece */
@@ -0,0 +1,26 @@
+package jman;
+
+/** This interface describes read-only access to the cells of a game
+  * board: the type and color code of the piece in each cell.  Views draw
+  * anything that implements it, e.g. a live JManBoard or a BoardSnapshot
+  * of one taken by another thread. */
+public interface BoardCells {
+
+    /** Value yielded by typeAt for a cell that contains no piece. */
+    int EMPTY = -1;
+
+    /** Yields: the width of the board in grid squares */
+    int getWidth();
+
+    /** Yields: the height of the board in grid squares */
+    int getHeight();
+
+    /** Yields: the type of the piece at (x, y), one of the piece constants
+      * in class Piece, or EMPTY if (x, y) is empty or not on the board. */
+    int typeAt(int x, int y);
+
+    /** Yields: the color code of the piece at (x, y), one of Piece.RED,
+      * Piece.GREEN, Piece.YELLOW and Piece.WHITE.
+      * Precondition: typeAt(x, y) != EMPTY. */
+    int colorAt(int x, int y);
+}
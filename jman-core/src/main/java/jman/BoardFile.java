@@ -0,0 +1,311 @@
+package jman;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** This class saves a JManBoard to a binary file and loads it back, so that
+  * a game can be checkpointed and restored.  A restored board plays the same
+  * game as the saved one would have: it has the same cells, J*Man, next
+  * direction, counts, and state of the random number generator, and its
+  * walkers and pillars act in the same order.
+  *
+  * The file is big-endian.  It starts with a header:
+  *   int MAGIC, int VERSION, int width, int height, int storage type,
+  *   int J*Man's x, y and color code, int next direction, long ticks,
+  *   int captures, int # of blocks, walkers and pillars, long[4] generator state,
+  *   long # of walkers and pillars.
+  * Then, for each row, the type byte of each cell (BoardCells.EMPTY if the
+  * cell is empty) followed by the color code byte of each cell.  Last, the
+  * int x and y of each walker and pillar, in the order in which they act.
+  *
+  * Files are written through a FileChannel and read through memory-mapped
+  * windows of the file, a row at a time; with STORAGE_PRIMITIVE the rows are
+  * copied straight to and from the arrays of the board, so a large board is
+  * saved and loaded at the speed of sequential I/O. */
+public class BoardFile {
+
+    /** First int of a board file ("JMAN"). */
+    public static final int MAGIC = 0x4A4D414E;
+    /** Version of the format written. */
+    public static final int VERSION = 1;
+
+    /* Size of the buffer through which a file is written. */
+    private static final int BUFFER_BYTES = 1 << 20;
+    /* Largest window of a file mapped at once when it is read. */
+    private static final long WINDOW_BYTES = 1L << 28;
+
+    private BoardFile() {
+    }
+
+    /** Save board b to file, replacing whatever was in it. */
+    public static void save(JManBoard b, Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.TRUNCATE_EXISTING,
+                                               StandardOpenOption.WRITE)) {
+            save(b, ch);
+        }
+    }
+
+    /** Save board b to ch, starting at its position (e.g. appended to a file
+      * of checkpoints). */
+    static void save(JManBoard b, FileChannel ch) throws IOException {
+        Output out = new Output(ch);
+        int w = b.getWidth(), h = b.getHeight();
+        JMan jMan = b.getJMan();
+        ActorIndex actors = b.getActors();
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(w);
+        out.putInt(h);
+        out.putInt(b.getStorageType());
+        out.putInt(jMan.getX());
+        out.putInt(jMan.getY());
+        out.putInt(jMan.getColor());
+        out.putInt(b.nextJManDirection());
+        out.putLong(b.getTicks());
+        out.putInt(b.getCaptures());
+        out.putInt(b.getPieceCount(Piece.BLOCK));
+        out.putInt(b.getPieceCount(Piece.WALKER));
+        out.putInt(b.getPieceCount(Piece.PILLAR));
+        long[] state = b.getRandom().getState();
+        for (int i= 0; i < state.length; i= i+1) {
+            out.putLong(state[i]);
+        }
+        out.putLong(actors.size());
+
+        BoardStorage storage = b.getStorage();
+        if (storage instanceof PrimitiveBoardStorage) {
+            PrimitiveBoardStorage p = (PrimitiveBoardStorage) storage;
+            for (int y= 0; y < h; y= y+1) {
+                out.put(p.types(), y*w, w);
+                out.put(p.colors(), y*w, w);
+            }
+        } else {
+            byte[] types = new byte[w];
+            byte[] colors = new byte[w];
+            for (int y= 0; y < h; y= y+1) {
+                for (int x= 0; x < w; x= x+1) {
+                    int t = b.typeAt(x, y);
+                    types[x] = (byte) t;
+                    colors[x] = t == BoardCells.EMPTY ? 0 : (byte) b.colorAt(x, y);
+                }
+                out.put(types, 0, w);
+                out.put(colors, 0, w);
+            }
+        }
+
+        for (int s= 0; s < actors.size(); s= s+1) {
+            out.putInt(actors.getX(s));
+            out.putInt(actors.getY(s));
+        }
+        out.flush();
+    }
+
+    /** Yields: the board saved in file, stored as it was when saved. */
+    public static JManBoard load(Path file) throws IOException {
+        return load(file, -1);
+    }
+
+    /** Yields: the board saved in file, stored as given by s, one of the
+      * JManBoard STORAGE_ constants (or -1: as it was when saved). */
+    public static JManBoard load(Path file, int s) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return load(ch, 0, s, file.toString());
+        }
+    }
+
+    /** Yields: the board saved in ch at offset, stored as given by s (as in
+      * load(file, s)).  file names ch in error messages. */
+    static JManBoard load(FileChannel ch, long offset, int s, String file) throws IOException {
+        Input in = new Input(ch, offset);
+        if (in.getInt() != MAGIC) {
+            throw new IOException(file + " is not a J*Man board file");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException(file + " has unsupported version " + version);
+        }
+        int w = in.getInt();
+        int h = in.getInt();
+        int saved = in.getInt();
+        int jx = in.getInt();
+        int jy = in.getInt();
+        int jColor = in.getInt();
+        int direction = in.getInt();
+        long ticks = in.getLong();
+        int captures = in.getInt();
+        int[] counts = new int[4];
+        counts[Piece.JMAN] = 1;
+        counts[Piece.BLOCK] = in.getInt();
+        counts[Piece.WALKER] = in.getInt();
+        counts[Piece.PILLAR] = in.getInt();
+        long[] state = new long[4];
+        for (int i= 0; i < state.length; i= i+1) {
+            state[i] = in.getLong();
+        }
+        long actorCount = in.getLong();
+        if (w <= 0 || h <= 0 || jx < 0 || jy < 0 || jx >= w || jy >= h
+                || jColor < Piece.RED || jColor > Piece.WHITE
+                || direction < JManBoard.MOVE_NONE || direction > JManBoard.MOVE_RIGHT
+                || counts[Piece.BLOCK] < 0 || counts[Piece.WALKER] < 0 || counts[Piece.PILLAR] < 0
+                || actorCount != counts[Piece.WALKER] + counts[Piece.PILLAR]) {
+            throw new IOException(file + " has a corrupt header");
+        }
+
+        JManRandom r = new JManRandom();
+        r.setState(state);
+        JManBoard b = new JManBoard(w, h, s == -1 ? saved : s, r);
+        BoardStorage storage = b.getStorage();
+        if (storage instanceof PrimitiveBoardStorage) {
+            PrimitiveBoardStorage p = (PrimitiveBoardStorage) storage;
+            for (int y= 0; y < h; y= y+1) {
+                in.get(p.types(), y*w, w);
+                in.get(p.colors(), y*w, w);
+                checkRow(p.types(), p.colors(), y*w, w, y, jx, jy, file);
+            }
+        } else {
+            byte[] types = new byte[w];
+            byte[] colors = new byte[w];
+            for (int y= 0; y < h; y= y+1) {
+                in.get(types, 0, w);
+                in.get(colors, 0, w);
+                checkRow(types, colors, 0, w, y, jx, jy, file);
+                for (int x= 0; x < w; x= x+1) {
+                    if (types[x] != BoardCells.EMPTY && types[x] != Piece.JMAN) {
+                        b.restorePiece(types[x], x, y, colors[x]);
+                    }
+                }
+            }
+        }
+        if (b.typeAt(jx, jy) != Piece.JMAN && b.typeAt(jx, jy) != BoardCells.EMPTY) {
+            throw new IOException(file + " has a corrupt J*Man position");
+        }
+        b.restorePiece(Piece.JMAN, jx, jy, jColor);
+
+        for (long i= 0; i < actorCount; i= i+1) {
+            int x = in.getInt();
+            int y = in.getInt();
+            int t = x < 0 || y < 0 || x >= w || y >= h ? BoardCells.EMPTY : b.typeAt(x, y);
+            if (t != Piece.WALKER && t != Piece.PILLAR) {
+                throw new IOException(file + " has a corrupt actor at (" + x + ", " + y + ")");
+            }
+            b.restoreActor(x, y);
+        }
+        b.changeJManDirection(direction);
+        b.restoreCounts(counts, ticks, captures);
+        return b;
+    }
+
+    /* Throw an IOException naming file unless types[off..off+w-1] and
+     * colors[off..off+w-1] are the cells of row y of a board whose J*Man is
+     * at (jx, jy): each type is EMPTY or a piece type, only J*Man's cell is
+     * of type JMAN, and each piece has a color code. */
+    private static void checkRow(byte[] types, byte[] colors, int off, int w, int y,
+                                 int jx, int jy, String file) throws IOException {
+        for (int x= 0; x < w; x= x+1) {
+            int t = types[off + x], c = colors[off + x];
+            if (t < BoardCells.EMPTY || t > Piece.PILLAR
+                    || t == Piece.JMAN && (x != jx || y != jy)
+                    || t != BoardCells.EMPTY && (c < Piece.RED || c > Piece.WHITE)) {
+                throw new IOException(file + " has a corrupt cell at (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    /* Writes big-endian values to a channel through a direct buffer (also
+     * used by LevelFile). */
+    static class Output {
+        private FileChannel ch;
+        private ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        Output(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        void putInt(int v) throws IOException {
+            room(4);
+            buf.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            room(8);
+            buf.putLong(v);
+        }
+
+        /* Write a[off..off+len-1]. */
+        void put(byte[] a, int off, int len) throws IOException {
+            while (len > 0) {
+                room(1);
+                int n = Math.min(len, buf.remaining());
+                buf.put(a, off, n);
+                off = off + n;
+                len = len - n;
+            }
+        }
+
+        /* Make room for n bytes in the buffer. */
+        private void room(int n) throws IOException {
+            if (buf.remaining() < n) flush();
+        }
+
+        /* Write the buffer to the channel. */
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            buf.clear();
+        }
+    }
+
+    /* Reads big-endian values from a channel through memory-mapped windows. */
+    private static class Input {
+        private FileChannel ch;
+        private long size;            // size of the file
+        private long start;           // position in the file of the window
+        private MappedByteBuffer map; // the window
+
+        Input(FileChannel ch, long offset) throws IOException {
+            this.ch = ch;
+            size = ch.size();
+            start = offset;
+            map = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, WINDOW_BYTES));
+        }
+
+        int getInt() throws IOException {
+            need(4);
+            return map.getInt();
+        }
+
+        long getLong() throws IOException {
+            need(8);
+            return map.getLong();
+        }
+
+        /* Read len bytes into a[off..off+len-1]. */
+        void get(byte[] a, int off, int len) throws IOException {
+            while (len > 0) {
+                need(1);
+                int n = Math.min(len, map.remaining());
+                map.get(a, off, n);
+                off = off + n;
+                len = len - n;
+            }
+        }
+
+        /* Make sure that the window holds the next n bytes of the file. */
+        private void need(int n) throws IOException {
+            if (map.remaining() >= n) return;
+            long pos = start + map.position();
+            if (pos + n > size) {
+                throw new IOException("Unexpected end of board file");
+            }
+            start = pos;
+            map = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, WINDOW_BYTES));
+        }
+    }
+}
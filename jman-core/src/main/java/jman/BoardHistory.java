@@ -0,0 +1,338 @@
+package jman;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/** This class is a MODEL class; an instance of this class records the rounds
+  * played on a board so that they can be undone and redone.
+  *
+  * Each round is recorded as a delta, written as the round is played: an
+  * entry for each move (the cells, and the piece captured, if any) and each
+  * change of color (the cell and the old and new colors), plus the state of
+  * the random number generator before and after the round.  Undoing or
+  * redoing a round takes time proportional to its entries, however large
+  * the board.
+  *
+  * The deltas may use at most half of the bytes given to the constructor.
+  * When they would use more, the oldest deltas are folded into a copy of
+  * the board as it was before them (the base), one round at a time.  Every
+  * spacing rounds the base is copied into a keyframe; when there are too
+  * many keyframes, those that are not on a multiple of twice the spacing
+  * (but the first) are dropped and the spacing doubles, so the keyframes
+  * grow sparser with age and use at most three eighths of the bytes.
+  * The directions of the folded rounds are kept (a byte a round), so the
+  * board can be rewound to any round since the first keyframe: from the
+  * keyframe before it, by playing the rounds after the keyframe again.
+  * The directions use at most the last eighth of the bytes; when they
+  * would use more, the first keyframe and the directions after it, up to
+  * the next keyframe, are dropped, so the earliest round that can be
+  * rewound to moves forward. */
+class BoardHistory {
+
+    /* Kinds of entries in a delta; each entry is ENTRY ints. */
+    private static final int MOVE = 0;  // MOVE, fromX, fromY, toX, toY, captured type, color, slot
+    private static final int COLOR = 1; // COLOR, x, y, old color code, new color code, unused...
+    private static final int ENTRY = 8;
+
+    /* Rounds between keyframes at first. */
+    private static final int KEYFRAME_SPACING = 256;
+    /* Largest number of keyframes, whatever the memory allowed. */
+    private static final int MAX_KEYFRAMES = 64;
+    /* Bytes a delta uses besides its entries (about). */
+    private static final int DELTA_OVERHEAD = 112;
+    /* Fewest directions of folded rounds kept, whatever the memory allowed. */
+    private static final int MIN_DIRECTIONS = 2 * KEYFRAME_SPACING;
+
+    private JManBoard board;     // the board recorded
+    private long deltaBytes;     // most bytes the deltas may use
+    private int maxKeyframes;    // most keyframes kept (at least 2)
+    private boolean replaying;   // "changes are being undone or redone, so do not record them"
+
+    // The deltas of rounds firstTick .. firstTick+size-1, in ring[(first+i) % ring.length];
+    // the first done of them have been played (the board is at round firstTick+done).
+    private Delta[] ring = new Delta[64];
+    private int first, size, done;
+    private long firstTick;
+    private long bytes;          // bytes used by the deltas in the ring
+    private Delta current;       // delta of the round being played (null between rounds)
+
+    private JManBoard base;      // the board at round firstTick (STORAGE_PRIMITIVE)
+    private ArrayList<JManBoard> keyframes = new ArrayList<JManBoard>(); // copies of base, by round
+    private long spacing = KEYFRAME_SPACING; // rounds between keyframes
+    private byte[] directions = new byte[256]; // direction of rounds keyframes[0].getTicks() .. firstTick-1
+    private int directionCount;
+    private int maxDirections;   // most directions kept
+    private int lastDirection;   // board's next direction at the end of the last round recorded
+
+    /** Constructor: a history of the rounds played on b from now on, using
+      * about maxBytes bytes (at least two copies of the board, though). */
+    BoardHistory(JManBoard b, long maxBytes) {
+        board = b;
+        deltaBytes = maxBytes / 2;
+        long copyBytes = 6L * b.getWidth() * b.getHeight() + 8L * b.getActors().size();
+        maxKeyframes = (int) Math.max(2, Math.min(MAX_KEYFRAMES, maxBytes * 3 / 8 / copyBytes - 1));
+        maxDirections = (int) Math.max(MIN_DIRECTIONS, Math.min(Integer.MAX_VALUE - 8, maxBytes / 8));
+        lastDirection = b.nextJManDirection();
+        firstTick = b.getTicks();
+        base = b.copy(JManBoard.STORAGE_PRIMITIVE);
+        keyframes.add(base.copy(JManBoard.STORAGE_PRIMITIVE));
+    }
+
+    /** Yields: the earliest round the board can be rewound to. */
+    long getEarliestTick() {
+        return keyframes.get(0).getTicks();
+    }
+
+    /** Yields: the latest round the board can be redone to. */
+    long getLatestTick() {
+        return firstTick + size;
+    }
+
+    /** Record that a round is starting, in which J*Man moves in the board's
+      * next direction; parallel is "the round is played by act(pool)".
+      * Rounds that were undone can no longer be redone. */
+    void roundStarted(boolean parallel) {
+        if (replaying) return;
+        while (size > done) {
+            size= size-1;
+            bytes = bytes - delta(size).bytes();
+            ring[(first + size) % ring.length] = null;
+        }
+        current = new Delta();
+        current.previous = lastDirection;
+        current.direction = board.nextJManDirection();
+        current.parallel = parallel;
+        current.before = board.getRandom().getState();
+    }
+
+    /** Record that the piece at (fromX, fromY) is about to move to (toX, toY). */
+    void moving(int fromX, int fromY, int toX, int toY) {
+        if (replaying || current == null) return;
+        int t = board.typeAt(toX, toY);
+        if (t == BoardCells.EMPTY) {
+            current.add(MOVE, fromX, fromY, toX, toY, t, 0, -1);
+        } else {
+            current.add(MOVE, fromX, fromY, toX, toY, t, board.colorAt(toX, toY),
+                        board.getStorage().getSlot(toX, toY));
+        }
+    }
+
+    /** Record that the piece at (x, y) changed its color from code old to code c. */
+    void colorChanged(int x, int y, int old, int c) {
+        if (replaying || current == null) return;
+        current.add(COLOR, x, y, old, c, 0, 0, 0);
+    }
+
+    /** Record that the round that started last is over. */
+    void roundEnded() {
+        if (replaying || current == null) return;
+        current.after = board.getRandom().getState();
+        lastDirection = current.direction;
+        if (size == ring.length) {
+            Delta[] r = new Delta[2*size];
+            for (int i= 0; i < size; i= i+1) {
+                r[i] = delta(i);
+            }
+            ring = r;
+            first = 0;
+        }
+        ring[(first + size) % ring.length] = current;
+        size= size+1;
+        done= done+1;
+        bytes = bytes + current.bytes();
+        current = null;
+        while (bytes > deltaBytes && done > 0) {
+            foldOldest();
+        }
+    }
+
+    /** Undo the last round played, if any.  Yields: "a round was undone". */
+    boolean undo() {
+        long t = board.getTicks();
+        if (done == 0) {
+            if (t <= getEarliestTick()) return false;
+            rewindTo(t - 1);
+            return true;
+        }
+        done= done-1;
+        Delta d = delta(done);
+        replaying = true;
+        try {
+            int[] e = d.entries;
+            for (int i= d.length - ENTRY; i >= 0; i= i-ENTRY) {
+                if (e[i] == MOVE) {
+                    board.unmove(e[i+1], e[i+2], e[i+3], e[i+4], e[i+5], e[i+6], e[i+7]);
+                } else {
+                    board.restoreColor(e[i+1], e[i+2], e[i+3]);
+                }
+            }
+            board.restoreRound(t - 1, d.before);
+            board.changeJManDirection(d.previous);
+            lastDirection = d.previous;
+        } finally {
+            replaying = false;
+        }
+        return true;
+    }
+
+    /** Redo the last round undone, if any.  Yields: "a round was redone". */
+    boolean redo() {
+        if (done == size) return false;
+        replaying = true;
+        try {
+            apply(board, delta(done));
+            lastDirection = board.nextJManDirection();
+        } finally {
+            replaying = false;
+        }
+        done= done+1;
+        return true;
+    }
+
+    /** Undo or redo rounds until the board is at round t.  If t is before
+      * the deltas kept, the board is copied from the keyframe before t and
+      * the rounds after the keyframe are played again (and recorded); the
+      * rounds after t can then no longer be redone.
+      * Precondition: getEarliestTick() <= t <= getLatestTick(). */
+    void rewindTo(long t) {
+        if (t < getEarliestTick() || t > getLatestTick()) {
+            throw new IllegalArgumentException("Round " + t + " is not in "
+                                               + getEarliestTick() + ".." + getLatestTick());
+        }
+        if (t >= firstTick) {
+            while (board.getTicks() > t) undo();
+            while (board.getTicks() < t) redo();
+            return;
+        }
+
+        // The last keyframe at or before round t; drop the ones after it.
+        int k = keyframes.size() - 1;
+        while (keyframes.get(k).getTicks() > t) {
+            k= k-1;
+        }
+        JManBoard key = keyframes.get(k);
+        while (keyframes.size() > k + 1) {
+            keyframes.remove(keyframes.size() - 1);
+        }
+        long from = key.getTicks();
+        int skip = (int) (from - getEarliestTick());
+        byte[] moves = Arrays.copyOfRange(directions, skip, skip + (int) (t - from));
+        directionCount = skip;
+
+        // Start again from the keyframe, and play the rounds up to t.
+        Arrays.fill(ring, null);
+        first = 0;
+        size = 0;
+        done = 0;
+        bytes = 0;
+        firstTick = from;
+        base.restoreFrom(key);
+        board.restoreFrom(key);
+        lastDirection = board.nextJManDirection();
+        for (int i= 0; i < moves.length; i= i+1) {
+            board.changeJManDirection(moves[i] & 0x7F);
+            if (moves[i] < 0) {
+                board.act(null);
+            } else {
+                board.act();
+            }
+        }
+    }
+
+    /* Fold the delta of round firstTick into the base, and copy the base
+     * into a keyframe if one is due. */
+    private void foldOldest() {
+        Delta d = delta(0);
+        apply(base, d);
+        ring[first] = null;
+        first = (first + 1) % ring.length;
+        size= size-1;
+        done= done-1;
+        bytes = bytes - d.bytes();
+        firstTick= firstTick+1;
+
+        if (directionCount == maxDirections) {
+            dropFirstKeyframe();
+        }
+        if (directionCount == directions.length) {
+            directions = Arrays.copyOf(directions, (int) Math.min(maxDirections, 2L*directionCount));
+        }
+        directions[directionCount] = (byte) (d.direction | (d.parallel ? 0x80 : 0));
+        directionCount= directionCount+1;
+
+        if (firstTick % spacing == 0) {
+            keyframes.add(base.copy(JManBoard.STORAGE_PRIMITIVE));
+            if (keyframes.size() > maxKeyframes) {
+                spacing = 2*spacing;
+                for (int i= keyframes.size() - 1; i > 0; i= i-1) {
+                    if (keyframes.get(i).getTicks() % spacing != 0) keyframes.remove(i);
+                }
+            }
+        }
+    }
+
+    /* Drop the first keyframe and the directions of the rounds from it to
+     * the next keyframe (a copy of the base, at round firstTick, if there is
+     * no other), so that the directions use less memory. */
+    private void dropFirstKeyframe() {
+        if (keyframes.size() == 1) {
+            keyframes.add(base.copy(JManBoard.STORAGE_PRIMITIVE));
+        }
+        int skip = (int) (keyframes.get(1).getTicks() - keyframes.get(0).getTicks());
+        keyframes.remove(0);
+        System.arraycopy(directions, skip, directions, 0, directionCount - skip);
+        directionCount = directionCount - skip;
+    }
+
+    /* Play the round recorded in d on b, which is at the round before it,
+     * leaving J*Man's next direction as it was given for that round. */
+    private static void apply(JManBoard b, Delta d) {
+        int[] e = d.entries;
+        for (int i= 0; i < d.length; i= i+ENTRY) {
+            if (e[i] == MOVE) {
+                b.move(e[i+1], e[i+2], e[i+3], e[i+4]);
+            } else {
+                b.restoreColor(e[i+1], e[i+2], e[i+4]);
+            }
+        }
+        b.restoreRound(b.getTicks() + 1, d.after);
+        b.changeJManDirection(d.direction);
+    }
+
+    /* Yields: the i-th delta of the ring. */
+    private Delta delta(int i) {
+        return ring[(first + i) % ring.length];
+    }
+
+    /* The changes made by one round. */
+    private static class Delta {
+        int previous;         // J*Man's next direction at the end of the round before
+        int direction;        // direction J*Man was given
+        boolean parallel;     // "played by act(pool)"
+        long[] before, after; // generator state before and after the round
+        int[] entries = new int[2*ENTRY]; // entries[0..length-1] are the entries, in order
+        int length;
+
+        /* Append an entry of kind k with fields a..g (COLOR uses only a..d). */
+        void add(int k, int a, int b, int c, int d, int e, int f, int g) {
+            if (length == entries.length) {
+                entries = Arrays.copyOf(entries, 2*length);
+            }
+            int[] en = entries;
+            en[length] = k;
+            en[length+1] = a;
+            en[length+2] = b;
+            en[length+3] = c;
+            en[length+4] = d;
+            en[length+5] = e;
+            en[length+6] = f;
+            en[length+7] = g;
+            length = length + ENTRY;
+        }
+
+        /* Yields: about how many bytes this delta uses. */
+        long bytes() {
+            return DELTA_OVERHEAD + 4L * entries.length;
+        }
+    }
+}
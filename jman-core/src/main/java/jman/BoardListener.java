@@ -0,0 +1,14 @@
+package jman;
+
+/** This interface describes an object that is told whenever the contents
+  * of a cell of a JManBoard change, e.g. a view that only redraws the
+  * cells that changed in a round.  Register it with
+  * JManBoard.addBoardListener. */
+public interface BoardListener {
+
+    /** Called after the contents of cell (x, y) of board b changed: a piece
+      * was put there, moved into or out of it, captured there, or changed
+      * its color.  Called on the thread that changed the board; the listener
+      * must not change the board. */
+    void cellChanged(JManBoard b, int x, int y);
+}
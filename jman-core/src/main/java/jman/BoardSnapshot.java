@@ -0,0 +1,85 @@
+package jman;
+
+import java.util.Arrays;
+
+/** An instance of this class is a copy of the cells of a JManBoard as they
+  * were at the end of one round, kept as a type byte and a color byte per
+  * cell (row-major).  Instances are filled in by a SnapshotBuffer on the
+  * thread that plays the game and are read by views on other threads; a
+  * published snapshot does not change while a reader holds it. */
+public class BoardSnapshot implements BoardCells {
+
+    private int width;       // width of the board in tiles.
+    private int height;      // height of the board in tiles.
+    private byte[] types;    // piece type of each cell, or EMPTY
+    private byte[] colors;   // color code of each cell
+    private long tick;       // # of rounds played when the copy was made
+    private int jManX;       // position of J*Man
+    private int jManY;
+    long version = -1;       // # of the SnapshotBuffer publication copied
+
+    /** Constructor: a snapshot of a w x h board with no pieces. */
+    BoardSnapshot(int w, int h) {
+        width  = w;
+        height = h;
+        types  = new byte[w*h];
+        colors = new byte[w*h];
+        Arrays.fill(types, (byte) EMPTY);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int typeAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return EMPTY;
+        return types[y*width + x];
+    }
+
+    public int colorAt(int x, int y) {
+        return colors[y*width + x];
+    }
+
+    /** Yields: the number of rounds that had been played when this copy was made. */
+    public long getTick() {
+        return tick;
+    }
+
+    /** Yields: the x coordinate of J*Man. */
+    public int getJManX() {
+        return jManX;
+    }
+
+    /** Yields: the y coordinate of J*Man. */
+    public int getJManY() {
+        return jManY;
+    }
+
+    /** Copy cell (x, y) of board b into this snapshot. */
+    void copyCell(JManBoard b, int x, int y) {
+        int k = y*width + x;
+        int t = b.typeAt(x, y);
+        types[k]  = (byte) t;
+        colors[k] = t == EMPTY ? 0 : (byte) b.colorAt(x, y);
+    }
+
+    /** Copy every cell of board b, which is as big as this snapshot, into it. */
+    void copyAll(JManBoard b) {
+        for (int y= 0; y < height; y= y+1) {
+            for (int x= 0; x < width; x= x+1) {
+                copyCell(b, x, y);
+            }
+        }
+    }
+
+    /** Copy the round number and J*Man's position of board b into this snapshot. */
+    void copyState(JManBoard b) {
+        tick  = b.getTicks();
+        jManX = b.getJMan().getX();
+        jManY = b.getJMan().getY();
+    }
+}
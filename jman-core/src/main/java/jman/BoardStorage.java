@@ -0,0 +1,50 @@
+package jman;
+
+/** This interface describes how a JManBoard keeps its pieces.  A board
+  * only talks to its pieces through an instance of this interface, so
+  * the cells can be kept either as a grid of Piece objects or in some
+  * more compact form.  All positions given to these methods are on the
+  * board; checking that is the job of JManBoard.  */
+public interface BoardStorage {
+
+    /** Yields: the Piece at position (x, y), or null if (x, y) is empty.
+      * A storage that does not keep Piece objects may yield a new view
+      * of the cell on each call; the J*Man piece is always the same object. */
+    Piece get(int x, int y);
+
+    /** Yields: "(x, y) does not contain a piece". */
+    boolean isEmpty(int x, int y);
+
+    /** Yields: the type of the piece at (x, y), or BoardCells.EMPTY if
+      * (x, y) is empty, without making a view of the cell. */
+    default int typeAt(int x, int y) {
+        Piece p = get(x, y);
+        return p == null ? BoardCells.EMPTY : p.getType();
+    }
+
+    /** Yields: the color code of the piece at (x, y), without making a
+      * view of the cell.  Precondition: (x, y) contains a piece. */
+    default int colorAt(int x, int y) {
+        return get(x, y).getColor();
+    }
+
+    /** Put piece p in location (p.getX(), p.getY()), replacing whatever
+      * was there. */
+    void put(Piece p);
+
+    /** Move the piece at (fromX, fromY) to (toX, toY), changing (fromX, fromY)
+      * to empty and updating the position in the piece if it is kept as an
+      * object. The piece originally in (toX, toY) is permanently deleted. */
+    void move(int fromX, int fromY, int toX, int toY);
+
+    /** Record that the piece at (x, y) now has color code c. */
+    void setColor(int x, int y, int c);
+
+    /** Yields: the slot of the piece at (x, y) in the board's ActorIndex,
+      * or -1 if it is not in the index. move() keeps the slot with the piece. */
+    int getSlot(int x, int y);
+
+    /** Set the slot of the piece at (x, y) in the board's ActorIndex to s.
+      * Precondition: (x, y) contains a piece. */
+    void setSlot(int x, int y, int s);
+}
@@ -0,0 +1,93 @@
+package jman;
+
+import java.util.Arrays;
+
+/** An instance of this class is a BoardListener that records which cells
+  * of a board changed since it was last cleared, e.g. during one round,
+  * together with the smallest rectangle of cells that contains them all.
+  * A view can then redraw just those cells.  A cell that changed more than
+  * once may be recorded more than once.  An instance is not thread-safe:
+  * it must be read and cleared on the thread that changes the board. */
+public class ChangedCells implements BoardListener {
+
+    private int[] xs = new int[64];  // x coordinates of the changed cells
+    private int[] ys = new int[64];  // y coordinates of the changed cells
+    private int size;                // cells 0..size-1 have changed
+    private int minX, minY, maxX, maxY; // bounds of the changed cells (if size > 0)
+
+    public void cellChanged(JManBoard b, int x, int y) {
+        add(x, y);
+    }
+
+    /** Record that cell (x, y) changed. */
+    public void add(int x, int y) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, 2*size);
+            ys = Arrays.copyOf(ys, 2*size);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        if (size == 0) {
+            minX = maxX = x;
+            minY = maxY = y;
+        } else {
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        size= size+1;
+    }
+
+    /** Yields: the number of changes recorded. */
+    public int size() {
+        return size;
+    }
+
+    /** Yields: the x coordinate of change number i.
+      * Precondition: 0 <= i < size(). */
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    /** Yields: the y coordinate of change number i.
+      * Precondition: 0 <= i < size(). */
+    public int getY(int i) {
+        return ys[i];
+    }
+
+    /** Yields: the smallest x coordinate of a changed cell. Precondition: size() > 0. */
+    public int getMinX() {
+        return minX;
+    }
+
+    /** Yields: the smallest y coordinate of a changed cell. Precondition: size() > 0. */
+    public int getMinY() {
+        return minY;
+    }
+
+    /** Yields: the largest x coordinate of a changed cell. Precondition: size() > 0. */
+    public int getMaxX() {
+        return maxX;
+    }
+
+    /** Yields: the largest y coordinate of a changed cell. Precondition: size() > 0. */
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /** Yields: the changes recorded, as pairs x0, y0, x1, y1, ... */
+    public int[] toArray() {
+        int[] cells = new int[2*size];
+        for (int i= 0; i < size; i= i+1) {
+            cells[2*i]   = xs[i];
+            cells[2*i+1] = ys[i];
+        }
+        return cells;
+    }
+
+    /** Forget all the changes recorded so far. */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,212 @@
+package jman;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** This class is a MODEL class; an instance of this class keeps the cells
+  * of a board in square chunks of CHUNK_SIZE x CHUNK_SIZE cells, held in a
+  * hash map keyed by chunk coordinate.  Only chunks that contain a piece
+  * exist: a chunk is created when a piece is put or moved into it and
+  * dropped when its last piece leaves or is captured.  This makes it
+  * possible to play on boards far too big to allocate as one array, e.g.
+  * 100000 x 100000 with a few million pieces.
+  * A chunk with few pieces keeps them in a short list; once it holds more
+  * than SPARSE_LIMIT pieces it switches to an array with one element per
+  * cell, and once it is down to SPARSE_LIMIT/2 pieces it switches back (not
+  * at SPARSE_LIMIT, so that a piece going back and forth across the limit
+  * does not switch it every round).  So memory grows with the number of
+  * pieces, not with the area. */
+public class ChunkedBoardStorage implements BoardStorage {
+
+    /** log2 of the width and height of a chunk in tiles. */
+    public static final int CHUNK_SHIFT = 6;
+    /** Width and height of a chunk in tiles. */
+    public static final int CHUNK_SIZE  = 1 << CHUNK_SHIFT;
+    /** Most pieces a chunk keeps in its short list. */
+    public static final int SPARSE_LIMIT = 16;
+
+    private static final int MASK = CHUNK_SIZE - 1;
+
+    private HashMap<Long, Chunk> chunks = new HashMap<Long, Chunk>(); // the non-empty chunks
+    private long lastKey = -1;     // key of the chunk found by the last lookup
+    private Chunk lastChunk;       // chunk found by the last lookup (null if none)
+
+    /** Constructor: an empty storage.  It does not need to know the size
+      * of the board, since nothing is allocated until a piece is put. */
+    public ChunkedBoardStorage() {
+    }
+
+    /** Yields: the number of chunks that currently contain a piece. */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /** Yields: the number of chunks that keep one element per cell. */
+    public int getDenseChunkCount() {
+        int n = 0;
+        for (Chunk c : chunks.values()) {
+            if (c.cells == null) n= n+1;
+        }
+        return n;
+    }
+
+    public Piece get(int x, int y) {
+        Chunk c = chunkAt(x, y);
+        return c == null ? null : c.get(offset(x, y));
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return get(x, y) == null;
+    }
+
+    public void put(Piece p) {
+        int x = p.getX(), y = p.getY();
+        Chunk c = chunkAt(x, y);
+        if (c == null) {
+            c = new Chunk();
+            chunks.put(key(x, y), c);
+            lastKey = key(x, y);
+            lastChunk = c;
+        }
+        c.put(offset(x, y), p);
+    }
+
+    public void move(int fromX, int fromY, int toX, int toY) {
+        Chunk from = chunkAt(fromX, fromY);
+        Piece p = from.remove(offset(fromX, fromY));
+        if (from.count == 0) drop(fromX, fromY);
+        p.setX(toX);
+        p.setY(toY);
+        put(p);
+    }
+
+    /* The piece object itself holds the color, so there is nothing to do. */
+    public void setColor(int x, int y, int c) {
+    }
+
+    public int getSlot(int x, int y) {
+        Piece p = get(x, y);
+        return p == null ? -1 : p.slot;
+    }
+
+    public void setSlot(int x, int y, int s) {
+        get(x, y).slot = s;
+    }
+
+    /* Yields: the key of the chunk that contains (x, y).  Chunk coordinates
+     * have at most 31 - CHUNK_SHIFT bits; they are packed so that both end up
+     * in the low 32 bits that Long.hashCode keeps (putting the x coordinate in
+     * the high half would hash (x, y) and (y, x) alike). */
+    private static long key(int x, int y) {
+        return ((long) (x >> CHUNK_SHIFT) << (31 - CHUNK_SHIFT)) | (y >> CHUNK_SHIFT);
+    }
+
+    /* Yields: the position of (x, y) within its chunk. */
+    private static int offset(int x, int y) {
+        return ((y & MASK) << CHUNK_SHIFT) | (x & MASK);
+    }
+
+    /* Yields: the chunk that contains (x, y), or null if it has no pieces.
+     * Pieces mostly act near each other, so the last chunk found is
+     * checked first. */
+    private Chunk chunkAt(int x, int y) {
+        long k = key(x, y);
+        if (k != lastKey) {
+            lastKey = k;
+            lastChunk = chunks.get(k);
+        }
+        return lastChunk;
+    }
+
+    /* Remove the (empty) chunk that contains (x, y). */
+    private void drop(int x, int y) {
+        long k = key(x, y);
+        chunks.remove(k);
+        if (k == lastKey) lastChunk = null;
+    }
+
+    /* A chunk of the board.  While it is sparse (cells != null), pieces[0..count-1]
+     * are its pieces and cells[i] is the offset of pieces[i]; once it is dense,
+     * pieces[off] is the piece at offset off. */
+    private static class Chunk {
+        int count;                                  // # of pieces in this chunk
+        short[] cells = new short[2];               // offsets of the pieces (null if dense)
+        Piece[] pieces = new Piece[2];              // the pieces
+
+        /* Yields: the piece at offset off, or null if there is none. */
+        Piece get(int off) {
+            if (cells == null) return pieces[off];
+            for (int i= 0; i < count; i= i+1) {
+                if (cells[i] == off) return pieces[i];
+            }
+            return null;
+        }
+
+        /* Put p at offset off, replacing the piece there if there is one. */
+        void put(int off, Piece p) {
+            if (cells == null) {
+                if (pieces[off] == null) count= count+1;
+                pieces[off] = p;
+                return;
+            }
+            for (int i= 0; i < count; i= i+1) {
+                if (cells[i] == off) {
+                    pieces[i] = p;
+                    return;
+                }
+            }
+            if (count == SPARSE_LIMIT) {
+                // Switch to one element per cell.
+                Piece[] dense = new Piece[CHUNK_SIZE*CHUNK_SIZE];
+                for (int i= 0; i < count; i= i+1) dense[cells[i]] = pieces[i];
+                dense[off] = p;
+                cells = null;
+                pieces = dense;
+                count= count+1;
+                return;
+            }
+            if (count == cells.length) {
+                cells  = Arrays.copyOf(cells, 2*count);
+                pieces = Arrays.copyOf(pieces, 2*count);
+            }
+            cells[count] = (short) off;
+            pieces[count] = p;
+            count= count+1;
+        }
+
+        /* Remove and yield the piece at offset off.
+         * Precondition: there is a piece at offset off. */
+        Piece remove(int off) {
+            count= count-1;
+            if (cells == null) {
+                Piece p = pieces[off];
+                pieces[off] = null;
+                if (count == SPARSE_LIMIT / 2) sparsen();
+                return p;
+            }
+            int i = 0;
+            while (cells[i] != off) i= i+1;
+            Piece p = pieces[i];
+            cells[i] = cells[count];
+            pieces[i] = pieces[count];
+            pieces[count] = null;
+            return p;
+        }
+
+        /* Switch from one element per cell back to the short list. */
+        private void sparsen() {
+            short[] offs = new short[SPARSE_LIMIT];
+            Piece[] list = new Piece[SPARSE_LIMIT];
+            int n = 0;
+            for (int off= 0; n < count; off= off+1) {
+                if (pieces[off] != null) {
+                    offs[n] = (short) off;
+                    list[n] = pieces[off];
+                    n= n+1;
+                }
+            }
+            cells = offs;
+            pieces = list;
+        }
+    }
+}
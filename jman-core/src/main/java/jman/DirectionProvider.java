@@ -0,0 +1,13 @@
+package jman;
+
+/** This interface describes a CONTROLLER that chooses J*Man's moves
+  * without a user, e.g. for headless simulations.  Before each round
+  * the next direction is given to JManBoard.changeJManDirection. */
+public interface DirectionProvider {
+
+    /** Yields: the direction in which J*Man should move next on board b,
+      * one of the JManBoard constants MOVE_UP, MOVE_DOWN, MOVE_LEFT,
+      * and MOVE_RIGHT.  An instance may be shared by boards that are
+      * played at the same time on different threads. */
+    int nextDirection(JManBoard b);
+}
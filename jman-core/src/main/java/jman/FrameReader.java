@@ -0,0 +1,215 @@
+package jman;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/** An instance of this class reads a stream of frames written by a
+  * FrameStream and keeps the board it describes up to date, frame by
+  * frame, as a type byte and a color byte per cell, e.g. for a renderer or
+  * a dashboard in another process than the game.  Until the first keyframe
+  * is read the board is 0 x 0.
+  *
+  * To watch a game from the command line:
+  *   java -cp jman-core/target/classes jman.FrameReader game.jmf
+  * or, to listen for a game on port p (see FrameStream.open):
+  *   java -cp jman-core/target/classes jman.FrameReader tcp:p */
+public class FrameReader implements BoardCells, Closeable {
+
+    /** Most cells of a board read; a keyframe of a bigger board is taken to
+      * be a corrupt stream rather than allocated. */
+    public static final int MAX_CELLS = 1 << 28;
+
+    private DataInputStream in;  // the frames
+    private int width;           // width of the board in tiles
+    private int height;          // height of the board in tiles
+    private byte[] types = new byte[0];  // piece type of each cell (row-major), or EMPTY
+    private byte[] colors = new byte[0]; // color code of each cell
+    private long round = -1;     // round of the last frame read (-1: none)
+    private int kind;            // kind of the last frame read (0: none)
+    private int[] changed;       // cells changed by the last delta read, as x0, y0, x1, y1, ...
+
+    /** Constructor: a reader of the frame stream in in, which is closed with
+      * the reader.  Reads the header of the stream.
+      * Throws an IOException if in does not hold a frame stream. */
+    public FrameReader(InputStream in) throws IOException {
+        DataInputStream head = new DataInputStream(in);
+        if (head.readInt() != FrameStream.MAGIC) {
+            throw new IOException("Not a J*Man frame stream");
+        }
+        int version = head.readInt();
+        if (version != FrameStream.VERSION) {
+            throw new IOException("Unsupported frame stream version " + version);
+        }
+        int flags = head.readInt();
+        if ((flags & FrameStream.COMPRESSED) != 0) {
+            in = new InflaterInputStream(in, new Inflater(), 1 << 16);
+        }
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    }
+
+    /** Yields: a reader of the frames from source: standard input if it is
+      * "-", the first game that connects to port p on this machine if it is
+      * "tcp:p", and otherwise the file or named pipe with that name. */
+    public static FrameReader open(String source) throws IOException {
+        if (source.equals("-")) {
+            return new FrameReader(System.in);
+        } else if (source.startsWith("tcp:")) {
+            try (ServerSocket server = new ServerSocket(Integer.parseInt(source.substring(4)),
+                                                        1, InetAddress.getLoopbackAddress())) {
+                Socket s = server.accept();
+                return new FrameReader(s.getInputStream());
+            }
+        } else {
+            return new FrameReader(Files.newInputStream(Paths.get(source)));
+        }
+    }
+
+    /** Read the next frame and bring the board up to date with it.
+      * Yields: false if the stream has ended (with an END frame, or because
+      * the game went away), true otherwise. */
+    public boolean next() throws IOException {
+        int k;
+        try {
+            k = in.readUnsignedByte();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (k == FrameStream.END) {
+            kind = k;
+            return false;
+        } else if (k == FrameStream.KEYFRAME) {
+            round = in.readLong();
+            int w = in.readInt(), h = in.readInt();
+            if (w <= 0 || h <= 0 || (long) w * h > MAX_CELLS) {
+                throw new IOException("Keyframe of a board of " + w + " x " + h + " cells");
+            }
+            if (w != width || h != height) {
+                width = w;
+                height = h;
+                types = new byte[w*h];
+                colors = new byte[w*h];
+            }
+            for (int y= 0; y < h; y= y+1) {
+                in.readFully(types, y*w, w);
+                in.readFully(colors, y*w, w);
+                for (int x= 0; x < w; x= x+1) {
+                    check(types[y*w + x], colors[y*w + x], x, y);
+                }
+            }
+            changed = null;
+        } else if (k == FrameStream.DELTA) {
+            round = in.readLong();
+            int n = in.readInt();
+            changed = new int[2*n];
+            for (int i= 0; i < n; i= i+1) {
+                int x = in.readInt(), y = in.readInt();
+                int t = in.readByte(), c = in.readByte();
+                if (x < 0 || y < 0 || x >= width || y >= height) {
+                    throw new IOException("Cell (" + x + ", " + y + ") is not on the board");
+                }
+                check(t, c, x, y);
+                types[y*width + x] = (byte) t;
+                colors[y*width + x] = (byte) c;
+                changed[2*i] = x;
+                changed[2*i+1] = y;
+            }
+        } else {
+            throw new IOException("Unknown frame kind " + k);
+        }
+        kind = k;
+        return true;
+    }
+
+    /* Throw an IOException unless type t and color code c, read for cell
+     * (x, y), are those of a cell: EMPTY, or a piece type and a color code. */
+    private static void check(int t, int c, int x, int y) throws IOException {
+        if (t < EMPTY || t > Piece.PILLAR || t != EMPTY && (c < Piece.RED || c > Piece.WHITE)) {
+            throw new IOException("Cell (" + x + ", " + y + ") has type " + t + " and color " + c);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int typeAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return EMPTY;
+        return types[y*width + x];
+    }
+
+    public int colorAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return 0;
+        return colors[y*width + x];
+    }
+
+    /** Yields: the round the board is at, as of the last frame read (-1 if none). */
+    public long getRound() {
+        return round;
+    }
+
+    /** Yields: "the last frame read was a keyframe" (so every cell may have changed). */
+    public boolean isKeyframe() {
+        return kind == FrameStream.KEYFRAME;
+    }
+
+    /** Yields: the cells changed by the last frame read, as pairs
+      * x0, y0, x1, y1, ..., or null if it was a keyframe. */
+    public int[] getChanged() {
+        return changed;
+    }
+
+    /** Close the stream. */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /** Read the frames from the source given on the command line (see open)
+      * until the game ends, printing a line for each keyframe and a summary
+      * every 100 rounds. */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: FrameReader file | - | tcp:port");
+            return;
+        }
+        try (FrameReader r = open(args[0])) {
+            long frames = 0, cells = 0;
+            while (r.next()) {
+                frames= frames+1;
+                if (r.isKeyframe()) {
+                    System.out.println("round " + r.getRound() + ": keyframe " + r.getWidth()
+                                       + " x " + r.getHeight() + ", " + census(r));
+                } else {
+                    cells= cells + r.getChanged().length / 2;
+                    if (r.getRound() % 100 == 0) {
+                        System.out.println("round " + r.getRound() + ": " + census(r));
+                    }
+                }
+            }
+            System.out.println(frames + " frames, " + cells + " changed cells");
+        }
+    }
+
+    /* Yields: the number of pieces of each type on the board of r, as text. */
+    private static String census(FrameReader r) {
+        int[] n = new int[4];
+        for (int i= 0; i < r.types.length; i= i+1) {
+            if (r.types[i] != EMPTY) n[r.types[i]]++;
+        }
+        return n[Piece.WALKER] + " walkers, " + n[Piece.PILLAR] + " pillars, " + n[Piece.BLOCK] + " blocks";
+    }
+}
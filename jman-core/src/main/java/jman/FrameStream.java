@@ -0,0 +1,265 @@
+package jman;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/** An instance of this class sends the rounds of a game, as they are played,
+  * to another process (e.g. a renderer or a dashboard) as a stream of
+  * frames, which a FrameReader turns back into the board.
+  *
+  * The stream starts with a header: int MAGIC, int VERSION, int flags
+  * (COMPRESSED if the rest of the stream is deflated).  Each frame starts
+  * with a byte, its kind:
+  *   KEYFRAME: long round, int width, int height, then for each row the
+  *             type byte (BoardCells.EMPTY or a piece type) of each cell
+  *             followed by the color byte of each cell;
+  *   DELTA:    long round, int n, then n cells as int x, int y, byte type,
+  *             byte color: the cells that changed since the frame before;
+  *   END:      nothing; the game is over and the stream is closed.
+  * A keyframe is sent first, after every keyframeEvery rounds, when the
+  * board is replaced, and when most of the board changed at once.
+  *
+  * The playing thread calls endRound() after each round (or undo or redo),
+  * which encodes the frame and hands it to a writer thread through a buffer
+  * of at most maxBytes bytes.  A delta takes time proportional to the
+  * changed cells.  A keyframe takes time proportional to the board (it is
+  * a copy of 2 bytes a cell, as a BoardSnapshot would be).  Each frame is
+  * encoded straight into an array of its exact size, and the writer hands
+  * the array of a keyframe back to be reused for the next one, so a big
+  * board is neither copied twice nor allocated anew for each keyframe.  endRound never waits
+  * for the writer: if the buffer is full, the frame is dropped and no
+  * deltas are sent until a keyframe fits in the buffer, so a slow
+  * spectator sees a gap, never a wrong board.  A keyframe bigger than
+  * maxBytes is still sent when the buffer is empty (otherwise the board
+  * could never be sent), so the buffer holds at most the larger of
+  * maxBytes and one keyframe. */
+public class FrameStream implements BoardListener, Closeable {
+
+    /** First int of a frame stream ("JMFS"). */
+    public static final int MAGIC = 0x4A4D4653;
+    /** Version of the format written. */
+    public static final int VERSION = 1;
+    /** Flag of the header: the stream after the header is deflated. */
+    public static final int COMPRESSED = 1;
+    /** Kinds of frame. */
+    public static final int KEYFRAME = 1;
+    public static final int DELTA = 2;
+    public static final int END = 3;
+    /** Default number of rounds between keyframes. */
+    public static final int DEFAULT_KEYFRAME_EVERY = 1000;
+    /** Default size of the buffer of frames not yet written, in bytes. */
+    public static final int DEFAULT_MAX_BYTES = 4 << 20;
+
+    private JManBoard board;        // the board sent
+    private int keyframeEvery;      // rounds between keyframes
+    private long maxBytes;          // most bytes of frames in the buffer
+    private long lastKeyframe;      // round of the last keyframe sent
+    private boolean needKeyframe = true; // "the next frame must be a keyframe"
+    private ChangedCells pending = new ChangedCells(); // cells changed since the last frame
+    private AtomicReference<byte[]> spare = new AtomicReference<byte[]>(); // a keyframe written, to reuse
+    private long dropped;           // # of frames dropped because the buffer was full
+
+    private LinkedBlockingQueue<byte[]> queue = new LinkedBlockingQueue<byte[]>(); // frames not yet written
+    private AtomicLong queuedBytes = new AtomicLong(); // bytes in queue
+    private DataOutputStream out;   // the stream, after the header (deflated if compressed)
+    private Thread writer;          // writes the frames in queue to out
+    private volatile IOException failure; // why the writer stopped (null if it did not)
+
+    /** Constructor: a stream of the rounds of board b written to out, which
+      * is closed with the stream, with a keyframe every keyframeEvery rounds
+      * and at most maxBytes bytes of frames waiting to be written; deflated
+      * if compress.  Sends a keyframe of b at once.  Must be called on the
+      * thread that plays the game.
+      * Precondition: keyframeEvery > 0 and maxBytes > 0. */
+    public FrameStream(JManBoard b, OutputStream out, boolean compress,
+                       int keyframeEvery, long maxBytes) throws IOException {
+        this.keyframeEvery = keyframeEvery;
+        this.maxBytes = maxBytes;
+        DataOutputStream head = new DataOutputStream(out);
+        head.writeInt(MAGIC);
+        head.writeInt(VERSION);
+        head.writeInt(compress ? COMPRESSED : 0);
+        head.flush();
+        OutputStream body = out;
+        if (compress) {
+            body = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED), 1 << 16, true);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(body, 1 << 16));
+        writer = new Thread(this::write, "J*Man frame writer");
+        writer.setDaemon(true);
+        writer.start();
+        setBoard(b);
+    }
+
+    /** Yields: a stream of the rounds of board b, compressed if compress, with
+      * the default keyframe interval and buffer, written to target: standard
+      * output if it is "-", the server on this machine listening on port p if
+      * it is "tcp:p", and otherwise the file or named pipe with that name. */
+    public static FrameStream open(JManBoard b, String target, boolean compress) throws IOException {
+        OutputStream out;
+        if (target.equals("-")) {
+            out = System.out;
+        } else if (target.startsWith("tcp:")) {
+            Socket s = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(target.substring(4)));
+            s.setTcpNoDelay(true);
+            out = s.getOutputStream();
+        } else {
+            out = Files.newOutputStream(Paths.get(target));
+        }
+        return new FrameStream(b, out, compress, DEFAULT_KEYFRAME_EVERY, DEFAULT_MAX_BYTES);
+    }
+
+    /** Send board b from now on instead of the current board, starting with
+      * a keyframe of it.  Must be called on the thread that plays the game. */
+    public void setBoard(JManBoard b) {
+        if (board != null) {
+            board.removeBoardListener(this);
+        }
+        board = b;
+        board.addBoardListener(this);
+        needKeyframe = true;
+        endRound();
+    }
+
+    public void cellChanged(JManBoard b, int x, int y) {
+        // Once so many cells changed that a keyframe is due, they need not be kept.
+        if (needKeyframe) return;
+        if (pending.size() > (long) b.getWidth() * b.getHeight() / 5) {
+            needKeyframe = true;
+            pending.clear();
+            return;
+        }
+        pending.add(x, y);
+    }
+
+    /** Send the changes made to the board since the last call, as a delta,
+      * or the whole board, if a keyframe is due or a frame was dropped.
+      * Must be called on the thread that plays the game, after each round. */
+    public void endRound() {
+        if (failure != null) return;
+        long round = board.getTicks();
+        // A delta of many cells (e.g. after a rewind) is sent as a keyframe,
+        // which takes 2 bytes a cell rather than 10.
+        boolean key = needKeyframe || round - lastKeyframe >= keyframeEvery
+                      || pending.size() > (long) board.getWidth() * board.getHeight() / 5;
+        long size = key ? 17 + 2L * board.getWidth() * board.getHeight()
+                        : 13 + 10L * pending.size();
+
+        // A frame that fits is queued; a keyframe also fits in an empty buffer.
+        // A frame that does not is dropped without being encoded.
+        long queued = queuedBytes.get();
+        if (queued + size > maxBytes && !(key && queued == 0)) {
+            dropped= dropped+1;
+            needKeyframe = true;
+            pending.clear();
+            return;
+        }
+        byte[] f = key ? encodeKeyframe(round, (int) size) : encodeDelta(round, (int) size);
+        pending.clear();
+        queuedBytes.addAndGet(f.length);
+        queue.add(f);
+        if (key) {
+            needKeyframe = false;
+            lastKeyframe = round;
+        }
+    }
+
+    /* Yields: the whole board, as of round round, as a keyframe of size
+     * bytes, in the spare keyframe if it is that size. */
+    private byte[] encodeKeyframe(long round, int size) {
+        byte[] f = spare.getAndSet(null);
+        if (f == null || f.length != size) f = new byte[size];
+        int w = board.getWidth(), h = board.getHeight();
+        ByteBuffer head = ByteBuffer.wrap(f);
+        head.put((byte) KEYFRAME);
+        head.putLong(round);
+        head.putInt(w);
+        head.putInt(h);
+        int k = head.position();
+        for (int y= 0; y < h; y= y+1) {
+            for (int x= 0; x < w; x= x+1) {
+                int t = board.typeAt(x, y);
+                f[k + x]     = (byte) t;
+                f[k + w + x] = t == BoardCells.EMPTY ? 0 : (byte) board.colorAt(x, y);
+            }
+            k = k + 2*w;
+        }
+        return f;
+    }
+
+    /* Yields: the cells changed since the last frame, as they are at the end
+     * of round round, as a delta of size bytes. */
+    private byte[] encodeDelta(long round, int size) {
+        ByteBuffer f = ByteBuffer.wrap(new byte[size]);
+        f.put((byte) DELTA);
+        f.putLong(round);
+        f.putInt(pending.size());
+        for (int i= 0; i < pending.size(); i= i+1) {
+            int x = pending.getX(i), y = pending.getY(i);
+            int t = board.typeAt(x, y);
+            f.putInt(x);
+            f.putInt(y);
+            f.put((byte) t);
+            f.put(t == BoardCells.EMPTY ? 0 : (byte) board.colorAt(x, y));
+        }
+        return f.array();
+    }
+
+    /** Yields: the number of frames dropped because the buffer was full. */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /** Yields: why the stream could not be written, or null if it can be
+      * (e.g. the spectator went away).  Once it fails, no more frames are sent. */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /** Send the frames still in the buffer and an END frame, and close the
+      * stream; the board is no longer sent.  Must be called on the thread
+      * that plays the game. */
+    public void close() throws IOException {
+        board.removeBoardListener(this);
+        queue.add(new byte[] {(byte) END});
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+
+    /* Write the frames in the queue to out until the END frame, flushing out
+     * whenever the queue is empty, and close out.  Each keyframe, once
+     * written, is the spare to reuse. */
+    private void write() {
+        try (DataOutputStream o = out) {
+            while (true) {
+                byte[] f = queue.take();
+                o.write(f);
+                queuedBytes.addAndGet(-f.length);
+                if (f[0] == KEYFRAME) spare.set(f);
+                if (f[0] == END) break;
+                if (queue.isEmpty()) o.flush();
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new IOException("Frame writer interrupted");
+        }
+    }
+}
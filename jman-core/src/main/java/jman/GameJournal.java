@@ -0,0 +1,145 @@
+package jman;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/** An instance of this class records a game as it is played, so that it can
+  * be replayed to any round with a JournalReplay.
+  *
+  * A game is fixed by its configuration, the state of the random number
+  * generator it was made with, and the direction given to J*Man in each
+  * round, so that is all the journal holds.  The file starts with a header:
+  *   int MAGIC, int VERSION, int width, int height, int # of blocks,
+  *   int # of walkers, int # of pillars, int storage type,
+  *   int rounds between checkpoints, long[4] generator state,
+  * followed by the direction of each round in 4 bits (two rounds a byte,
+  * the first in the high bits; PADDING if the game ended after the high
+  * bits).  It is only ever appended to, through a buffer.
+  *
+  * Every checkpointEvery rounds, the whole board is also appended to a
+  * second file, checkpointsFor(file), as a long round number and a long
+  * length followed by the board in the format of BoardFile, so that a
+  * replay need only play the rounds since the nearest checkpoint. */
+public class GameJournal implements Closeable {
+
+    /** First int of a journal file ("JMJL"). */
+    public static final int MAGIC = 0x4A4D4A4C;
+    /** Version of the format written.  Version 2 journals are of games in
+      * which only the walkers and pillars that do something are visited (see
+      * JManBoard.act()); they draw different random numbers from version 1
+      * games, so a version 1 journal would not replay the same game. */
+    public static final int VERSION = 2;
+    /** Size of the header of a journal file, in bytes. */
+    public static final int HEADER_BYTES = 9*4 + 4*8;
+    /** Value of the 4 bits after the last round if the number of rounds is odd. */
+    public static final int PADDING = 0xF;
+    /** Default number of rounds between checkpoints. */
+    public static final int DEFAULT_CHECKPOINT_EVERY = 1024;
+
+    private DataOutputStream out;   // the journal
+    private FileChannel checkpoints; // the file of checkpoints
+    private int checkpointEvery;    // rounds between checkpoints
+    private int pending = -1;       // direction of a round not yet written (-1: none)
+    private int width, height, blocks, walkers, pillars, storage; // the configuration
+    private long[] state;           // the generator state the board is made with
+
+    /** Constructor: a journal in file (replacing whatever was in it) of a game
+      * on a w x h board with bl blocks, wa walkers, and pi pillars stored as
+      * given by s, with a checkpoint every checkpointEvery rounds.
+      * The board must be made with newBoard().
+      * Precondition: as for JManBoard(w, h, bl, wa, pi, s), and checkpointEvery > 0. */
+    public GameJournal(Path file, int w, int h, int bl, int wa, int pi, int s,
+                       int checkpointEvery) throws IOException {
+        width = w;
+        height = h;
+        blocks = bl;
+        walkers = wa;
+        pillars = pi;
+        storage = s;
+        this.checkpointEvery = checkpointEvery;
+        state = new JManRandom().getState();
+
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(w);
+        out.writeInt(h);
+        out.writeInt(bl);
+        out.writeInt(wa);
+        out.writeInt(pi);
+        out.writeInt(s);
+        out.writeInt(checkpointEvery);
+        for (int i= 0; i < state.length; i= i+1) {
+            out.writeLong(state[i]);
+        }
+        checkpoints = FileChannel.open(checkpointsFor(file), StandardOpenOption.CREATE,
+                                       StandardOpenOption.TRUNCATE_EXISTING,
+                                       StandardOpenOption.WRITE);
+    }
+
+    /** Yields: the file of the checkpoints of the journal in file. */
+    public static Path checkpointsFor(Path file) {
+        return Paths.get(file.toString() + ".ckpt");
+    }
+
+    /** Yields: a new board for the game recorded by this journal. */
+    public JManBoard newBoard() {
+        JManRandom r = new JManRandom();
+        r.setState(state);
+        return new JManBoard(width, height, blocks, walkers, pillars, storage, r);
+    }
+
+    /** Record that a round was just played on b, the board of this journal,
+      * with J*Man given direction b.nextJManDirection(), and write a
+      * checkpoint of b if it is due. */
+    public void recordRound(JManBoard b) throws IOException {
+        int d = b.nextJManDirection();
+        if (pending == -1) {
+            pending = d;
+        } else {
+            out.writeByte(pending << 4 | d);
+            pending = -1;
+        }
+        if (b.getTicks() % checkpointEvery == 0) {
+            checkpoint(b);
+        }
+    }
+
+    /* Append a checkpoint of b to the file of checkpoints. */
+    private void checkpoint(JManBoard b) throws IOException {
+        long start = checkpoints.position();
+        checkpoints.position(start + 16);
+        BoardFile.save(b, checkpoints);
+        long end = checkpoints.position();
+        // The round and length are written last, so a checkpoint cut short
+        // (e.g. by a crash) has length 0 and is ignored.
+        ByteBuffer head = ByteBuffer.allocate(16);
+        head.putLong(b.getTicks()).putLong(end - start - 16).flip();
+        while (head.hasRemaining()) {
+            checkpoints.write(head, start + head.position());
+        }
+    }
+
+    /** Write the rounds recorded so far to the file. */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /** Write the rounds recorded and close the journal. */
+    public void close() throws IOException {
+        if (pending != -1) {
+            out.writeByte(pending << 4 | PADDING);
+            pending = -1;
+        }
+        out.close();
+        checkpoints.close();
+    }
+}
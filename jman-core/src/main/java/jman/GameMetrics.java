@@ -0,0 +1,192 @@
+package jman;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** This class counts what the game does while it runs: rounds played and
+  * how long they take, moves, captures, walker steps, pillar recolorings,
+  * and paints of the board and how long they take.  Rounds and paints are
+  * also committed as JDK Flight Recorder events (jman.Tick and jman.Paint),
+  * so they can be seen on a timeline with the garbage collector and threads.
+  *
+  * The metrics are off unless the JVM is started with -Djman.metrics=true.
+  * ENABLED is a constant, so while it is false the JIT compiler removes the
+  * code guarded by "if (GameMetrics.ENABLED)" from the hot paths entirely.
+  * With -Djman.metrics.dump=s, a report is printed every s seconds.
+  * The counters can be updated by any number of threads at once.
+  *
+  * To record the events as well:
+  *   java -Djman.metrics=true -XX:StartFlightRecording=filename=jman.jfr ... */
+public class GameMetrics {
+
+    /** "The metrics are counted" (system property jman.metrics). */
+    public static final boolean ENABLED = Boolean.getBoolean("jman.metrics");
+
+    private static LongAdder ticks = new LongAdder();         // # of rounds played
+    private static LongAdder moves = new LongAdder();         // # of JManBoard.move calls
+    private static LongAdder captures = new LongAdder();      // # of pieces J*Man captured
+    private static LongAdder walkerSteps = new LongAdder();   // # of times a walker moved
+    private static LongAdder recolorings = new LongAdder();   // # of times a pillar changed color
+    private static LongAdder paints = new LongAdder();        // # of paints of the board
+    private static LatencyHistogram tickTimes = new LatencyHistogram();  // time of each round
+    private static LatencyHistogram paintTimes = new LatencyHistogram(); // time of each paint
+
+    static {
+        long dump = Long.getLong("jman.metrics.dump", 0);
+        if (ENABLED && dump > 0) {
+            startDump(dump, System.err);
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    /** Record that board b played a round, which started at time start
+      * (from System.nanoTime); parallel is "it was played by act(pool)". */
+    public static void tickPlayed(JManBoard b, long start, boolean parallel) {
+        long nanos = System.nanoTime() - start;
+        ticks.increment();
+        tickTimes.record(nanos);
+        TickEvent e = new TickEvent();
+        if (e.shouldCommit()) {
+            e.round = b.getTicks();
+            e.actors = b.getPieceCount(Piece.WALKER) + b.getPieceCount(Piece.PILLAR);
+            e.parallel = parallel;
+            e.time = nanos;
+            e.commit();
+        }
+    }
+
+    /** Record a call of JManBoard.move. */
+    public static void moved() {
+        moves.increment();
+    }
+
+    /** Record that J*Man captured a piece. */
+    public static void captured() {
+        captures.increment();
+    }
+
+    /** Record that a walker moved. */
+    public static void walkerStepped() {
+        walkerSteps.increment();
+    }
+
+    /** Record that a pillar changed its color. */
+    public static void pillarRecolored() {
+        recolorings.increment();
+    }
+
+    /** Record that a view painted cells cells of a board (those in its clip),
+      * which started at time start (from System.nanoTime). */
+    public static void painted(long cells, long start) {
+        long nanos = System.nanoTime() - start;
+        paints.increment();
+        paintTimes.record(nanos);
+        PaintEvent e = new PaintEvent();
+        if (e.shouldCommit()) {
+            e.cells = cells;
+            e.time = nanos;
+            e.commit();
+        }
+    }
+
+    /** Yields: the number of rounds played. */
+    public static long getTicks() {
+        return ticks.sum();
+    }
+
+    /** Yields: the number of calls of JManBoard.move. */
+    public static long getMoves() {
+        return moves.sum();
+    }
+
+    /** Yields: the number of pieces J*Man captured. */
+    public static long getCaptures() {
+        return captures.sum();
+    }
+
+    /** Yields: the number of times a walker moved. */
+    public static long getWalkerSteps() {
+        return walkerSteps.sum();
+    }
+
+    /** Yields: the number of times a pillar changed its color. */
+    public static long getPillarRecolorings() {
+        return recolorings.sum();
+    }
+
+    /** Yields: the number of paints of the board. */
+    public static long getPaints() {
+        return paints.sum();
+    }
+
+    /** Yields: the times of the rounds played. */
+    public static LatencyHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    /** Yields: the times of the paints of the board. */
+    public static LatencyHistogram getPaintTimes() {
+        return paintTimes;
+    }
+
+    /** Yields: all of the metrics, on three lines (e.g. to be printed). */
+    public static String report() {
+        if (!ENABLED) return "metrics are off (run with -Djman.metrics=true)";
+        return "rounds " + getTicks() + ", moves " + getMoves() + ", captures " + getCaptures()
+               + ", walker steps " + getWalkerSteps() + ", pillar recolorings " + getPillarRecolorings()
+               + "\nround time: " + tickTimes.report()
+               + "\npaints " + getPaints() + ", paint time: " + paintTimes.report();
+    }
+
+    /** Print report() to out every seconds seconds, on a daemon thread. */
+    public static void startDump(long seconds, PrintStream out) {
+        ScheduledExecutorService clock = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "J*Man metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        clock.scheduleAtFixedRate(() -> out.println(report()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /* A round played on a board. */
+    @Name("jman.Tick")
+    @Label("J*Man Round")
+    @Category("J*Man")
+    @Description("A round played on a JManBoard")
+    static class TickEvent extends Event {
+        @Label("Round")
+        long round;
+        @Label("Walkers and Pillars")
+        int actors;
+        @Label("Parallel")
+        boolean parallel;
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    /* A paint of a board by a view. */
+    @Name("jman.Paint")
+    @Label("J*Man Paint")
+    @Category("J*Man")
+    @Description("A paint of a board by a view")
+    static class PaintEvent extends Event {
+        @Label("Cells")
+        long cells;
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+}
@@ -0,0 +1,78 @@
+package jman;
+
+/** An instance of this class records the outcome of one game played by
+  * a BatchSimulator. */
+public class GameResult {
+
+    /** The column names of toString(). */
+    public static final String HEADER = "game,ticks,captures,walkers,pillars,won,setupNanos,nanos";
+
+    private int game;          // index of the game in its batch
+    private long ticks;        // # of rounds played
+    private int captures;      // # of pieces J*Man captured
+    private int walkers;       // # of walkers left at the end
+    private int pillars;       // # of pillars left at the end
+    private boolean won;       // "J*Man captured every walker and pillar"
+    private long setupNanos;   // time taken to put the pieces on the board
+    private long nanos;        // time taken to set up and play the game
+
+    /** Constructor: the result of game number game, played on board b
+      * (after the game is over) in nanos nanoseconds. */
+    public GameResult(int game, JManBoard b, long nanos) {
+        this.game = game;
+        ticks    = b.getTicks();
+        captures = b.getCaptures();
+        walkers  = b.getPieceCount(Piece.WALKER);
+        pillars  = b.getPieceCount(Piece.PILLAR);
+        won      = b.isGameOver();
+        setupNanos = b.getSetupNanos();
+        this.nanos = nanos;
+    }
+
+    /** Yields: the index of the game in its batch */
+    public int getGame() {
+        return game;
+    }
+
+    /** Yields: the number of rounds J*Man survived before the game ended */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /** Yields: the number of pieces J*Man captured */
+    public int getCaptures() {
+        return captures;
+    }
+
+    /** Yields: the number of walkers left at the end of the game */
+    public int getWalkers() {
+        return walkers;
+    }
+
+    /** Yields: the number of pillars left at the end of the game */
+    public int getPillars() {
+        return pillars;
+    }
+
+    /** Yields: "J*Man captured every walker and pillar" */
+    public boolean isWon() {
+        return won;
+    }
+
+    /** Yields: the time taken to put the pieces on the board, in nanoseconds */
+    public long getSetupNanos() {
+        return setupNanos;
+    }
+
+    /** Yields: the time taken to set up and play the game, in nanoseconds */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /** Yields: this result as one line of comma-separated values, in the
+      * order given by HEADER. */
+    public String toString() {
+        return game + "," + ticks + "," + captures + "," + walkers + ","
+            + pillars + "," + won + "," + setupNanos + "," + nanos;
+    }
+}
@@ -0,0 +1,410 @@
+package jman;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/** This class is a CONTROLLER class; an instance of this class hosts many
+  * games at once, one for each client connected to a socket on this
+  * machine, without any view.
+  *
+  * Clients talk to the server in lines of ASCII text.  A client sends
+  *   NEW [w h bl wa pi]   start a new game (the default game, or a w x h game
+  *                        with bl blocks, wa walkers, and pi pillars);
+  *                        the reply is "OK w h"; a game has at most
+  *                        MAX_CELLS cells
+  *   U, D, L, R, or N     play a round in which J*Man moves up, down, left,
+  *                        right, or not at all; the reply is
+  *                        "T rounds captures left", where left is the number
+  *                        of walkers and pillars left (0: the game is over)
+  *   STATS                the reply is "S rounds mean-us max-us": the number
+  *                        of rounds played in this connection and their mean
+  *                        and largest latency
+  *   QUIT                 close the connection
+  * and anything else, or a command that fails, is answered with
+  * "ERR message".  The latency of a
+  * round is the time from reading its line to queueing its reply.
+  *
+  * One thread reads and writes all of the sockets, without blocking.  Each
+  * session has a SerialExecutor on a small pool of threads, so its commands
+  * are run in order, one at a time, but the sessions are played in parallel
+  * and a session costs no thread while it waits for its client.  A client
+  * that does not read its replies is not read either once MAX_PENDING bytes
+  * of replies, or MAX_QUEUED commands, wait for it, until half as many do.  Once a
+  * second the server reports the number of sessions, the commands run per
+  * second, and the percentiles of the latency of the rounds.
+  *
+  * To run a server: java -cp jman-core/target/classes jman.GameServer [port [threads]] */
+public class GameServer {
+
+    /** Port the server listens on by default. */
+    public static final int DEFAULT_PORT = 7421;
+    /** Most cells of a game started by NEW, which bounds the memory a
+      * session can take. */
+    public static final int MAX_CELLS = 1 << 20;
+    /** Most bytes of replies waiting to be written to a client before its
+      * commands are no longer read. */
+    public static final int MAX_PENDING = 64 << 10;
+    /** Most commands read from a client and not yet run before its commands
+      * are no longer read. */
+    public static final int MAX_QUEUED = 1024;
+    /* Longest line accepted from a client, in bytes. */
+    private static final int MAX_LINE = 256;
+
+    private ServerSocketChannel server; // accepts the connections
+    private Selector selector;          // tells the I/O thread which sockets are ready
+    private ExecutorService threads;    // plays the sessions
+    private Thread io;                  // reads and writes the sockets
+    private ConcurrentLinkedQueue<Runnable> ioTasks = new ConcurrentLinkedQueue<Runnable>(); // for the I/O thread
+    private volatile boolean running = true;
+
+    private AtomicInteger sessions = new AtomicInteger(); // # of open sessions
+    private LongAdder commands = new LongAdder();         // # of commands run
+    private LatencyHistogram latency = new LatencyHistogram(); // latency of the rounds
+
+    /** Constructor: a server listening on port of this machine (0: any free
+      * port) whose sessions are played on n threads.  It starts at once. */
+    public GameServer(int port, int n) throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        threads = Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "J*Man session");
+            t.setDaemon(true);
+            return t;
+        });
+        io = new Thread(this::serve, "J*Man server I/O");
+        io.start();
+    }
+
+    /** Yields: the port this server listens on. */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /** Yields: the number of sessions open. */
+    public int getSessions() {
+        return sessions.get();
+    }
+
+    /** Yields: the number of commands run so far. */
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    /** Yields: the latency of the rounds played so far. */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /** Stop accepting and serving clients, closing every connection. */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        threads.shutdown();
+    }
+
+    /* Run task on the I/O thread, as soon as it wakes up. */
+    private void onIoThread(Runnable task) {
+        ioTasks.add(task);
+        selector.wakeup();
+    }
+
+    /* Accept, read, and write until shutdown.  Runs on the I/O thread. */
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                for (Runnable t = ioTasks.poll(); t != null; t = ioTasks.poll()) {
+                    t.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Session s = (Session) key.attachment();
+                            if (key.isReadable()) s.read();
+                            if (key.isValid() && key.isWritable()) s.writeReady();
+                        }
+                    } catch (CancelledKeyException e) {
+                        // The session was closed meanwhile.
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Server stopped: " + e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key.channel());
+            }
+            close(selector);
+        }
+    }
+
+    /* Accept the connections waiting, each as a new session. */
+    private void accept() throws IOException {
+        for (SocketChannel ch = server.accept(); ch != null; ch = server.accept()) {
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Session s = new Session(ch);
+            s.key = ch.register(selector, SelectionKey.OP_READ, s);
+            sessions.incrementAndGet();
+        }
+    }
+
+    /* Close c, ignoring any error. */
+    private static void close(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException e) {
+            // Nothing more can be done.
+        }
+    }
+
+    /* The game of one client.  Its socket is read on the I/O thread, and its
+     * commands are run by executor, which alone uses board. */
+    private class Session {
+        private SocketChannel channel;
+        private SelectionKey key;
+        private SerialExecutor executor = new SerialExecutor(threads);
+        private ByteBuffer in = ByteBuffer.allocate(MAX_LINE); // bytes read, not yet run
+        private ByteBuffer out = ByteBuffer.allocate(64);      // bytes not yet written; guarded by this
+        private boolean waitingToWrite;  // "the I/O thread will write out"; guarded by this
+        private int queued;              // # of commands read, not yet run; guarded by this
+        private boolean paused;          // "too much waits to read more"; guarded by this
+        private boolean closed;          // guarded by this
+
+        private JManBoard board;         // the game (null until NEW)
+        private long rounds;             // # of rounds played in this session
+        private long totalNanos, maxNanos; // their total and largest latency
+
+        Session(SocketChannel ch) {
+            channel = ch;
+        }
+
+        /* Read what the client sent, and queue each complete line as a
+         * command.  Runs on the I/O thread. */
+        void read() {
+            int n;
+            try {
+                n = channel.read(in);
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                close();
+                return;
+            }
+            long now = System.nanoTime();
+            int start = 0;
+            for (int i= 0; i < in.position(); i= i+1) {
+                if (in.get(i) == '\n') {
+                    String line = new String(in.array(), start, i - start, StandardCharsets.US_ASCII).trim();
+                    synchronized (this) {
+                        queued= queued+1;
+                    }
+                    executor.execute(() -> run(line, now));
+                    start = i + 1;
+                }
+            }
+            if (start == 0 && !in.hasRemaining()) {
+                send("ERR line too long\n");
+                close();
+                return;
+            }
+            in.limit(in.position()).position(start);
+            in.compact();
+            synchronized (this) {
+                updatePause();
+            }
+        }
+
+        /* Run the command in line, read at time received (from System.nanoTime),
+         * answering ERR if it fails.  Runs on executor. */
+        private void run(String line, long received) {
+            commands.increment();
+            try {
+                runCommand(line, received);
+            } catch (RuntimeException e) {
+                System.err.println("Session command " + line + " failed: " + e);
+                board = null;
+                send("ERR " + line + " failed: " + e + "; send NEW\n");
+            }
+            synchronized (this) {
+                queued= queued-1;
+                updatePause();
+            }
+        }
+
+        /* Run the command in line, read at time received. */
+        private void runCommand(String line, long received) {
+            if (line.length() == 1 && "NUDLR".indexOf(line.charAt(0)) >= 0) {
+                if (board == null) {
+                    send("ERR no game; send NEW\n");
+                    return;
+                }
+                board.changeJManDirection("NUDLR".indexOf(line.charAt(0)));
+                board.act();
+                int left = board.getPieceCount(Piece.WALKER) + board.getPieceCount(Piece.PILLAR);
+                send("T " + board.getTicks() + " " + board.getCaptures() + " " + left + "\n");
+                long nanos = System.nanoTime() - received;
+                latency.record(nanos);
+                rounds= rounds+1;
+                totalNanos = totalNanos + nanos;
+                maxNanos = Math.max(maxNanos, nanos);
+            } else if (line.startsWith("NEW")) {
+                newGame(line.substring(3).trim());
+            } else if (line.equals("STATS")) {
+                send("S " + rounds + " " + (rounds == 0 ? 0 : totalNanos / rounds / 1000)
+                     + " " + maxNanos / 1000 + "\n");
+            } else if (line.equals("QUIT")) {
+                close();
+            } else {
+                send("ERR unknown command\n");
+            }
+        }
+
+        /* Start the game described by pars: "" or "w h bl wa pi". */
+        private void newGame(String pars) {
+            try {
+                if (pars.isEmpty()) {
+                    board = new JManBoard();
+                } else {
+                    String[] p = pars.split("\\s+");
+                    if (p.length != 5) throw new IllegalArgumentException();
+                    int w = Integer.parseInt(p[0]), h = Integer.parseInt(p[1]);
+                    int bl = Integer.parseInt(p[2]), wa = Integer.parseInt(p[3]);
+                    int pi = Integer.parseInt(p[4]);
+                    if (w < 1 || h < 1 || bl < 0 || wa < 0 || pi < 0
+                            || (long) bl + wa + pi >= (long) w * h) {
+                        throw new IllegalArgumentException();
+                    }
+                    if ((long) w * h > MAX_CELLS) {
+                        send("ERR board too big: at most " + MAX_CELLS + " cells\n");
+                        return;
+                    }
+                    board = new JManBoard(w, h, bl, wa, pi);
+                }
+                send("OK " + board.getWidth() + " " + board.getHeight() + "\n");
+            } catch (IllegalArgumentException e) {
+                send("ERR usage: NEW [w h bl wa pi]\n");
+            }
+        }
+
+        /* Write s to the client, as far as the socket takes it now; the I/O
+         * thread writes the rest when the socket is ready. */
+        synchronized void send(String s) {
+            if (closed) return;
+            byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+            if (out.remaining() < b.length) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(2*out.capacity(), out.position() + b.length));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+            out.put(b);
+            if (!waitingToWrite) flush();
+            updatePause();
+        }
+
+        /* Write what the socket takes of out, and have the I/O thread wait
+         * for the socket if anything is left.  Called with the lock held. */
+        private void flush() {
+            out.flip();
+            try {
+                channel.write(out);
+            } catch (IOException e) {
+                out.clear();
+                close();
+                return;
+            }
+            out.compact();
+            if (out.position() > 0 && !waitingToWrite) {
+                waitingToWrite = true;
+                onIoThread(this::updateInterest);
+            }
+        }
+
+        /* The socket can take more: write the rest of out.  Runs on the I/O
+         * thread. */
+        synchronized void writeReady() {
+            waitingToWrite = false;
+            flush();
+            updatePause();
+            updateInterest();
+        }
+
+        /* Stop reading the client once more than MAX_PENDING bytes of replies
+         * or MAX_QUEUED commands wait, and read it again once half as many
+         * do.  Called with the lock held. */
+        private void updatePause() {
+            boolean full = out.position() > MAX_PENDING || queued > MAX_QUEUED;
+            boolean half = out.position() <= MAX_PENDING / 2 && queued <= MAX_QUEUED / 2;
+            if (paused ? half : full) {
+                paused = !paused;
+                onIoThread(this::updateInterest);
+            }
+        }
+
+        /* Have the I/O thread wait for the socket to be readable unless the
+         * session is paused, and writable if out is waiting to be written.
+         * Runs on the I/O thread. */
+        synchronized void updateInterest() {
+            if (key.isValid()) {
+                key.interestOps((paused ? 0 : SelectionKey.OP_READ)
+                                | (waitingToWrite ? SelectionKey.OP_WRITE : 0));
+            }
+        }
+
+        /* Close the connection; the game is dropped. */
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            sessions.decrementAndGet();
+            onIoThread(() -> {
+                key.cancel();
+                GameServer.close(channel);
+            });
+        }
+    }
+
+    /** Run a server on port pars[0] (default DEFAULT_PORT) with pars[1]
+      * threads (default: one a core), reporting once a second until killed. */
+    public static void main(String[] pars) throws IOException {
+        int port = pars.length > 0 ? Integer.parseInt(pars[0]) : DEFAULT_PORT;
+        int n = pars.length > 1 ? Integer.parseInt(pars[1]) : Runtime.getRuntime().availableProcessors();
+        GameServer s = new GameServer(port, n);
+        System.out.println("J*Man server on port " + s.getPort() + " with " + n + " threads");
+        ScheduledExecutorService clock = Executors.newSingleThreadScheduledExecutor();
+        long[] last = {0};
+        clock.scheduleAtFixedRate(() -> {
+            long c = s.getCommands();
+            System.out.println(s.getSessions() + " sessions, " + (c - last[0]) + " commands/s, rounds: "
+                               + s.getLatency().report());
+            last[0] = c;
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+}
@@ -1,4 +1,4 @@
-import java.awt.*;
+package jman;
 
 /** This class is a MODEL class; an instance of this class represents
   * a J*Man, storing data such as current position and color.
@@ -12,20 +12,10 @@ import java.awt.*;
   * harder to understand, you can relax the rules.       */
 public class JMan extends Piece {
     
-    /** Constructor: a new J*Man at position (x, y) with given color c.
-      * The initial color is Color.red if c = 0, Color.green if c = 1, 
-      * and Color.yellow if c = 2.
-      * Precondition: (x, y) is a nonnegative coordinate and the value c 
-      * is in the range 0..2         */
+    /** Constructor: a new J*Man at position (x, y) with given color code c.
+      * Precondition: (x, y) is a nonnegative coordinate and c is one of
+      * Piece.RED (0), Piece.GREEN (1) and Piece.YELLOW (2).     */
     public JMan(int x, int y, int c) {
-        super(Piece.JMAN, x, y, (c == 0 ? Color.red : (c == 1 ? Color.green : Color.yellow)) );
-    }
-    
-    /** Constructor: a new J*Man at position (x, y) with given color c.
-      * Precondition: (x, y) is a nonnegative coordinate and the color c
-      * is one of Color.red, Color.green, and Color.yellow.
-      */
-    public JMan(int x, int y, Color c) {
         super(Piece.JMAN, x, y, c);
     }
     
@@ -37,14 +27,16 @@ public class JMan extends Piece {
     
     /** If possible, move JMan in the direction given by the field
       *  nextManDirection in the provided controller. This should be one of the 
-      *  JManApp constants MOVE_UP, MOVE_DOWN, MOVE_LEFT, and MOVE_RIGHT.
+      *  JManBoard constants MOVE_UP, MOVE_DOWN, MOVE_LEFT, MOVE_RIGHT, and
+      *  MOVE_NONE (stay put).
       *  Precondition: The board for the provided controller includes this
       *  piece at the position (x,y).    */
     public void act(JManBoard board) {
         int move = board.nextJManDirection();
         int xx = x, yy = y;         // the potential new location after moving
 
-        if (move == 1) yy--;        // move up
+        if (move == 0) return;      // stay put
+        else if (move == 1) yy--;        // move up
         else if (move == 2) yy++;   // move down
         else if (move == 3) xx--;   // move left
         else xx++;                  // move right
@@ -59,24 +51,14 @@ public class JMan extends Piece {
             return;
         } else {
             // check if JMan can capture and then move to Pillar or Walker
-            Color pColor = p.color;
-            if (canEat(pColor)) {
+            int pColor = p.color;
+            if (canCapture(color, pColor)) {
                 board.move(x, y, xx, yy);
                 setColor(pColor);
+                if (GameMetrics.ENABLED) GameMetrics.captured();
             }
         }
 
         
     }
-    
-    /* Yields: "Piece p's color is the color J*Man can currently capture". */
-    /** A green J*Man can only capture red pieces
-        A red J*Man can only capture yellow pieces
-        A yellow J*Man can only capture green pieces */
-    private boolean canEat(Color c) {
-        if ((color == Color.green && c == Color.red) ||
-            (color == Color.red && c == Color.yellow) || 
-            (color == Color.yellow && c == Color.green)) return true;
-        else return false;
-    }
 }
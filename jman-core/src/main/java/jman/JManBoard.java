@@ -0,0 +1,744 @@
+package jman;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+
+/** This class is a MODEL class; an instance of this class represents
+  * the state of the game board, including all of its pieces and
+  * their current positions. Instances of this class are the primary
+  * reference of the controller and view.  All other models (such as
+  * the J*Man or obstacles) are managed by this model.     */
+public class JManBoard implements BoardCells {
+    
+    /** Constants that indicate the next direction in which JMan should move */
+    /** Jman should move up. */
+    public static final int MOVE_UP    = 1;
+    /** Jman should move down. */
+    public static final int MOVE_DOWN  = 2;
+    /** Jman should move left. */
+    public static final int MOVE_LEFT  = 3;
+    /** Jman should move right. */
+    public static final int MOVE_RIGHT = 4;
+    /** Jman should stay where it is (e.g. in a real-time round with no input). */
+    public static final int MOVE_NONE  = 0;
+
+    /** The next direction in which JMan should move.
+      * One of the constants MOVE_UP, MOVE_DOWN, MOVE_LEFT, MOVE_RIGHT, MOVE_NONE */
+    private int nextJManDirection; 
+    
+    /** Constants that select how a board stores its pieces */
+    /** Pieces are kept as a 2-d array of Piece objects. */
+    public static final int STORAGE_OBJECTS   = 0;
+    /** Pieces are kept as flat primitive arrays of types, colors and flags. */
+    public static final int STORAGE_PRIMITIVE = 1;
+    /** Pieces are kept in a hash map of chunks, of which only the non-empty
+      * ones exist; for huge boards that are mostly empty. */
+    public static final int STORAGE_CHUNKED   = 2;
+
+    private BoardStorage board; // the cells that make up the game.
+    private int storageType;    // one of the STORAGE_ constants
+    private int height;       // height of the game board in tiles.
+    private int width;        // width of the game board in tiles.
+    
+    private JMan jMan;        // The J*Man piece in this game board.
+    private ActorIndex actors; // the walkers and pillars on this board
+    private TargetIndex targets; // counts and buckets of the walkers and pillars by color
+    private int epoch;         // # of the current round, used to mark who has acted
+    private JManRandom random; // source of every random choice on this board
+    private long setupNanos;   // time taken to put the pieces on the board
+    private BoardListener[] listeners = new BoardListener[0]; // told about changed cells
+    private ParallelRound parallel; // plays rounds in parallel; null until act(pool) is called
+    private boolean quiet;          // "do not tell the listeners about changed cells"
+    private BoardHistory history;   // records the rounds so they can be undone (null if not)
+
+    private int[] pieceCounts = new int[4]; // # of pieces of each type on the board
+    private int captures;     // # of pieces J*Man has captured
+    private long ticks;       // # of times act() has been called
+
+    /** Default game parameters */
+    public static final int DEFAULT_WIDTH   = 20;  // Width of a new game
+    public static final int DEFAULT_HEIGHT  = 20;  // Height of a new game
+    public static final int DEFAULT_PILLARS = 10;  // # of pillars a new game
+    public static final int DEFAULT_WALKERS = 10;  // # of walkers a new game
+    public static final int DEFAULT_BLOCKS  = 20;  // # of blocks a new game
+
+    /** Constructor: a default 20 x 20 game board with 10 walkers, 10 
+      * pillars,and 20 blocks placed randomly throughout the game board. 
+      * J*Man is at position (0, 0), and all other pieces are placed 
+      * randomly about the aboard */
+    public JManBoard() {
+        this(DEFAULT_WIDTH,DEFAULT_HEIGHT,DEFAULT_BLOCKS, DEFAULT_WALKERS, DEFAULT_PILLARS);
+    }
+
+    /** Constructor: an h x w game board with 10 walkers, 10 pillars,
+      * and 20 blocks placed randomly throughout the game board. 
+      * J*Man is at position (0, 0), and all other pieces are placed 
+      * randomly about the aboard */
+    public JManBoard(int w, int h) {
+        this(w,h,DEFAULT_BLOCKS, DEFAULT_WALKERS, DEFAULT_PILLARS);
+    }
+    
+    /** Constructor: an h x w game board with bl blocks, wa walkers, 
+      * and pi pillars. 
+      * J*Man is at position (0, 0); all other pieces are placed randomly.
+      * Precondition: number of pieces specified is <= h*w. */
+    public JManBoard(int w, int h, int bl, int wa, int pi) {
+        this(w, h, bl, wa, pi, STORAGE_OBJECTS);
+    }
+
+    /** Constructor: an h x w game board with bl blocks, wa walkers,
+      * and pi pillars, whose pieces are stored as given by s.
+      * J*Man is at position (0, 0); all other pieces are placed randomly.
+      * Precondition: number of pieces specified is <= h*w, and s is one
+      * of the constants STORAGE_OBJECTS, STORAGE_PRIMITIVE and STORAGE_CHUNKED. */
+    public JManBoard(int w, int h, int bl, int wa, int pi, int s) {
+        this(w, h, bl, wa, pi, s, new JManRandom());
+    }
+
+    /** Constructor: an h x w game board with bl blocks, wa walkers,
+      * and pi pillars, whose pieces are stored as given by s, and whose
+      * random choices are made with the given seed.  Two boards made with
+      * the same arguments play the same game if given the same moves.
+      * Precondition: as for JManBoard(w, h, bl, wa, pi, s). */
+    public JManBoard(int w, int h, int bl, int wa, int pi, int s, long seed) {
+        this(w, h, bl, wa, pi, s, new JManRandom(seed));
+    }
+
+    /** Constructor: an h x w game board with bl blocks, wa walkers,
+      * and pi pillars, whose pieces are stored as given by s, and whose
+      * random choices are all drawn from r (e.g. a generator split from
+      * another board's).  The board owns r from now on.
+      * Precondition: as for JManBoard(w, h, bl, wa, pi, s). */
+    public JManBoard(int w, int h, int bl, int wa, int pi, int s, JManRandom r) {
+        this(w, h, s, r);
+        placePiece(1, 0, 0);
+        initializeBoard(bl, wa, pi);
+    }
+
+    /** Constructor: an empty h x w game board, without even J*Man, whose
+      * pieces are stored as given by s and whose random choices are drawn
+      * from r; e.g. to be filled in by BoardFile with a saved board.
+      * Precondition: s is one of the STORAGE_ constants. */
+    JManBoard(int w, int h, int s, JManRandom r) {
+        width  = w;
+        height = h;
+        storageType = s;
+        random = r;
+        board = newStorage();
+        actors = new ActorIndex(board);
+        targets = new TargetIndex(this, s == STORAGE_CHUNKED);
+    }
+
+    /* Yields: a new empty storage of the type of this board. */
+    private BoardStorage newStorage() {
+        if (storageType == STORAGE_OBJECTS) {
+            return new ObjectBoardStorage(width, height);
+        } else if (storageType == STORAGE_PRIMITIVE) {
+            return new PrimitiveBoardStorage(this, width, height);
+        } else if (storageType == STORAGE_CHUNKED) {
+            return new ChunkedBoardStorage();
+        } else {
+            throw new IllegalArgumentException("Unknown board storage: " + storageType);
+        }
+    }
+    
+    /** Yields: the storage of the cells of this board. */
+    BoardStorage getStorage() {
+        return board;
+    }
+
+    /** Yields: the index of the walkers and pillars of this board. */
+    ActorIndex getActors() {
+        return actors;
+    }
+
+    /** Put a piece of type t and color code c at (x, y), as it was when the
+      * board was saved: no random choice is made, the piece is not counted
+      * (see restoreCounts) and a walker or pillar is not put in the actor
+      * index or counted by color (see restoreActor).  The listeners are not told. */
+    void restorePiece(int t, int x, int y, int c) {
+        Piece p;
+        if (t == Piece.JMAN) {
+            jMan = new JMan(x, y, c);
+            p = jMan;
+        } else if (t == Piece.BLOCK) {
+            p = new Block(x, y);
+        } else if (t == Piece.WALKER) {
+            p = new Walker(x, y, c);
+        } else {
+            p = new Pillar(x, y, c);
+        }
+        p.board = this;
+        board.put(p);
+    }
+
+    /** Put the walker or pillar at (x, y) in the next slot of the actor index,
+      * so that pieces act in the order in which they acted when saved, and
+      * count it by color. */
+    void restoreActor(int x, int y) {
+        actors.add(x, y);
+        targets.add(board.typeAt(x, y), x, y, board.colorAt(x, y));
+    }
+
+    /** Set the number of pieces of each type on the board to counts, the
+      * number of rounds played to ticks, and the number of captures to captures. */
+    void restoreCounts(int[] counts, long ticks, int captures) {
+        System.arraycopy(counts, 0, pieceCounts, 0, pieceCounts.length);
+        this.ticks = ticks;
+        this.captures = captures;
+    }
+
+    /** Yields: a copy of this board, stored as given by s, that plays the
+      * same game: the same cells, actor order, counts, direction, and state
+      * of the random number generator (but no listeners or history). */
+    JManBoard copy(int s) {
+        JManBoard c = new JManBoard(width, height, s, new JManRandom());
+        c.restoreFrom(this);
+        return c;
+    }
+
+    /** Make this board a copy of board b (of the same size) as copy() does,
+      * and tell the listeners that every cell changed.  Takes time
+      * proportional to the area of the board. */
+    void restoreFrom(JManBoard b) {
+        board = newStorage();
+        actors = new ActorIndex(board);
+        targets = new TargetIndex(this, storageType == STORAGE_CHUNKED);
+        parallel = null;
+        for (int y= 0; y < height; y= y+1) {
+            for (int x= 0; x < width; x= x+1) {
+                int t = b.typeAt(x, y);
+                if (t != EMPTY) restorePiece(t, x, y, b.colorAt(x, y));
+            }
+        }
+        for (int s= 0; s < b.actors.size(); s= s+1) {
+            restoreActor(b.actors.getX(s), b.actors.getY(s));
+        }
+        restoreCounts(b.pieceCounts, b.ticks, b.captures);
+        random.setState(b.random.getState());
+        nextJManDirection = b.nextJManDirection;
+        if (listeners.length > 0) {
+            for (int y= 0; y < height; y= y+1) {
+                for (int x= 0; x < width; x= x+1) {
+                    fireCellChanged(x, y);
+                }
+            }
+        }
+    }
+
+    /** Move the piece at (toX, toY) back to (fromX, fromY), undoing
+      * move(fromX, fromY, toX, toY), and put back the piece it captured: of
+      * type t (BoardCells.EMPTY if none) and color code c, in slot s of the
+      * actor index (-1 if none). */
+    void unmove(int fromX, int fromY, int toX, int toY, int t, int c, int s) {
+        board.move(toX, toY, fromX, fromY);
+        targets.move(board.typeAt(fromX, fromY), toX, toY, fromX, fromY, board.colorAt(fromX, fromY));
+        int m = board.getSlot(fromX, fromY);
+        if (m != -1) actors.moveTo(m, fromX, fromY);
+        if (t != EMPTY) {
+            restorePiece(t, toX, toY, c);
+            targets.add(t, toX, toY, c);
+            if (s != -1) actors.insert(s, toX, toY);
+            pieceCounts[t]++;
+            captures= captures-1;
+        }
+        fireCellChanged(fromX, fromY);
+        fireCellChanged(toX, toY);
+    }
+
+    /** Set the color of the piece at (x, y) to the color with code c, as it
+      * was before or after a round that is undone or redone. */
+    void restoreColor(int x, int y, int c) {
+        Piece p = board.get(x, y);
+        targets.recolor(p.getType(), x, y, p.color, c);
+        p.color = c;
+        board.setColor(x, y, c);
+        fireCellChanged(x, y);
+    }
+
+    /** Set the number of rounds played to ticks, and the state of the random
+      * number generator to state, as they were after round ticks. */
+    void restoreRound(long ticks, long[] state) {
+        this.ticks = ticks;
+        random.setState(state);
+    }
+
+    /** Yields: the width of this board in grid squares */
+    public int getWidth() {
+        return width;
+    }
+
+    /** Yields: the height of this board in grid squares */
+    public int getHeight() {
+        return height;
+    }
+
+    /** Yields: how this board stores its pieces, one of the constants
+      * STORAGE_OBJECTS, STORAGE_PRIMITIVE and STORAGE_CHUNKED. */
+    public int getStorageType() {
+        return storageType;
+    }
+    
+    /** Yields: the random number generator of this board. */
+    public JManRandom getRandom() {
+        return random;
+    }
+
+    /** Yields: a new generator split from this board's, whose numbers are
+      * independent of this board's; e.g. to seed a child board. */
+    public JManRandom splitRandom() {
+        return random.split();
+    }
+
+    /** Yields: a random integer in the range lo..hi drawn from this board's
+      * generator, with all integers in the range being equally likely.
+      * Precondition lo <= hi. */
+    public int rand(int lo, int hi) {
+        return random.nextInt(lo, hi);
+    }
+
+    /** Yields: the number of pieces of type t on the board.
+      * Precondition: t is one of the piece constants in class Piece. */
+    public int getPieceCount(int t) {
+        return pieceCounts[t];
+    }
+
+    /** Yields: the number of pieces of type t and color code c on the board.
+      * Precondition: t is Piece.WALKER or Piece.PILLAR, and c is one of
+      * Piece.RED, Piece.GREEN and Piece.YELLOW. */
+    public int getPieceCount(int t, int c) {
+        return targets.count(t, c);
+    }
+
+    /** Yields: the number of walkers and pillars J*Man can capture now. */
+    public int getCapturableCount() {
+        int c = Piece.preyOf(jMan.getColor());
+        return c == -1 ? 0 : targets.count(c);
+    }
+
+    /** Yields: a walker or pillar that J*Man can capture now and that is
+      * fewest steps away from it (ignoring what is in the way), or null if
+      * there is none.  This looks only at the cells near J*Man, not at the
+      * whole board (see nearest). */
+    public Piece nearestCapturable() {
+        int[] xs = new int[1];
+        int[] ys = new int[1];
+        if (nearestCapturable(1, xs, ys) == 0) return null;
+        return board.get(xs[0], ys[0]);
+    }
+
+    /** Find the (at most) k walkers and pillars J*Man can capture now that
+      * are fewest steps away from it, as nearest does.  Yields: the number found. */
+    public int nearestCapturable(int k, int[] xs, int[] ys) {
+        int c = Piece.preyOf(jMan.getColor());
+        return c == -1 ? 0 : nearest(jMan.getX(), jMan.getY(), c, k, xs, ys);
+    }
+
+    /** Find the (at most) k walkers and pillars of color code c that are
+      * fewest steps away from (x, y), ignoring what is in the way, and store
+      * their positions in xs[0..] and ys[0..], nearest first.  Yields: the
+      * number found, which is less than k only if there are fewer than k
+      * such pieces.  The walkers and pillars are kept count of in buckets of
+      * cells, so this takes time proportional to the area around (x, y)
+      * that holds the k nearest, not to the area of the board.
+      * Precondition: (x, y) is on the board, and k <= xs.length, ys.length. */
+    public int nearest(int x, int y, int c, int k, int[] xs, int[] ys) {
+        return targets.nearest(x, y, c, k, xs, ys);
+    }
+
+    /** Yields: the number of pieces J*Man has captured on this board. */
+    public int getCaptures() {
+        return captures;
+    }
+
+    /** Yields: the number of times act() has been called on this board. */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /** Yields: the time taken to put the pieces on this board when it was
+      * made, in nanoseconds. */
+    public long getSetupNanos() {
+        return setupNanos;
+    }
+
+    /** Yields: "J*Man has captured every walker and pillar". */
+    public boolean isGameOver() {
+        return pieceCounts[Piece.WALKER] + pieceCounts[Piece.PILLAR] == 0;
+    }
+
+    /** Yields: "(x, y) is on the board". */
+    public boolean isOnBoard(int x, int y) {
+        return x > -1 && y > -1 && x < width && y < height;
+    }
+    
+    /** Yields: "(x, y) is on the board and does not contain a piece". */
+    public boolean isEmpty(int x, int y) {
+        return isOnBoard(x,y) && board.isEmpty(x, y);
+    }
+    
+    /** Yields: the Piece at position (x, y) of the board
+      * (null if (x, y) is outside the board or contains null).
+      * With STORAGE_PRIMITIVE, every piece but J*Man is a new view of the
+      * cell, so it should not be kept after the board changes. */
+    public Piece pieceAt(int x, int y) {
+        if(isOnBoard(x,y)) {
+            return board.get(x, y);
+        }
+        return null;
+    }
+    
+    public int typeAt(int x, int y) {
+        return isOnBoard(x, y) ? board.typeAt(x, y) : EMPTY;
+    }
+
+    public int colorAt(int x, int y) {
+        return board.colorAt(x, y);
+    }
+
+    /** Yields: the (unique) J*Man piece on this game board.*/
+    public JMan getJMan() {
+        return jMan;
+    }
+    
+    /** Yields: the next direction in which JMan should move. This is one of
+      * the constants MOVE_UP, MOVE_DOWN, MOVE_LEFT, MOVE_RIGHT, and MOVE_NONE. */
+    public int nextJManDirection() {
+        return nextJManDirection;
+    }
+    
+    /** Change the next direction in which JMan should move to direction d.
+      * Precondition: d is one of the constants MOVE_UP, MOVE_DOWN,
+      * MOVE_LEFT, MOVE_RIGHT, and MOVE_NONE. */
+    public void changeJManDirection(int d) {
+        nextJManDirection = d;
+    }
+    
+    /** Move the Piece at (fromX, fromY) to (toX, toY) on the board,
+      * changing the position at (fromX, fromY) to null; change the position 
+      * in the Piece accordingly. The piece originally in (toX, toY) is 
+      * permanently deleted.
+      * Precondition:
+      * 1. (toX, toY) is on the board.
+      * 2. The move is allowed by the game. */
+    public void move(int fromX, int fromY, int toX, int toY) {
+        if (history != null) history.moving(fromX, fromY, toX, toY);
+        if (GameMetrics.ENABLED) GameMetrics.moved();
+        if (!board.isEmpty(toX, toY)) {
+            int t = board.typeAt(toX, toY);
+            pieceCounts[t]--;
+            captures= captures+1;
+            targets.remove(t, toX, toY, board.colorAt(toX, toY));
+            int captured = board.getSlot(toX, toY);
+            if (captured != -1) actors.remove(captured);
+        }
+        board.move(fromX, fromY, toX, toY);
+        targets.move(board.typeAt(toX, toY), fromX, fromY, toX, toY, board.colorAt(toX, toY));
+        int s = board.getSlot(toX, toY);
+        if (s != -1) actors.moveTo(s, toX, toY);
+        fireCellChanged(fromX, fromY);
+        fireCellChanged(toX, toY);
+    }
+
+    /** Record that piece p, which is on this board, changed its color from
+      * old.  Called by Piece.setColor. */
+    void colorChanged(Piece p, int old) {
+        if (history != null) {
+            history.colorChanged(p.getX(), p.getY(), old, p.getColor());
+        }
+        targets.recolor(p.getType(), p.getX(), p.getY(), old, p.getColor());
+        board.setColor(p.getX(), p.getY(), p.getColor());
+        fireCellChanged(p.getX(), p.getY());
+    }
+
+    /** Add l to the listeners told about every cell that changes on this board. */
+    public void addBoardListener(BoardListener l) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = l;
+    }
+
+    /** Remove l from the listeners of this board, if it is one. */
+    public void removeBoardListener(BoardListener l) {
+        for (int i= 0; i < listeners.length; i= i+1) {
+            if (listeners[i] == l) {
+                BoardListener[] ls = new BoardListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, ls, 0, i);
+                System.arraycopy(listeners, i+1, ls, i, ls.length - i);
+                listeners = ls;
+                return;
+            }
+        }
+    }
+
+    /* Tell every listener that cell (x, y) changed. */
+    private void fireCellChanged(int x, int y) {
+        if (quiet) return;
+        BoardListener[] ls = listeners;
+        for (int i= 0; i < ls.length; i= i+1) {
+            ls[i].cellChanged(this, x, y);
+        }
+    }
+
+    /** Make every piece on the board act once, with JMan acting first.
+      * Blocks do nothing when they act, so only the walkers and pillars in
+      * the actor index are visited; a piece is marked with the number of
+      * the round when it acts, so no piece acts twice in one round and no
+      * flags need to be reset afterwards.
+      * A walker or pillar does something with probability 1/Piece.ACTION_ODDS
+      * and nothing otherwise, independently of the other pieces and rounds.
+      * So rather than roll that die for every piece, the gap to the next
+      * piece that does something is drawn from the geometric distribution
+      * (see JManRandom.nextGeometric), and only those pieces are visited.
+      * The pieces that do something are distributed exactly as if each
+      * rolled its own die, and a round takes time proportional to them. */
+    public void act() {
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+        if (history != null) history.roundStarted(false);
+        jMan.act(this);
+
+        // Make every other piece that does something this round act.
+        epoch= epoch+1;
+        for (int s= random.nextGeometric(Piece.ACTION_ODDS); s < actors.size();
+             s= s + 1 + random.nextGeometric(Piece.ACTION_ODDS)) {
+            if (actors.markActed(s, epoch)) {
+                board.get(actors.getX(s), actors.getY(s)).takeAction(this, random);
+            }
+        }
+        ticks= ticks+1;
+        if (history != null) history.roundEnded();
+        if (GameMetrics.ENABLED) GameMetrics.tickPlayed(this, start, false);
+    }
+
+    /** Play a round for each of directions[from..from+n-1] in turn, with
+      * J*Man moving in that direction, as n calls of changeJManDirection and
+      * act() would (and with the same result), but in one loop that
+      * allocates nothing of its own, e.g. for a script or bot whose moves
+      * are ready, or to replay a recorded game.
+      * Precondition: directions[from..from+n-1] are MOVE_ constants. */
+    public void act(int[] directions, int from, int n) {
+        for (int i= from; i < from + n; i= i+1) {
+            nextJManDirection = directions[i];
+            act();
+        }
+    }
+
+    /** Play at most n rounds, with J*Man moving in each in the direction
+      * chosen by p just before it, as changeJManDirection(p.nextDirection(this))
+      * and act() would, in one loop that allocates nothing of its own.  Stops
+      * early once the game is over.  Yields: the number of rounds played. */
+    public long act(long n, DirectionProvider p) {
+        long i = 0;
+        while (i < n && !isGameOver()) {
+            nextJManDirection = p.nextDirection(this);
+            act();
+            i= i+1;
+        }
+        return i;
+    }
+
+    /** Make every piece on the board act once, with JMan acting first, as
+      * act() does, but with the walkers and pillars acting in parallel on
+      * the threads of pool (see class ParallelRound).  The random choices
+      * are made differently from act(), so a game played with this method
+      * differs from one played with act(), but it depends only on the seed
+      * of the board, not on the number of threads of pool.  With
+      * STORAGE_CHUNKED, which cannot be changed by two threads at once, the
+      * pieces act on this thread instead, with the same result.
+      * The listeners are told about the changed cells after all pieces have
+      * acted.  While the history is recorded, the stripes act on this thread
+      * (again with the same result), so that its changes are recorded in order. */
+    public void act(ForkJoinPool pool) {
+        long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+        if (history != null) {
+            history.roundStarted(true);
+            pool = null;
+        }
+        jMan.act(this);
+
+        if (parallel == null) {
+            parallel = new ParallelRound(this, board, actors);
+        }
+        boolean record = listeners.length > 0;
+        quiet = true;
+        try {
+            parallel.play(storageType == STORAGE_CHUNKED ? null : pool, random.nextLong(), record);
+        } finally {
+            quiet = false;
+        }
+        if (record) {
+            for (int k= 0; k < parallel.getStripes(); k= k+1) {
+                ChangedCells c = parallel.getChanges(k);
+                for (int i= 0; i < c.size(); i= i+1) {
+                    fireCellChanged(c.getX(i), c.getY(i));
+                }
+            }
+        }
+        ticks= ticks+1;
+        if (history != null) history.roundEnded();
+        if (GameMetrics.ENABLED) GameMetrics.tickPlayed(this, start, true);
+    }
+
+    /** Start recording the rounds played on this board from now on, so that
+      * they can be undone, redone, and rewound to, with at most about
+      * maxBytes bytes of history (see class BoardHistory), but at least two
+      * copies of the board.  Any history recorded before is dropped. */
+    public void recordHistory(long maxBytes) {
+        history = new BoardHistory(this, maxBytes);
+    }
+
+    /** Stop recording the rounds played on this board and drop the history. */
+    public void stopHistory() {
+        history = null;
+    }
+
+    /** Undo the last round played (or redone) since the history was recorded,
+      * putting every piece, count, J*Man's next direction, and the random
+      * number generator back as they were before it.  This takes time
+      * proportional to the changes made by the round, unless the round is
+      * so old that the board must be rewound from a keyframe (see
+      * rewindTo).  Yields: "there was a round to undo". */
+    public boolean undo() {
+        return history != null && history.undo();
+    }
+
+    /** Redo the last round undone, if no round has been played since.
+      * Yields: "there was a round to redo". */
+    public boolean redo() {
+        return history != null && history.redo();
+    }
+
+    /** Undo or redo rounds until getTicks() == t.  If t is older than the
+      * rounds whose changes are still kept, the board is rewound from a
+      * keyframe instead, and the rounds after t can no longer be redone.
+      * Precondition: the history is recorded, and getEarliestTick() <= t <= getLatestTick(). */
+    public void rewindTo(long t) {
+        history.rewindTo(t);
+    }
+
+    /** Yields: the earliest round this board can be rewound to (getTicks()
+      * if the history is not recorded). */
+    public long getEarliestTick() {
+        return history == null ? ticks : history.getEarliestTick();
+    }
+
+    /** Yields: the latest round this board can be redone to (getTicks() if
+      * the history is not recorded). */
+    public long getLatestTick() {
+        return history == null ? ticks : history.getLatestTick();
+    }
+
+    /** Put bl block, wa walkers, and pi pillars randomly on the game board
+      * Precondition. The board must have enough empty spaces for all of them.
+      * The cells are chosen by sampling without replacement among the empty
+      * cells, so this takes time proportional to the number of pieces (or
+      * to the area, if the board is going to be crowded) however full the
+      * board gets.  Each piece is equally likely to be in any empty cell, as
+      * if the pieces were put one by one in random empty cells. */
+    private void initializeBoard(int bl, int wa, int pi) {
+        long start = System.nanoTime();
+        long free = (long) width * height - 1;  // cells other than J*Man's (0, 0)
+        int k = bl + wa + pi;
+
+        // Cell number c (1..free) is (c % width, c / width).
+        long[] cells;
+        if (k > free/16 && free < Integer.MAX_VALUE) {
+            cells = sampleDense((int) free, k);
+        } else {
+            cells = sampleSparse(free, k);
+        }
+
+        // invariant: the pieces in cells[0..i-1] have been added.
+        for (int i= 0; i < k; i= i+1) {
+            int t = i < bl ? Piece.BLOCK : (i < bl + wa ? Piece.WALKER : Piece.PILLAR);
+            placePiece(t, (int) (cells[i] % width), (int) (cells[i] / width));
+        }
+        setupNanos = System.nanoTime() - start;
+    }
+
+    /* Yields: k distinct cell numbers in the range 1..n, in random order,
+     * by shuffling the first k elements of the list of all n of them
+     * (a partial Fisher-Yates shuffle).  Takes time proportional to n. */
+    private long[] sampleDense(int n, int k) {
+        int[] all = new int[n];
+        for (int i= 0; i < n; i= i+1) all[i] = i+1;
+        long[] cells = new long[k];
+        for (int i= 0; i < k; i= i+1) {
+            int j = i + random.nextInt(n - i);
+            int c = all[j];
+            all[j] = all[i];
+            cells[i] = c;
+        }
+        return cells;
+    }
+
+    /* Yields: k distinct cell numbers in the range 1..n, in random order,
+     * by Floyd's sampling algorithm followed by a shuffle.  Takes time
+     * proportional to k. */
+    private long[] sampleSparse(long n, int k) {
+        HashSet<Long> chosen = new HashSet<Long>(2*k);
+        long[] cells = new long[k];
+        int i = 0;
+        for (long j= n - k + 1; j <= n; j= j+1) {
+            long c = 1 + random.nextLong(j);
+            if (!chosen.add(c)) {
+                chosen.add(j);
+                c = j;
+            }
+            cells[i] = c;
+            i= i+1;
+        }
+        // Floyd's algorithm yields a random set, but not in random order.
+        for (int m= k-1; m > 0; m= m-1) {
+            int r = random.nextInt(m + 1);
+            long c = cells[m];
+            cells[m] = cells[r];
+            cells[r] = c;
+        }
+        return cells;
+    }
+
+    /** If (x, y) is on the board and empty, create a new piece of type t;
+      * put it in location (x, y) of the board.  If the new piece is J*Man,
+      * then it stores the piece in the field jMan.  A J*Man, walker or
+      * pillar gets a random color.
+      * Precondition: t is one of the piece constants in class Piece.
+      * If t == Piece.JMAN, then jMan is null. */
+    public void placePiece(int t, int x, int y){
+        if (t != Piece.JMAN && t != Piece.BLOCK && t != Piece.WALKER && t != Piece.PILLAR) {
+            // this code block shouldn't be reached
+            throw new RuntimeException("Unknown type is being placed!");
+        }
+        placePiece(t, x, y, t == Piece.BLOCK ? Piece.WHITE : rand(0, 2));
+    }
+
+    /** If (x, y) is on the board and empty, create a new piece of type t and
+      * color code c (ignored for a block, which is white); put it in location
+      * (x, y) of the board, e.g. as given by a level file.  If the new piece
+      * is J*Man, then it stores the piece in the field jMan.
+      * Precondition: t is one of the piece constants in class Piece, and c is
+      * RED, GREEN or YELLOW unless t is BLOCK.
+      * If t == Piece.JMAN, then jMan is null. */
+    public void placePiece(int t, int x, int y, int c) {
+        Piece p;
+        if (t == Piece.JMAN) {
+            jMan = new JMan(x, y, c);
+            p = jMan;
+        } else if (t == Piece.BLOCK) {
+            p = new Block(x, y);
+        } else if (t == Piece.WALKER) {
+            p = new Walker(x, y, c);
+        } else if (t == Piece.PILLAR) {
+            p = new Pillar(x, y, c);
+        } else {
+            // this code block shouldn't be reached
+            throw new RuntimeException("Unknown type is being placed!");
+        }
+        p.board = this;
+        board.put(p);
+        pieceCounts[t]++;
+        targets.add(t, x, y, p.getColor());
+        if (t == Piece.WALKER || t == Piece.PILLAR) actors.add(x, y);
+        fireCellChanged(x, y);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+package jman;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/** An instance of this class is a fast random number generator that
+  * belongs to one board (xoshiro256**, seeded through SplitMix64).
+  * Unlike Math.random(), an instance is not shared between threads, so
+  * boards played in parallel do not contend on it, and two generators
+  * made with the same seed yield the same numbers, so games can be
+  * replayed.  split() yields a new generator with an independent stream,
+  * e.g. for the boards of a batch. */
+public class JManRandom {
+
+    /** Largest n for which nextGeometric(n) uses a table. */
+    public static final int MAX_TABLED_ODDS = 64;
+
+    private long s0, s1, s2, s3;  // the 256 bits of state; not all zero
+    private int limitsOdds;       // n of the table of nextGeometric (0: none yet)
+    private long[] limits;        // the table of nextGeometric(limitsOdds)
+
+    /** Constructor: a generator with an unpredictable seed. */
+    public JManRandom() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /** Constructor: a generator with the given seed.  Generators with
+      * the same seed yield the same numbers. */
+    public JManRandom(long seed) {
+        // Fill the state with SplitMix64, which never yields four zeros.
+        s0 = mix(seed += 0x9E3779B97F4A7C15L);
+        s1 = mix(seed += 0x9E3779B97F4A7C15L);
+        s2 = mix(seed += 0x9E3779B97F4A7C15L);
+        s3 = mix(seed +  0x9E3779B97F4A7C15L);
+    }
+
+    /* Yields: z with its bits mixed (the SplitMix64 output function). */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Yields: the next 64 random bits. */
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    /** Yields: a random integer in the range 0..n-1, with all integers in
+      * the range being equally likely.
+      * Precondition: n > 0. */
+    public int nextInt(int n) {
+        // Lemire's multiply-and-shift, rejecting the few biased products.
+        long m = (nextLong() >>> 32) * n;
+        if ((m & 0xFFFFFFFFL) < n) {
+            long floor = (0x100000000L - n) % n;
+            while ((m & 0xFFFFFFFFL) < floor) {
+                m = (nextLong() >>> 32) * n;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    /** Yields: a random integer in the range lo..hi, with all integers in
+      * the range being equally likely.
+      * Precondition: lo <= hi. */
+    public int nextInt(int lo, int hi) {
+        return lo + nextInt(hi - lo + 1);
+    }
+
+    /** Yields: a random long in the range 0..n-1, with all values in the
+      * range being equally likely.
+      * Precondition: n > 0. */
+    public long nextLong(long n) {
+        long bits, val;
+        do {
+            bits = nextLong() >>> 1;
+            val = bits % n;
+        } while (bits - val + (n - 1) < 0);
+        return val;
+    }
+
+    /** Yields: the number of failures before the first success in a run of
+      * independent trials that each succeed with probability 1/n, that is,
+      * k with probability (1 - 1/n)^k / n.  It takes one number from the
+      * generator (by inverting the distribution), however large k is.
+      * For n up to MAX_TABLED_ODDS the inverse is looked up in a table of
+      * the chances (1 - 1/n)^k, which takes about n comparisons; for larger
+      * n it is computed with logarithms.
+      * Precondition: n >= 1. */
+    public int nextGeometric(int n) {
+        long u = nextLong() >>> 11;  // uniform in 0..2^53-1
+        if (n > MAX_TABLED_ODDS) {
+            return (int) (Math.log((u + 1) * 0x1.0p-53) / Math.log1p(-1.0 / n));
+        }
+        if (n != limitsOdds) {
+            limits = geometricLimits(n);
+            limitsOdds = n;
+        }
+        int k = 0;
+        while (k < limits.length && u < limits[k]) {
+            k= k+1;
+        }
+        return k;
+    }
+
+    /* Yields: the table used by nextGeometric(n): element k-1 is 2^53 times
+     * (1 - 1/n)^k, rounded down, for each k >= 1 for which that is not 0. */
+    private static long[] geometricLimits(int n) {
+        double q = 1 - 1.0 / n;
+        long[] t = new long[64];
+        int k = 0;
+        for (double p = q * 0x1.0p53; p >= 1; p = p * q) {
+            if (k == t.length) t = Arrays.copyOf(t, 2*k);
+            t[k] = (long) p;
+            k= k+1;
+        }
+        return Arrays.copyOf(t, k);
+    }
+
+    /** Yields: a new generator whose numbers are independent of the rest
+      * of this generator's numbers. */
+    public JManRandom split() {
+        return new JManRandom(nextLong());
+    }
+
+    /** Yields: a copy of the 4 longs of state of this generator. */
+    public long[] getState() {
+        return new long[] {s0, s1, s2, s3};
+    }
+
+    /** Set the state of this generator to s, e.g. as yielded by getState().
+      * Precondition: s has 4 elements, not all zero. */
+    public void setState(long[] s) {
+        s0 = s[0];
+        s1 = s[1];
+        s2 = s[2];
+        s3 = s[3];
+    }
+}
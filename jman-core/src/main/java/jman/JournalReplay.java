@@ -0,0 +1,180 @@
+package jman;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/** An instance of this class replays a game recorded by a GameJournal: it
+  * yields the board as it was after any number of rounds, by loading the
+  * nearest checkpoint at or before that round and playing only the rounds
+  * after it.  With the default checkpoints, seeking anywhere in a game of
+  * a million rounds plays at most 1023 rounds.
+  *
+  * Run as an application ("java jman.JournalReplay file n [out]"), it prints
+  * the state of the game after round n, and saves the board to out with
+  * BoardFile if out is given. */
+public class JournalReplay implements Closeable {
+
+    private Path file;               // the journal
+    private FileChannel journal;     // the journal
+    private FileChannel checkpoints; // its checkpoints (null if there are none)
+    private long rounds;             // # of rounds recorded
+    private int width, height, blocks, walkers, pillars, storage; // the configuration
+    private long[] state = new long[4]; // the generator state the board was made with
+    private long[] checkpointRounds = new long[16]; // round of each checkpoint, ascending
+    private long[] checkpointOffsets = new long[16]; // where each one starts in checkpoints
+    private int checkpointCount;
+
+    /** Constructor: a replay of the game recorded in file (and its checkpoints,
+      * if the file of checkpoints exists). */
+    public JournalReplay(Path file) throws IOException {
+        this.file = file;
+        journal = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer head = read(journal, 0, GameJournal.HEADER_BYTES);
+        if (head.remaining() < GameJournal.HEADER_BYTES || head.getInt() != GameJournal.MAGIC) {
+            throw new IOException(file + " is not a J*Man journal");
+        }
+        int version = head.getInt();
+        if (version != GameJournal.VERSION) {
+            throw new IOException(file + " has unsupported version " + version);
+        }
+        width = head.getInt();
+        height = head.getInt();
+        blocks = head.getInt();
+        walkers = head.getInt();
+        pillars = head.getInt();
+        storage = head.getInt();
+        head.getInt();  // rounds between checkpoints
+        for (int i= 0; i < state.length; i= i+1) {
+            state[i] = head.getLong();
+        }
+
+        long bytes = journal.size() - GameJournal.HEADER_BYTES;
+        rounds = 2*bytes;
+        if (bytes > 0 && (read(journal, journal.size() - 1, 1).get() & 0xF) == GameJournal.PADDING) {
+            rounds= rounds-1;
+        }
+
+        Path ckpt = GameJournal.checkpointsFor(file);
+        if (Files.exists(ckpt)) {
+            checkpoints = FileChannel.open(ckpt, StandardOpenOption.READ);
+            indexCheckpoints();
+        }
+    }
+
+    /* Find the round and offset of each complete checkpoint. */
+    private void indexCheckpoints() throws IOException {
+        long size = checkpoints.size();
+        long pos = 0;
+        while (pos + 16 <= size) {
+            ByteBuffer head = read(checkpoints, pos, 16);
+            long round = head.getLong();
+            long length = head.getLong();
+            if (length <= 0 || pos + 16 + length > size) break;  // cut short
+            if (checkpointCount == checkpointRounds.length) {
+                checkpointRounds = Arrays.copyOf(checkpointRounds, 2*checkpointCount);
+                checkpointOffsets = Arrays.copyOf(checkpointOffsets, 2*checkpointCount);
+            }
+            checkpointRounds[checkpointCount] = round;
+            checkpointOffsets[checkpointCount] = pos + 16;
+            checkpointCount= checkpointCount+1;
+            pos = pos + 16 + length;
+        }
+    }
+
+    /** Yields: the number of rounds recorded in the journal. */
+    public long getRounds() {
+        return rounds;
+    }
+
+    /** Yields: the board of the game after n rounds.
+      * Precondition: 0 <= n <= getRounds(). */
+    public JManBoard seek(long n) throws IOException {
+        if (n < 0 || n > rounds) {
+            throw new IllegalArgumentException("Round " + n + " is not in 0.." + rounds);
+        }
+        // The last checkpoint at or before round n, if any.
+        int k = checkpointCount - 1;
+        while (k >= 0 && checkpointRounds[k] > n) {
+            k= k-1;
+        }
+        JManBoard b;
+        if (k >= 0) {
+            b = BoardFile.load(checkpoints, checkpointOffsets[k], storage,
+                               GameJournal.checkpointsFor(file).toString());
+        } else {
+            JManRandom r = new JManRandom();
+            r.setState(state);
+            b = new JManBoard(width, height, blocks, walkers, pillars, storage, r);
+        }
+        playTo(b, n);
+        return b;
+    }
+
+    /** Play on board b, which was replayed to some round, the rounds after it
+      * up to round n.  Precondition: b.getTicks() <= n <= getRounds(). */
+    public void playTo(JManBoard b, long n) throws IOException {
+        long from = b.getTicks();
+        if (from >= n) return;
+        // The directions of rounds from..n-1 (round t is the t+1st, in nibble t).
+        ByteBuffer dirs = read(journal, GameJournal.HEADER_BYTES + from/2, (int) ((n + 1)/2 - from/2));
+        // They are unpacked a block at a time and played in a batch.
+        int[] block = new int[(int) Math.min(n - from, 4096)];
+        int m = 0;  // # of directions in block
+        for (long t= from; t < n; t= t+1) {
+            int packed = dirs.get((int) (t/2 - from/2));
+            block[m] = t % 2 == 0 ? (packed >> 4) & 0xF : packed & 0xF;
+            m= m+1;
+            if (m == block.length || t == n-1) {
+                b.act(block, 0, m);
+                m = 0;
+            }
+        }
+    }
+
+    /* Yields: n bytes of ch starting at pos (fewer if the file ends first). */
+    private static ByteBuffer read(FileChannel ch, long pos, int n) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(n);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, pos + buf.position()) < 0) break;
+        }
+        buf.flip();
+        return buf;
+    }
+
+    public void close() throws IOException {
+        journal.close();
+        if (checkpoints != null) {
+            checkpoints.close();
+        }
+    }
+
+    /** Replay the journal pars[0] to round pars[1], print the state of the
+      * game, and save the board to pars[2] if it is given. */
+    public static void main(String[] pars) throws IOException {
+        if (pars.length < 2) {
+            System.err.println("usage: java jman.JournalReplay journal round [board-file]");
+            System.exit(2);
+        }
+        try (JournalReplay replay = new JournalReplay(Paths.get(pars[0]))) {
+            long n = Long.parseLong(pars[1]);
+            long t0 = System.nanoTime();
+            JManBoard b = replay.seek(n);
+            long nanos = System.nanoTime() - t0;
+            System.out.println("round " + b.getTicks() + " of " + replay.getRounds()
+                               + ": " + b.getJMan() + ", captures=" + b.getCaptures()
+                               + ", walkers=" + b.getPieceCount(Piece.WALKER)
+                               + ", pillars=" + b.getPieceCount(Piece.PILLAR)
+                               + " (" + nanos/1000 + " us)");
+            if (pars.length > 2) {
+                BoardFile.save(b, Paths.get(pars[2]));
+            }
+        }
+    }
+}
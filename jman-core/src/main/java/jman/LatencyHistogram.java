@@ -0,0 +1,84 @@
+package jman;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** An instance of this class counts durations (e.g. of rounds played for a
+  * client) in buckets, so that their percentiles can be reported without
+  * keeping each one.  Each power of two of nanoseconds is cut into SUB
+  * buckets, so a percentile is within 1/SUB of the true value.  Any number
+  * of threads may record durations at once, without locks. */
+public class LatencyHistogram {
+
+    /* Log (base 2) of the number of buckets in each power of two. */
+    private static final int SUB_BITS = 3;
+    /* Number of buckets in each power of two. */
+    private static final int SUB = 1 << SUB_BITS;
+
+    private AtomicLongArray counts = new AtomicLongArray(64 * SUB); // # of durations in each bucket
+    private LongAdder total = new LongAdder(); // sum of the durations, in ns
+    private LongAdder count = new LongAdder(); // # of durations
+
+    /** Constructor: an empty histogram. */
+    public LatencyHistogram() {
+    }
+
+    /** Count a duration of nanos nanoseconds (0 if it is negative). */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(nanos));
+        total.add(nanos);
+        count.increment();
+    }
+
+    /* Yields: the bucket of a duration of n ns: its power of two and the
+     * SUB_BITS bits below the top bit. */
+    private static int bucket(long n) {
+        if (n < SUB) return (int) n;
+        int top = 63 - Long.numberOfLeadingZeros(n);
+        int sub = (int) (n >>> (top - SUB_BITS)) & (SUB - 1);
+        return (top - SUB_BITS + 1) * SUB + sub;
+    }
+
+    /* Yields: the largest duration in bucket b, in ns. */
+    private static long upperBound(int b) {
+        if (b < SUB) return b;
+        int top = b / SUB + SUB_BITS - 1;
+        long sub = b % SUB;
+        return ((SUB + sub + 1) << (top - SUB_BITS)) - 1;
+    }
+
+    /** Yields: the number of durations counted. */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** Yields: the mean of the durations counted, in ns (0 if there are none). */
+    public long getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    /** Yields: a duration, in ns, that fraction p of the durations counted
+      * are no longer than, to within a bucket (0 if there are none).
+      * Precondition: 0 <= p <= 1. */
+    public long getPercentile(double p) {
+        long n = count.sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int b= 0; b < counts.length(); b= b+1) {
+            seen = seen + counts.get(b);
+            if (seen >= rank) return upperBound(b);
+        }
+        return upperBound(counts.length() - 1);
+    }
+
+    /** Yields: the mean, median, 99th percentile, and 99.9th percentile of
+      * the durations counted, in microseconds, e.g. for a line of a report. */
+    public String report() {
+        return String.format("mean %d us, p50 %d us, p99 %d us, p99.9 %d us",
+                             getMean() / 1000, getPercentile(0.5) / 1000,
+                             getPercentile(0.99) / 1000, getPercentile(0.999) / 1000);
+    }
+}
@@ -0,0 +1,316 @@
+package jman;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/** This class reads and writes levels: starting boards written by hand, or
+  * made by another program, as plain text with one character per cell.
+  * (A game in progress is saved with BoardFile instead.)
+  *
+  * A level file starts with a header of lines "keyword value ...":
+  *   jman-level 1          the first line: the format and its version;
+  *   size w h              the width and height of the board;
+  *   storage s             optional: objects, primitive or chunked (default objects);
+  *   seed n                optional: the seed of the random choices of the game;
+  *   jman c                optional: J*Man's color, red, green or yellow (default random).
+  * Blank lines and lines that start with ';' are ignored.  The header ends
+  * with a line "board", followed by h lines, the rows of the board from the
+  * top, of at most w characters each, one per cell (missing cells at the
+  * end of a row are empty):
+  *   '.' or ' '   an empty cell;
+  *   '#'          a block;
+  *   '*'          J*Man (exactly one);
+  *   r, g, y      a red, green or yellow walker;
+  *   R, G, Y      a red, green or yellow pillar.
+  * The walkers and pillars act in the order in which they are in the file.
+  *
+  * A level is read byte by byte through memory-mapped windows of the file,
+  * and each piece is put on the board with placePiece as soon as it is read,
+  * so the text is never held in memory.  A large level (e.g. 10000 x 10000
+  * with STORAGE_PRIMITIVE) loads in about the time BoardFile takes to load
+  * the same board, most of which is spent making the board, not reading.
+  *
+  * Run as an application ("java jman.LevelFile w h bl wa pi file"), it writes
+  * a random w x h level with bl blocks, wa walkers, and pi pillars to file. */
+public class LevelFile {
+
+    /** First word of a level file. */
+    public static final String MAGIC = "jman-level";
+    /** Version of the format written. */
+    public static final int VERSION = 1;
+
+    /* Largest window of a file mapped at once when it is read. */
+    private static final long WINDOW_BYTES = 1L << 28;
+    /* Size of the blocks in which a window is read. */
+    private static final int BLOCK_BYTES = 1 << 16;
+    /* Names of the storage types, by STORAGE_ constant, and of the colors. */
+    private static final String[] STORAGE_NAMES = {"objects", "primitive", "chunked"};
+    private static final String[] COLOR_NAMES = {"red", "green", "yellow"};
+    /* Value of CELL_TYPES for a character that is not a cell. */
+    private static final byte NOT_A_CELL = -2;
+    /* The type (or BoardCells.EMPTY) and color code of the cell written as
+     * character ch, at ch. */
+    private static final byte[] CELL_TYPES = new byte[128];
+    private static final byte[] CELL_COLORS = new byte[128];
+    /* The character of a piece of type t and color code c, at 4*t + c. */
+    private static final byte[] CELL_CHARS = new byte[16];
+    static {
+        Arrays.fill(CELL_TYPES, NOT_A_CELL);
+        cell('.', BoardCells.EMPTY, 0);
+        cell(' ', BoardCells.EMPTY, 0);
+        cell('#', Piece.BLOCK, Piece.WHITE);
+        cell('r', Piece.WALKER, Piece.RED);
+        cell('g', Piece.WALKER, Piece.GREEN);
+        cell('y', Piece.WALKER, Piece.YELLOW);
+        cell('R', Piece.PILLAR, Piece.RED);
+        cell('G', Piece.PILLAR, Piece.GREEN);
+        cell('Y', Piece.PILLAR, Piece.YELLOW);
+        cell('*', Piece.JMAN, 0);
+        for (int c= 0; c < 4; c= c+1) {
+            CELL_CHARS[4*Piece.BLOCK + c] = '#';
+            CELL_CHARS[4*Piece.JMAN + c] = '*';
+        }
+    }
+
+    private LevelFile() {
+    }
+
+    /* Make ch the character of a cell with a piece of type t (or EMPTY) and
+     * color code c. */
+    private static void cell(char ch, int t, int c) {
+        CELL_TYPES[ch] = (byte) t;
+        CELL_COLORS[ch] = (byte) c;
+        if (t == Piece.WALKER || t == Piece.PILLAR) CELL_CHARS[4*t + c] = (byte) ch;
+    }
+
+    /** Yields: the board of the level in file, stored as the file says. */
+    public static JManBoard load(Path file) throws IOException {
+        return load(file, -1);
+    }
+
+    /** Yields: the board of the level in file, stored as given by s, one of
+      * the JManBoard STORAGE_ constants (or -1: as the file says).
+      * Throws an IOException, naming the line, if file is not a valid level. */
+    public static JManBoard load(Path file, int s) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            Input in = new Input(ch, file.toString());
+            String line = in.line();
+            String[] words = line == null ? new String[0] : line.trim().split("\\s+");
+            if (words.length != 2 || !words[0].equals(MAGIC)) {
+                throw new IOException(file + " is not a J*Man level file");
+            }
+            if (!words[1].equals(Integer.toString(VERSION))) {
+                throw new IOException(file + " has unsupported version " + words[1]);
+            }
+
+            int w = -1, h = -1, storage = JManBoard.STORAGE_OBJECTS, jColor = -1;
+            JManRandom r = new JManRandom();
+            for (line = in.line(); line != null && !line.trim().equals("board"); line = in.line()) {
+                words = line.trim().split("\\s+");
+                if (words[0].isEmpty() || words[0].startsWith(";")) continue;
+                try {
+                    if (words[0].equals("size") && words.length == 3) {
+                        w = Integer.parseInt(words[1]);
+                        h = Integer.parseInt(words[2]);
+                    } else if (words[0].equals("storage") && words.length == 2) {
+                        storage = indexOf(STORAGE_NAMES, words[1]);
+                    } else if (words[0].equals("seed") && words.length == 2) {
+                        r = new JManRandom(Long.parseLong(words[1]));
+                    } else if (words[0].equals("jman") && words.length == 2) {
+                        jColor = indexOf(COLOR_NAMES, words[1]);
+                    } else {
+                        throw new IllegalArgumentException();
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw in.lineError("bad header line \"" + line + "\"");
+                }
+            }
+            if (line == null) {
+                throw in.error("no line \"board\"");
+            }
+            if (w <= 0 || h <= 0) {
+                throw in.error("no valid line \"size w h\"");
+            }
+            if ((long) w * h > Integer.MAX_VALUE) {
+                throw in.error("a board of " + w + " x " + h + " cells is too big");
+            }
+
+            JManBoard b = new JManBoard(w, h, s == -1 ? storage : s, r);
+            boolean jMan = false;
+            for (int y= 0; y < h; y= y+1) {
+                jMan = readRow(in, b, y, jMan, jColor);
+            }
+            if (!jMan) {
+                throw new IOException(file + " has no J*Man");
+            }
+            return b;
+        }
+    }
+
+    /* Read row y of the level from in and put its pieces on b.  jMan is "J*Man
+     * is already on b", and jColor his color (-1: random).  Yields: "J*Man is
+     * now on b".  (A method of its own, so that it is compiled as such rather
+     * than only replaced on the stack in the middle of load.) */
+    private static boolean readRow(Input in, JManBoard b, int y, boolean jMan, int jColor) throws IOException {
+        int w = b.getWidth();
+        int k = in.next();
+        if (k == -1) {
+            throw in.error("only " + y + " of " + b.getHeight() + " rows");
+        }
+        int x = 0;
+        for (; k != '\n' && k != -1; k = in.next()) {
+            if (k == '\r') continue;
+            int t = k < 128 ? CELL_TYPES[k] : NOT_A_CELL;
+            if (t == NOT_A_CELL) {
+                throw in.error("'" + (char) k + "' is not a cell");
+            } else if (x >= w) {
+                throw in.error("row " + y + " is longer than " + w);
+            } else if (t == Piece.JMAN) {
+                if (jMan) throw in.error("a second J*Man");
+                jMan = true;
+                b.placePiece(t, x, y, jColor == -1 ? b.rand(0, 2) : jColor);
+            } else if (t != BoardCells.EMPTY) {
+                b.placePiece(t, x, y, CELL_COLORS[k]);
+            }
+            x= x+1;
+        }
+        in.endLine();
+        return jMan;
+    }
+
+    /* Yields: the index of v in names.
+     * Throws an IllegalArgumentException if it is not there. */
+    private static int indexOf(String[] names, String v) {
+        int i = Arrays.asList(names).indexOf(v);
+        if (i == -1) throw new IllegalArgumentException(v);
+        return i;
+    }
+
+    /** Write board b to file as a level, replacing whatever was in it.  Only
+      * the cells, J*Man's color and the storage type are written: loaded, the
+      * level is a new game (whose walkers and pillars act in the order of
+      * the rows), not the game in progress on b. */
+    public static void save(JManBoard b, Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.TRUNCATE_EXISTING,
+                                               StandardOpenOption.WRITE)) {
+            BoardFile.Output out = new BoardFile.Output(ch);
+            int w = b.getWidth(), h = b.getHeight();
+            String header = MAGIC + " " + VERSION + "\n"
+                            + "size " + w + " " + h + "\n"
+                            + "storage " + STORAGE_NAMES[b.getStorageType()] + "\n"
+                            + "jman " + COLOR_NAMES[b.getJMan().getColor()] + "\n"
+                            + "board\n";
+            byte[] head = header.getBytes(StandardCharsets.US_ASCII);
+            out.put(head, 0, head.length);
+
+            byte[] row = new byte[w + 1];
+            row[w] = '\n';
+            for (int y= 0; y < h; y= y+1) {
+                for (int x= 0; x < w; x= x+1) {
+                    int t = b.typeAt(x, y);
+                    row[x] = t == BoardCells.EMPTY ? (byte) '.' : CELL_CHARS[4*t + b.colorAt(x, y)];
+                }
+                out.put(row, 0, row.length);
+            }
+            out.flush();
+        }
+    }
+
+    /** Write a random level: "w h bl wa pi file" (see the class comment). */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 6) {
+            System.err.println("Usage: LevelFile w h bl wa pi file");
+            return;
+        }
+        JManBoard b = new JManBoard(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                                    Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                                    Integer.parseInt(args[4]), JManBoard.STORAGE_PRIMITIVE);
+        long start = System.nanoTime();
+        save(b, Paths.get(args[5]));
+        System.out.println("Saved in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        start = System.nanoTime();
+        load(Paths.get(args[5]));
+        System.out.println("Loaded in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /* Reads the bytes of a level file through memory-mapped windows, copied
+     * a block at a time into an array, keeping count of the lines for error
+     * messages. */
+    private static class Input {
+        private FileChannel ch;
+        private String file;          // name of the file
+        private long size;            // size of the file
+        private long start;           // position in the file of the window
+        private MappedByteBuffer map; // the window
+        private byte[] block = new byte[BLOCK_BYTES]; // bytes of the window copied
+        private int pos;              // next byte of block to read
+        private int end;              // # of bytes in block
+        private long lineNumber = 1;  // line of the next byte
+
+        Input(FileChannel ch, String file) throws IOException {
+            this.ch = ch;
+            this.file = file;
+            size = ch.size();
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW_BYTES));
+        }
+
+        /* Yields: the next byte of the file, or -1 at its end. */
+        int next() throws IOException {
+            if (pos == end && !fill()) return -1;
+            int c = block[pos] & 0xFF;
+            pos= pos+1;
+            return c;
+        }
+
+        /* Copy the next bytes of the file into block, mapping the next window
+         * if this one is used up.  Yields: false if the file has ended. */
+        private boolean fill() throws IOException {
+            if (!map.hasRemaining()) {
+                long p = start + map.position();
+                if (p >= size) return false;
+                start = p;
+                map = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, WINDOW_BYTES));
+            }
+            end = Math.min(block.length, map.remaining());
+            map.get(block, 0, end);
+            pos = 0;
+            return true;
+        }
+
+        /* Note that the line just read (up to its '\n') is over. */
+        void endLine() {
+            lineNumber= lineNumber+1;
+        }
+
+        /* Yields: the next line of the file, without its end, or null at the
+         * end of the file. */
+        String line() throws IOException {
+            int c = next();
+            if (c == -1) return null;
+            StringBuilder s = new StringBuilder();
+            for (; c != '\n' && c != -1; c = next()) {
+                if (c != '\r') s.append((char) c);
+            }
+            endLine();
+            return s.toString();
+        }
+
+        /* Yields: an exception saying that the file has what, on the current line. */
+        IOException error(String what) {
+            return new IOException(file + ", line " + lineNumber + ": " + what);
+        }
+
+        /* Yields: an exception saying that the file has what, on the line
+         * last read by line(). */
+        IOException lineError(String what) {
+            return new IOException(file + ", line " + (lineNumber - 1) + ": " + what);
+        }
+    }
+}
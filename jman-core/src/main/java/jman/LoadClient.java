@@ -0,0 +1,223 @@
+package jman;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/** This class is a CONTROLLER class that drives a GameServer with many
+  * simulated players, to measure how many rounds a second it can play and
+  * how long a player waits for each.  Each player has its own connection
+  * and game; it sends a random direction as soon as the reply to the last
+  * one arrives, and starts a new game when one is over.  All of the players
+  * run on one thread, without blocking.
+  *
+  * To run it against a server on this machine:
+  *   java -cp jman-core/target/classes jman.LoadClient --players 2000 --seconds 10
+  * See usage() for all of the options. */
+public class LoadClient {
+
+    private Selector selector;   // tells which players' sockets are ready
+    private String newGame;      // the NEW command of each game, with its line end
+    private JManRandom random = new JManRandom(); // chooses the directions
+    private LatencyHistogram latency = new LatencyHistogram(); // round-trip time of the rounds
+    private long rounds;         // # of rounds played
+    private long games;          // # of games won
+    private int connected;       // # of players connected
+
+    /** Constructor: a client whose players start games with command newGame
+      * (e.g. "NEW" or "NEW 40 40 20 30 10"). */
+    public LoadClient(String newGame) throws IOException {
+        selector = Selector.open();
+        this.newGame = newGame + "\n";
+    }
+
+    /** Connect n players to the server on port of this machine. */
+    public void connect(int port, int n) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        for (int i= 0; i < n; i= i+1) {
+            SocketChannel ch = SocketChannel.open();
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ch.connect(address);
+            ch.register(selector, SelectionKey.OP_CONNECT, new Player(ch));
+        }
+    }
+
+    /** Play until time deadline (from System.nanoTime), printing a report every
+      * second. */
+    public void run(long deadline) throws IOException {
+        long nextReport = System.nanoTime() + 1_000_000_000L;
+        long lastRounds = 0;
+        while (System.nanoTime() < deadline) {
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Player p = (Player) key.attachment();
+                if (key.isConnectable()) {
+                    p.connected(key);
+                } else if (key.isReadable()) {
+                    p.read(key);
+                }
+            }
+            if (System.nanoTime() >= nextReport) {
+                System.out.println(connected + " players, " + (rounds - lastRounds)
+                                   + " rounds/s, round trip: " + latency.report());
+                lastRounds = rounds;
+                nextReport = nextReport + 1_000_000_000L;
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    /** Yields: the round-trip time of the rounds played so far. */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /** Yields: the number of rounds played so far. */
+    public long getRounds() {
+        return rounds;
+    }
+
+    /* One simulated player: a connection, and the time its last command was sent. */
+    private class Player {
+        private SocketChannel channel;
+        private ByteBuffer in = ByteBuffer.allocate(256); // bytes read, not yet handled
+        private long sent;  // when the last command was sent (System.nanoTime)
+
+        Player(SocketChannel ch) {
+            channel = ch;
+        }
+
+        /* The connection is made: start a game. */
+        void connected(SelectionKey key) throws IOException {
+            try {
+                channel.finishConnect();
+            } catch (IOException e) {
+                System.err.println("Cannot connect: " + e.getMessage());
+                key.cancel();
+                channel.close();
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            connected= connected+1;
+            send(newGame);
+        }
+
+        /* Handle the replies that have arrived. */
+        void read(SelectionKey key) throws IOException {
+            if (channel.read(in) < 0) {
+                key.cancel();
+                channel.close();
+                connected= connected-1;
+                return;
+            }
+            int start = 0;
+            for (int i= 0; i < in.position(); i= i+1) {
+                if (in.get(i) == '\n') {
+                    reply(new String(in.array(), start, i - start, StandardCharsets.US_ASCII));
+                    start = i + 1;
+                }
+            }
+            in.limit(in.position()).position(start);
+            in.compact();
+        }
+
+        /* Handle reply line, and send the next command. */
+        private void reply(String line) throws IOException {
+            if (line.startsWith("T ")) {
+                latency.record(System.nanoTime() - sent);
+                rounds= rounds+1;
+                if (line.endsWith(" 0")) {
+                    games= games+1;
+                    send(newGame);
+                    return;
+                }
+            } else if (!line.startsWith("OK")) {
+                System.err.println("Server: " + line);
+            }
+            send("NUDLR".charAt(random.nextInt(0, 4)) + "\n");
+        }
+
+        /* Send command s, which is short enough to go out at once. */
+        private void send(String s) throws IOException {
+            sent = System.nanoTime();
+            ByteBuffer b = ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+            while (b.hasRemaining()) {
+                channel.write(b);
+            }
+        }
+    }
+
+    /* Print how to run this program. */
+    private static void usage() {
+        System.err.println("usage: java jman.LoadClient [options]");
+        System.err.println("  --port p              port of the server (default " + GameServer.DEFAULT_PORT + ")");
+        System.err.println("  --players n           number of players (default 1000)");
+        System.err.println("  --seconds s           how long to play (default 10)");
+        System.err.println("  --game w h bl wa pi   the game each player plays (default: the default game)");
+        System.err.println("  --server threads      also run a server in this process, on threads threads");
+        System.exit(2);
+    }
+
+    /** Run the players given by the options in pars (see usage()). */
+    public static void main(String[] pars) throws IOException {
+        int port = GameServer.DEFAULT_PORT;
+        int players = 1000;
+        int seconds = 10;
+        String newGame = "NEW";
+        int serverThreads = 0;
+        try {
+            for (int i= 0; i < pars.length; i= i+1) {
+                if (pars[i].equals("--port")) {
+                    port = Integer.parseInt(pars[++i]);
+                } else if (pars[i].equals("--players")) {
+                    players = Integer.parseInt(pars[++i]);
+                } else if (pars[i].equals("--seconds")) {
+                    seconds = Integer.parseInt(pars[++i]);
+                } else if (pars[i].equals("--game")) {
+                    newGame = "NEW " + pars[i+1] + " " + pars[i+2] + " " + pars[i+3]
+                              + " " + pars[i+4] + " " + pars[i+5];
+                    i = i + 5;
+                } else if (pars[i].equals("--server")) {
+                    serverThreads = Integer.parseInt(pars[++i]);
+                } else {
+                    usage();
+                }
+            }
+        } catch (RuntimeException e) {
+            usage();
+        }
+
+        GameServer server = null;
+        if (serverThreads > 0) {
+            server = new GameServer(0, serverThreads);
+            port = server.getPort();
+        }
+        LoadClient client = new LoadClient(newGame);
+        client.connect(port, players);
+        long start = System.nanoTime();
+        client.run(start + seconds * 1_000_000_000L);
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d rounds in %.1f s (%.0f rounds/s), %d games won; round trip: %s%n",
+                          client.rounds, secs, client.rounds / secs, client.games,
+                          client.latency.report());
+        if (server != null) {
+            System.out.println("server: " + server.getCommands() + " commands; rounds: "
+                               + server.getLatency().report());
+            server.shutdown();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package jman;
+
+/** This class is a MODEL class; an instance of this class keeps the cells
+  * of a board as a 2-d array of Piece objects.  This is the original way
+  * a JManBoard stored its pieces, and it is still the default.  */
+public class ObjectBoardStorage implements BoardStorage {
+
+    private Piece[][] board;  // 2-d array of Pieces that makes up the game.
+
+    /** Constructor: an empty w x h storage. */
+    public ObjectBoardStorage(int w, int h) {
+        board = new Piece[w][h];
+    }
+
+    public Piece get(int x, int y) {
+        return board[x][y];
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return board[x][y] == null;
+    }
+
+    public void put(Piece p) {
+        board[p.getX()][p.getY()] = p;
+    }
+
+    public void move(int fromX, int fromY, int toX, int toY) {
+        board[toX][toY]= board[fromX][fromY];
+        board[fromX][fromY]= null;
+        board[toX][toY].setX(toX);
+        board[toX][toY].setY(toY);
+    }
+
+    /* The piece object itself holds the color, so there is nothing to do. */
+    public void setColor(int x, int y, int c) {
+    }
+
+    public int getSlot(int x, int y) {
+        Piece p = board[x][y];
+        return p == null ? -1 : p.slot;
+    }
+
+    public void setSlot(int x, int y, int s) {
+        board[x][y].slot = s;
+    }
+}
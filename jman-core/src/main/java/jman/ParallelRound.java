@@ -0,0 +1,171 @@
+package jman;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/** This class is a MODEL class; an instance of this class plays the part of
+  * a round in which the walkers and pillars of a board act, on the threads
+  * of a ForkJoinPool.
+  *
+  * The board is cut into stripes of STRIPE_HEIGHT rows.  A piece acts with
+  * the stripe it is in when the round starts, and the pieces of a stripe
+  * act one at a time, in the order of their slots in the actor index, with
+  * random choices drawn from a generator of that stripe; as in
+  * JManBoard.act(), only the pieces that do something are visited, with the
+  * gaps between them drawn from the geometric distribution.  A walker moves at
+  * most one row, so two stripes that are not next to each other never touch
+  * the same cell: first the even stripes act, in parallel, and then the odd
+  * ones.  Hence the result depends only on the seed of the round, not on
+  * the number of threads, and no locks are needed. */
+class ParallelRound {
+
+    /** Number of rows in a stripe; at least 2, so that the pieces of stripes
+      * k and k+2 cannot move into the same row. */
+    static final int STRIPE_HEIGHT = 32;
+    /** Number of slots sorted by one task when the pieces are put in stripes. */
+    private static final int SORT_CHUNK = 1 << 14;
+
+    private JManBoard board;      // the board played
+    private BoardStorage storage; // its storage
+    private ActorIndex actors;    // its walkers and pillars
+    private int stripes;          // number of stripes
+    private int[] starts;         // order[starts[k]..starts[k+1]-1] are the slots of stripe k
+    private int[] order = new int[0]; // slots of the pieces, stripe by stripe
+    private ChangedCells[] changes;   // cells changed by each stripe this round
+
+    /** Constructor: rounds of board b, whose pieces are kept in s and whose
+      * walkers and pillars are in a. */
+    ParallelRound(JManBoard b, BoardStorage s, ActorIndex a) {
+        board = b;
+        storage = s;
+        actors = a;
+        stripes = (b.getHeight() + STRIPE_HEIGHT - 1) / STRIPE_HEIGHT;
+        starts = new int[stripes + 1];
+        changes = new ChangedCells[stripes];
+        for (int k= 0; k < stripes; k= k+1) {
+            changes[k] = new ChangedCells();
+        }
+    }
+
+    /** Make every walker and pillar act once, with the random choices of the
+      * round made from seed.  If pool is null the stripes act one after the
+      * other, with the same result.  If record, the cells changed by each
+      * stripe are recorded in getChanges(k). */
+    void play(ForkJoinPool pool, long seed, boolean record) {
+        sortIntoStripes(pool);
+        for (int phase= 0; phase < 2; phase= phase+1) {
+            int first = phase;
+            forEach(pool, (stripes - first + 1) / 2, i -> playStripe(first + 2*i, seed, record));
+        }
+    }
+
+    /** Yields: the number of stripes. */
+    int getStripes() {
+        return stripes;
+    }
+
+    /** Yields: the cells changed by stripe k in the last round played with record. */
+    ChangedCells getChanges(int k) {
+        return changes[k];
+    }
+
+    /* Make the pieces of stripe k act. */
+    private void playStripe(int k, long seed, boolean record) {
+        JManRandom r = new JManRandom(seed + k);
+        ChangedCells log = changes[k];
+        log.clear();
+        int end = starts[k+1];
+        for (int i= starts[k] + r.nextGeometric(Piece.ACTION_ODDS); i < end;
+             i= i + 1 + r.nextGeometric(Piece.ACTION_ODDS)) {
+            int s = order[i];
+            int x = actors.getX(s), y = actors.getY(s);
+            if (!record) {
+                storage.get(x, y).takeAction(board, r);
+                continue;
+            }
+            int color = board.colorAt(x, y);
+            storage.get(x, y).takeAction(board, r);
+            int xx = actors.getX(s), yy = actors.getY(s);
+            if (xx != x || yy != y) {
+                log.add(x, y);
+                log.add(xx, yy);
+            } else if (board.colorAt(x, y) != color) {
+                log.add(x, y);
+            }
+        }
+    }
+
+    /* Put the slots of the actor index in order, stripe by stripe, and in
+     * the order of the slots within a stripe (a counting sort, done in
+     * chunks of SORT_CHUNK slots in parallel). */
+    private void sortIntoStripes(ForkJoinPool pool) {
+        int n = actors.size();
+        if (order.length < n) {
+            order = new int[Math.max(n, 2*order.length)];
+        }
+        int chunks = (n + SORT_CHUNK - 1) / SORT_CHUNK;
+        int[][] counts = new int[chunks][stripes];
+
+        // Count the pieces of each chunk in each stripe.
+        forEach(pool, chunks, c -> {
+            int[] count = counts[c];
+            int end = Math.min(n, (c+1) * SORT_CHUNK);
+            for (int s= c * SORT_CHUNK; s < end; s= s+1) {
+                count[actors.getY(s) / STRIPE_HEIGHT]++;
+            }
+        });
+
+        // Turn the counts into the place of the first piece of each chunk in each stripe.
+        int place = 0;
+        for (int k= 0; k < stripes; k= k+1) {
+            starts[k] = place;
+            for (int c= 0; c < chunks; c= c+1) {
+                int count = counts[c][k];
+                counts[c][k] = place;
+                place = place + count;
+            }
+        }
+        starts[stripes] = place;
+
+        forEach(pool, chunks, c -> {
+            int[] next = counts[c];
+            int end = Math.min(n, (c+1) * SORT_CHUNK);
+            for (int s= c * SORT_CHUNK; s < end; s= s+1) {
+                order[next[actors.getY(s) / STRIPE_HEIGHT]++] = s;
+            }
+        });
+    }
+
+    /* Call f on 0..n-1, on the threads of pool, or on this thread if pool is null. */
+    private static void forEach(ForkJoinPool pool, int n, IntConsumer f) {
+        if (pool == null || n <= 1) {
+            for (int i= 0; i < n; i= i+1) {
+                f.accept(i);
+            }
+        } else {
+            pool.invoke(new ForEach(f, 0, n));
+        }
+    }
+
+    /* A task that calls f on lo..hi-1, splitting the range in halves. */
+    private static class ForEach extends RecursiveAction {
+        private IntConsumer f;
+        private int lo, hi;
+
+        ForEach(IntConsumer f, int lo, int hi) {
+            this.f = f;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo == 1) {
+                f.accept(lo);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ForEach(f, lo, mid), new ForEach(f, mid, hi));
+            }
+        }
+    }
+}
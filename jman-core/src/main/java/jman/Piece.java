@@ -0,0 +1,172 @@
+package jman;
+
+/** This class is a MODEL class; an instance of this class represents
+  * a board piece, storing data such as the piece type, the current 
+  * position and the color.  The most important method in this class 
+  * is act(), which is used to update the state of the model at each 
+  * time the user hits a button. This methods requires a JManBoard 
+  * parameter so that our actions can take place in the context of 
+  * the larger gameboard.
+  * Note also that act() is an abstract method.  We cannot tell
+  * how a piece is actually going to act until we know what type
+  * it is.  This illustrates the importance of an abstract class.
+  */
+public abstract class Piece {
+    
+    /** Constant used to identify a Block. */
+    public static final int BLOCK= 0;  // piece is a block
+    /** Constant used to identify J*man. */
+    public static final int JMAN= 1;   // piece is the J*man
+    /** Constant used to identify a Walker. */
+    public static final int WALKER= 2; // piece is a walker
+    /** Constant used to identify a Pillar. */
+    public static final int PILLAR= 3; // piece is a pillar
+
+    /** Constants used to identify a color compactly (e.g. in primitive
+      * board storage). The first three match the int color arguments
+      * of the Walker, Pillar and J*Man constructors. */
+    public static final int RED= 0;    // red
+    public static final int GREEN= 1;  // green
+    public static final int YELLOW= 2; // yellow
+    public static final int WHITE= 3;  // white (blocks only)
+
+    /** A walker or pillar does something in a round with probability
+      * 1/ACTION_ODDS, and nothing otherwise. */
+    public static final int ACTION_ODDS= 3;
+
+    /* The capitalized word for each color code. */
+    private static final String[] COLOR_WORDS= {"Red", "Green", "Yellow", "White"};
+
+    /* CAPTURES[(e << 2) | c] is "a J*Man of color e can capture a piece of
+     * color c": green captures red, red captures yellow and yellow captures
+     * green. */
+    private static final boolean[] CAPTURES= new boolean[16];
+    /* PREY[e] is the color a J*Man of color e can capture (-1 if none). */
+    private static final int[] PREY= {-1, -1, -1, -1};
+    static {
+        CAPTURES[(GREEN << 2) | RED]= true;
+        CAPTURES[(RED << 2) | YELLOW]= true;
+        CAPTURES[(YELLOW << 2) | GREEN]= true;
+        for (int i= 0; i < CAPTURES.length; i= i+1) {
+            if (CAPTURES[i]) PREY[i >> 2]= i & 3;
+        }
+    }
+
+    /* class invariants that define properties of a Piece instance */
+    int type;               // 0 - block, 1 - Jman, 2 - walker, 3 - pillar
+    int x;                  // x coordinate
+    int y;                  // y coordinate
+    int color;              // color code of the piece (RED, GREEN, YELLOW or WHITE)
+    boolean acted = false;  // whether the piece has acted in current around
+    JManBoard board = null; // board told about color changes (null if none)
+    int slot = -1;          // slot in the board's ActorIndex (-1 if none)
+        
+    /** Constructor: a Piece whose fields are the default values.  This
+      * is a dummy constructor so that the application will compile
+      * the first time you try it.  You are free to (and should) remove 
+      * this constructor once the other two are working.  
+    public Piece() {
+    }                                                  */
+    
+    /** Constructor: a Piece with type t and color c, to be placed on board at
+      * the position (x, y)
+      * Precondition: t is one of the four constants of this class:
+      * BLOCK, JMAN, WALKER, or PILLAR. (x, y) is a nonnegative position, and 
+      * c is one of the color codes RED, GREEN, YELLOW and WHITE */
+    public Piece(int t, int x, int y, int c) {
+        type = t;
+        this.x = x;
+        this.y = y;
+        color = c;
+    }
+
+    /** Yields: this piece's type, either BLOCK, JMAN, WALKER, or PILLAR. */
+    public int getType() {
+        return type;
+    }
+
+    /** Yields: this piece's x location on the board. */
+    public int getX() {
+        return x;
+    }
+
+    /** Set this piece's x location on the board to x. */
+    public void setX(int x) {
+        this.x = x;
+    }
+
+    /** Yields: this piece's y location on the board. */
+    public int getY() {
+        return y;
+    }
+
+    /** Set this piece's y location on the board to y. */
+    public void setY(int y) {
+        this.y = y;
+    }
+
+    /** Yields: this piece's color code, one of RED, GREEN, YELLOW and WHITE. */
+    public int getColor() {
+        return color;
+    }
+
+    /** Set this piece's color code to c.
+      * Precondition: c is WHITE and this is a block, OR
+      * c is RED, GREEN, or YELLOW. */
+    public void setColor(int c) {
+        int old = color;
+        color = c;
+        if (board != null && c != old) board.colorChanged(this, old);
+    }
+
+    /** Yields: the color of this piece, as a capitalized word (e.g. "Red"). */
+    public String getColorWord() {
+        return COLOR_WORDS[color];
+    }
+
+    /** Yields: "a J*Man of color code e can capture a piece of color code c".
+      * Precondition: e and c are among RED, GREEN, YELLOW and WHITE. */
+    public static boolean canCapture(int e, int c) {
+        return CAPTURES[(e << 2) | c];
+    }
+
+    /** Yields: the color code of the pieces a J*Man of color code e can
+      * capture, or -1 if it can capture none. */
+    public static int preyOf(int e) {
+        return PREY[e];
+    }
+
+    /** Yields: "This piece has already acted this round". */
+    public boolean hasActed() {
+        return acted;
+    }
+
+    /** Set the state of this piece to the value of acted.*/
+    public void setActed(boolean acted) {
+        this.acted = acted;
+    }
+
+    /** Make this piece take one action on the provided board.
+      * What a piece does on its action is defined in the instructions. 
+      * Precondition: The provided board includes this piece at position (x,y).    
+      */
+    public abstract void act(JManBoard board);
+
+    /** Make this piece take one action on the provided board, as act(board)
+      * does, but with its random choices drawn from r instead of from the
+      * board's generator (e.g. in a round played in parallel).
+      * Precondition: The provided board includes this piece at position (x,y). */
+    public void act(JManBoard board, JManRandom r) {
+        act(board);
+    }
+
+    /** Make this piece do what it does in a round in which it does something
+      * (a walker steps, a pillar chooses a color), with its random choices
+      * drawn from r: act(board, r) without the roll of the die that decides
+      * whether it does anything.  A board that has already rolled that die
+      * (see JManBoard.act()) calls this instead.  Does nothing by default.
+      * Precondition: The provided board includes this piece at position (x,y). */
+    public void takeAction(JManBoard board, JManRandom r) {
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package jman;
+
+/** This class is a MODEL class; an instance of this class represents
+  * a Pillar, storing data such as current position and color.
+  * However, this class does have one method that provides CONTROLLER
+  * functionality -- the method act().   */
+  
+public class Pillar extends Piece {
+
+    /** Constructor: a new Pillar at position (x, y) with given color code c.
+      * Precondition: (x, y) is a nonnegative coordinate and c is one of
+      * Piece.RED (0), Piece.GREEN (1) and Piece.YELLOW (2).     */
+    public Pillar(int x, int y, int c) {
+        super(Piece.PILLAR, x, y, c);
+    }
+
+    /** Yields: representation of this piece */
+    public String toString() {
+        String color= "";
+        return getColorWord() + " Pillar at (" + getX() + ", " + getY() + ")";
+    }
+
+    /** a pillar has 1/3 probability of choosing a color again,
+      * which may be the same as old color      */
+    public void act(JManBoard board) {
+        act(board, board.getRandom());
+    }
+
+    /** a pillar has 1/3 probability of choosing a color again, with the
+      * choices drawn from rand */
+    public void act(JManBoard board, JManRandom rand) {
+        int r = rand.nextInt(0, 2);
+        if (r == 0) {
+            takeAction(board, rand);
+        }
+    }
+
+    /** the pillar chooses its color again with rand, which may be the same
+      * as the old color */
+    public void takeAction(JManBoard board, JManRandom rand) {
+        int c = rand.nextInt(0, 2);
+        if (GameMetrics.ENABLED && c != color) GameMetrics.pillarRecolored();
+        setColor(c);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package jman;
+
+import java.util.Arrays;
+
+/** This class is a MODEL class; an instance of this class keeps the cells
+  * of a board in flat primitive arrays instead of Piece objects.  Cell
+  * (x, y) is element y*width + x (row-major) of two byte arrays that hold
+  * its type and its color code, and of an int array that holds the slot
+  * of its piece in the board's ActorIndex.  A w x h board then costs
+  * 6*w*h bytes, with no object per piece.
+  * Pieces other than J*Man are not stored as objects at all: get() yields
+  * a new Piece that is a view of the cell, whose color changes are written
+  * back through the board.  J*Man is kept as the one board object. */
+public class PrimitiveBoardStorage implements BoardStorage {
+
+    /** Value of a cell of types that contains no piece. */
+    private static final byte EMPTY = -1;
+
+    private JManBoard board;  // the board whose views are created
+    private int width;        // width of the game board in tiles.
+    private byte[] types;     // piece type of each cell, or EMPTY
+    private byte[] colors;    // color code (Piece.RED, ...) of each cell
+    private int[] slots;      // ActorIndex slot of each cell, or -1
+    private JMan jMan;        // the J*Man piece, if it has been put
+
+    /** Constructor: an empty w x h storage for board b. */
+    public PrimitiveBoardStorage(JManBoard b, int w, int h) {
+        board  = b;
+        width  = w;
+        types  = new byte[w*h];
+        colors = new byte[w*h];
+        slots  = new int[w*h];
+        Arrays.fill(types, EMPTY);
+        Arrays.fill(slots, -1);
+    }
+
+    /** Yields: the type of each cell (row-major), e.g. to be saved or
+      * loaded in bulk by BoardFile. */
+    byte[] types() {
+        return types;
+    }
+
+    /** Yields: the color code of each cell (row-major). */
+    byte[] colors() {
+        return colors;
+    }
+
+    public Piece get(int x, int y) {
+        int k = y*width + x;
+        int t = types[k];
+        if (t == EMPTY) return null;
+        if (t == Piece.JMAN) return jMan;
+
+        int c = colors[k];
+        Piece p;
+        if (t == Piece.BLOCK) p = new Block(x, y);
+        else if (t == Piece.WALKER) p = new Walker(x, y, c);
+        else p = new Pillar(x, y, c);
+        p.board = board;
+        return p;
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return types[y*width + x] == EMPTY;
+    }
+
+    public int typeAt(int x, int y) {
+        return types[y*width + x];
+    }
+
+    public int colorAt(int x, int y) {
+        return colors[y*width + x];
+    }
+
+    public void put(Piece p) {
+        int k = p.getY()*width + p.getX();
+        types[k]  = (byte) p.getType();
+        colors[k] = (byte) p.getColor();
+        slots[k]  = -1;
+        if (p.getType() == Piece.JMAN) jMan = (JMan) p;
+    }
+
+    public void move(int fromX, int fromY, int toX, int toY) {
+        int from = fromY*width + fromX;
+        int to   = toY*width + toX;
+        types[to]  = types[from];
+        colors[to] = colors[from];
+        slots[to]  = slots[from];
+        types[from]  = EMPTY;
+        colors[from] = 0;
+        slots[from]  = -1;
+        if (types[to] == Piece.JMAN) {
+            jMan.setX(toX);
+            jMan.setY(toY);
+        }
+    }
+
+    public void setColor(int x, int y, int c) {
+        colors[y*width + x] = (byte) c;
+    }
+
+    public int getSlot(int x, int y) {
+        return slots[y*width + x];
+    }
+
+    public void setSlot(int x, int y, int s) {
+        slots[y*width + x] = s;
+    }
+}
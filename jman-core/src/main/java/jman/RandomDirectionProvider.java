@@ -0,0 +1,16 @@
+package jman;
+
+/** This class is a CONTROLLER class; an instance of this class moves
+  * J*Man in a random direction every round, with all four directions
+  * being equally likely. */
+public class RandomDirectionProvider implements DirectionProvider {
+
+    public int nextDirection(JManBoard b) {
+        return b.rand(JManBoard.MOVE_UP, JManBoard.MOVE_RIGHT);
+    }
+
+    /** Yields: representation of this policy */
+    public String toString() {
+        return "random";
+    }
+}
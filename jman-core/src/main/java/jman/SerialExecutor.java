@@ -0,0 +1,62 @@
+package jman;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/** An instance of this class runs the tasks given to it one at a time, in
+  * the order given, on the threads of another executor; e.g. so that the
+  * commands of one game session never run at the same time, while thousands
+  * of sessions share a few threads.  No thread is tied to an instance: while
+  * it has no tasks it costs nothing but its (empty) queue.  A task that
+  * throws does not stop the tasks given after it; the exception is not
+  * caught, so tasks should report their own errors. */
+public class SerialExecutor implements Executor {
+
+    /* Most tasks run in a row before the thread is given back to other
+     * executors, so that a busy session cannot starve the others. */
+    private static final int BATCH = 64;
+
+    private Executor threads;  // runs the tasks
+    private ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>(); // tasks not yet started
+    private boolean active;    // "a task of this executor is queued on or running on threads"
+
+    /** Constructor: an executor that runs its tasks on threads. */
+    public SerialExecutor(Executor threads) {
+        this.threads = threads;
+    }
+
+    /** Run task after all the tasks given before it have run. */
+    public void execute(Runnable task) {
+        synchronized (this) {
+            tasks.add(task);
+            if (active) return;
+            active = true;
+        }
+        threads.execute(this::drain);
+    }
+
+    /* Run the queued tasks until there are none, or BATCH of them and then
+     * queue this again.  Runs on one of threads, and only one drain of an
+     * executor runs at a time.  If a task throws, this is queued again
+     * before the exception or error goes on to the thread (as with any
+     * executor), so the tasks after it still run. */
+    private void drain() {
+        boolean more = true;  // "drain must be queued again"
+        try {
+            for (int i= 0; i < BATCH; i= i+1) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        active = false;
+                        more = false;
+                        return;
+                    }
+                }
+                task.run();
+            }
+        } finally {
+            if (more) threads.execute(this::drain);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package jman;
+
+import java.util.SplittableRandom;
+
+/** This class describes one kind of game to be played by a BatchSimulator:
+  * the size of the board, the number of each piece, how J*Man moves and
+  * for how many rounds a game lasts at most.  Game number k of a batch is
+  * played on a board seeded with getSeed() + k, so a batch with the same
+  * configuration and seed plays the same games, on any number of threads. */
+public class SimulationConfig {
+
+    private int width   = JManBoard.DEFAULT_WIDTH;   // width of each board
+    private int height  = JManBoard.DEFAULT_HEIGHT;  // height of each board
+    private int blocks  = JManBoard.DEFAULT_BLOCKS;  // # of blocks on each board
+    private int walkers = JManBoard.DEFAULT_WALKERS; // # of walkers on each board
+    private int pillars = JManBoard.DEFAULT_PILLARS; // # of pillars on each board
+    private int storage = JManBoard.STORAGE_OBJECTS; // how each board stores its pieces
+    private DirectionProvider policy = new RandomDirectionProvider(); // moves J*Man
+    private long ticks  = 1000;  // most rounds played in one game
+    private long seed   = new SplittableRandom().nextLong(); // seed of game 0
+
+    /** Constructor: the default 20 x 20 game with 20 blocks, 10 walkers
+      * and 10 pillars, in which J*Man moves randomly for 1000 rounds. */
+    public SimulationConfig() {
+    }
+
+    /** Constructor: a w x h game with bl blocks, wa walkers, and pi pillars,
+      * in which J*Man is moved by policy for at most t rounds.
+      * Precondition: number of pieces specified is < h*w. */
+    public SimulationConfig(int w, int h, int bl, int wa, int pi,
+                            DirectionProvider policy, long t) {
+        width   = w;
+        height  = h;
+        blocks  = bl;
+        walkers = wa;
+        pillars = pi;
+        this.policy = policy;
+        ticks   = t;
+    }
+
+    /** Yields: the width of each board in grid squares */
+    public int getWidth() {
+        return width;
+    }
+
+    /** Yields: the height of each board in grid squares */
+    public int getHeight() {
+        return height;
+    }
+
+    /** Yields: the number of blocks on each new board */
+    public int getBlocks() {
+        return blocks;
+    }
+
+    /** Yields: the number of walkers on each new board */
+    public int getWalkers() {
+        return walkers;
+    }
+
+    /** Yields: the number of pillars on each new board */
+    public int getPillars() {
+        return pillars;
+    }
+
+    /** Yields: how each board stores its pieces, one of the JManBoard
+      * constants STORAGE_OBJECTS, STORAGE_PRIMITIVE and STORAGE_CHUNKED. */
+    public int getStorage() {
+        return storage;
+    }
+
+    /** Set how each board stores its pieces to s.
+      * Precondition: s is one of the JManBoard storage constants. */
+    public void setStorage(int s) {
+        storage = s;
+    }
+
+    /** Yields: the policy that moves J*Man */
+    public DirectionProvider getPolicy() {
+        return policy;
+    }
+
+    /** Yields: the most rounds played in one game */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /** Yields: the seed of the board of game 0 */
+    public long getSeed() {
+        return seed;
+    }
+
+    /** Set the seed of the board of game 0 to seed. */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /** Yields: a new board for game number game of this configuration. */
+    public JManBoard newBoard(int game) {
+        return new JManBoard(width, height, blocks, walkers, pillars, storage, seed + game);
+    }
+
+    /** Yields: representation of this configuration */
+    public String toString() {
+        return width + "x" + height + " blocks=" + blocks + " walkers=" + walkers
+            + " pillars=" + pillars + " policy=" + policy + " ticks=" + ticks + " seed=" + seed;
+    }
+}
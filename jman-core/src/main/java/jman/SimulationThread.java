@@ -0,0 +1,344 @@
+package jman;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/** This class is a CONTROLLER class; an instance of this class is a thread
+  * that owns a JManBoard and plays the game on it, so that a slow round
+  * does not hold up the Swing event dispatch thread.  Other threads give it
+  * commands (a direction to move in, or a new game) through a queue, and
+  * read the board only through the BoardSnapshots it publishes after each
+  * round.
+  *
+  * By default a round is played for each move.  After startRealTime(), rounds
+  * are instead played at a fixed rate whatever the input, and moves are
+  * queued for the next round.
+  *
+  * play(n, p) plays n rounds in one batch, and startFastForward(p) plays
+  * batches back to back until stopFastForward(); either way the board is
+  * published once per batch, not once per round.
+  *
+  * A game started with newGame(maker, journal) is recorded in the journal,
+  * round by round, until the next game starts or the thread stops.
+  *
+  * After spectate(s), every round (and every undo, redo, and new game) is
+  * also sent to the FrameStream s, e.g. for a viewer in another process. */
+public class SimulationThread extends Thread {
+
+    /** Time a batch of rounds takes in fast-forward mode, in ns: about a
+      * frame, so that the view is drawn at most once per frame. */
+    public static final long FAST_FORWARD_NANOS = 1_000_000_000L / 60;
+    /** Rounds played between looks at the clock in fast-forward mode. */
+    public static final int FAST_FORWARD_CHUNK = 64;
+
+    private BlockingQueue<Runnable> commands = new LinkedBlockingQueue<Runnable>(); // commands not yet run
+    private JManBoard board;          // the board; used only by this thread once started
+    private SnapshotBuffer snapshots; // copies of the board for other threads
+    private Consumer<int[]> afterRound; // told about the cells changed by each command
+    private volatile boolean running = true; // "this thread should keep taking commands"
+    private GameJournal journal;      // records the game (null if it is not recorded)
+    private FrameStream frames;       // sends the rounds to spectators (null if none)
+    private volatile DirectionProvider fastForward; // moves J*Man in fast-forward mode (null if not in it)
+    private boolean batchQueued;      // "a fastForwardBatch is queued"
+
+    // In real-time mode: the clock that queues a tick every period, the
+    // directions given since the last tick, "a tick is queued but has not
+    // started", and the statistics of the ticks.  clock is null otherwise.
+    private volatile ScheduledExecutorService clock;
+    private ConcurrentLinkedQueue<Integer> moves = new ConcurrentLinkedQueue<Integer>();
+    private AtomicBoolean tickQueued = new AtomicBoolean();
+    private TickStats stats;
+
+    /** Constructor: a thread that plays the game on board b once started.
+      * After each command it calls afterRound, on this thread, with the cells
+      * that changed as pairs x0, y0, x1, y1, ... (or null if the whole board
+      * may have changed, e.g. there is a new game).  The board must not be used by
+      * any other thread from now on. */
+    public SimulationThread(JManBoard b, Consumer<int[]> afterRound) {
+        super("J*Man simulation");
+        setDaemon(true);
+        board = b;
+        snapshots = new SnapshotBuffer(b);
+        this.afterRound = afterRound;
+    }
+
+    /** Yields: the buffer through which the board can be read. */
+    public SnapshotBuffer getSnapshots() {
+        return snapshots;
+    }
+
+    /** Queue a round in which J*Man moves in direction d; in real-time mode,
+      * queue d for the next tick instead.
+      * Precondition: d is one of the constants MOVE_UP, MOVE_DOWN,
+      * MOVE_LEFT, and MOVE_RIGHT of JManBoard. */
+    public void move(int d) {
+        if (clock != null) {
+            moves.add(d);
+            return;
+        }
+        commands.add(() -> {
+            board.changeJManDirection(d);
+            play();
+        });
+    }
+
+    /** Queue n rounds in which J*Man moves in the direction chosen by p
+      * before each, played in one batch (see JManBoard.act(n, p)), e.g. for
+      * a script or a bot; the board is published once, after the last round.
+      * The batch stops early if the game is over. */
+    public void play(long n, DirectionProvider p) {
+        commands.add(() -> {
+            playBatch(n, p);
+            publish();
+        });
+    }
+
+    /** Switch to fast-forward mode: from now on, until stopFastForward(),
+      * play rounds in which J*Man moves in the direction chosen by p before
+      * each, back to back, in batches of about FAST_FORWARD_NANOS, and
+      * publish the board once per batch.  Commands queued meanwhile are run
+      * between batches.  Fast-forward stops by itself when the game is over
+      * or a new game starts; it is ignored in real-time mode. */
+    public void startFastForward(DirectionProvider p) {
+        commands.add(() -> fastForward(p));
+    }
+
+    /** Queue the end of fast-forward mode. */
+    public void stopFastForward() {
+        commands.add(() -> fastForward = null);
+    }
+
+    /** Queue a switch of fast-forward mode: stop it if it is on when the
+      * command is run, and otherwise start it with p (see startFastForward). */
+    public void toggleFastForward(DirectionProvider p) {
+        commands.add(() -> {
+            if (fastForward != null) {
+                fastForward = null;
+            } else {
+                fastForward(p);
+            }
+        });
+    }
+
+    /** Yields: "the game is in fast-forward mode" (as of the last command run). */
+    public boolean isFastForward() {
+        return fastForward != null;
+    }
+
+    /* Start fast-forward mode with p, unless in real-time mode.  A batch is
+     * queued only if none is, so that stopping and starting again while a
+     * batch is queued does not start a second chain of batches. */
+    private void fastForward(DirectionProvider p) {
+        if (clock != null) return;
+        fastForward = p;
+        if (!batchQueued) {
+            batchQueued = true;
+            commands.add(this::fastForwardBatch);
+        }
+    }
+
+    /* Play a batch of rounds in fast-forward mode, and queue the next one. */
+    private void fastForwardBatch() {
+        batchQueued = false;
+        if (fastForward == null) return;
+        long end = System.nanoTime() + FAST_FORWARD_NANOS;
+        do {
+            playBatch(FAST_FORWARD_CHUNK, fastForward);
+        } while (!board.isGameOver() && System.nanoTime() < end);
+        publish();
+        if (board.isGameOver()) {
+            fastForward = null;
+        } else {
+            batchQueued = true;
+            commands.add(this::fastForwardBatch);
+        }
+    }
+
+    /* Play at most n rounds in which J*Man moves as p chooses, in a batch,
+     * stopping early if the game is over; record them if the game is
+     * recorded (one by one, until the journal stops). */
+    private void playBatch(long n, DirectionProvider p) {
+        long i = 0;
+        while (journal != null && i < n && !board.isGameOver()) {
+            board.changeJManDirection(p.nextDirection(board));
+            board.act();
+            record();
+            i= i+1;
+        }
+        if (i < n) board.act(n - i, p);
+    }
+
+    /** Queue the undoing of the last round played, if the board records its
+      * history (see JManBoard.undo).  A game recorded in a journal is not
+      * recorded any further. */
+    public void undo() {
+        commands.add(() -> {
+            if (board.undo()) {
+                endJournal();
+                publish();
+            }
+        });
+    }
+
+    /** Queue the redoing of the last round undone (see JManBoard.redo). */
+    public void redo() {
+        commands.add(() -> {
+            if (board.redo()) {
+                publish();
+            }
+        });
+    }
+
+    /** Queue the start of a new game on the board made by maker, which is
+      * called on this thread. */
+    public void newGame(Supplier<JManBoard> maker) {
+        newGame(maker, null);
+    }
+
+    /** Queue the start of a new game on the board made by maker, which is
+      * called on this thread, recorded in journal (not recorded if journal is
+      * null).  The board must be made by journal.newBoard(); this thread
+      * closes the journal when the game is over. */
+    public void newGame(Supplier<JManBoard> maker, GameJournal journal) {
+        commands.add(() -> {
+            endJournal();
+            fastForward = null;
+            board = maker.get();
+            this.journal = journal;
+            snapshots.setBoard(board);
+            if (frames != null) frames.setBoard(board);
+            afterRound.accept(null);
+        });
+    }
+
+    /** Queue the start of sending the game, from its current round on, to
+      * the spectators of a stream made by maker, which is called on this
+      * thread with the board.  The stream is closed when the thread stops. */
+    public void spectate(Function<JManBoard, FrameStream> maker) {
+        commands.add(() -> frames = maker.apply(board));
+    }
+
+    /** Stop this thread once the commands queued so far have been run. */
+    public void shutdown() {
+        if (clock != null) {
+            clock.shutdown();
+        }
+        commands.add(() -> {
+            endJournal();
+            endFrames();
+            running = false;
+        });
+    }
+
+    /** Switch to real-time mode: from now on play ticksPerSecond rounds a
+      * second, whatever the input.  In each round J*Man moves in the last
+      * direction queued since the round before, or stays put if there is
+      * none.  Deadlines are fixed from the first tick, so a slow round delays
+      * the next one but does not shift the ones after it; if a round is
+      * still waiting to start when the next deadline comes, that deadline
+      * is skipped rather than queued.  Yields: the statistics of the ticks.
+      * Precondition: ticksPerSecond > 0, and this method was not called before. */
+    public TickStats startRealTime(int ticksPerSecond) {
+        long period = 1_000_000_000L / ticksPerSecond;
+        stats = new TickStats(period);
+        clock = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "J*Man clock");
+            t.setDaemon(true);
+            return t;
+        });
+        long[] next = {0};  // deadline of the next tick (0: not yet fixed); used only by the clock
+        clock.scheduleAtFixedRate(() -> {
+            if (next[0] == 0) {
+                next[0] = System.nanoTime();
+            }
+            long deadline = next[0];
+            next[0] = next[0] + period;
+            if (tickQueued.compareAndSet(false, true)) {
+                commands.add(() -> tick(deadline));
+            } else {
+                stats.tickSkipped();
+            }
+        }, 0, period, TimeUnit.NANOSECONDS);
+        return stats;
+    }
+
+    /* Play one real-time round, whose deadline was deadline. */
+    private void tick(long deadline) {
+        long t0 = System.nanoTime();
+        tickQueued.set(false);
+        int d = JManBoard.MOVE_NONE;
+        for (Integer m = moves.poll(); m != null; m = moves.poll()) {
+            d = m;
+        }
+        board.changeJManDirection(d);
+        play();
+        stats.tickPlayed(t0 - deadline, System.nanoTime() - t0);
+    }
+
+    /* Play a round in the direction already given, record it, and publish it. */
+    private void play() {
+        board.act();
+        record();
+        publish();
+    }
+
+    /* Record the round just played in the journal, if the game is recorded. */
+    private void record() {
+        if (journal == null) return;
+        try {
+            journal.recordRound(board);
+        } catch (IOException e) {
+            System.err.println("Recording stopped: " + e);
+            endJournal();
+        }
+    }
+
+    /* Send the rounds played since the last call to the spectators, publish
+     * the board, and tell afterRound what changed. */
+    private void publish() {
+        if (frames != null) frames.endRound();
+        afterRound.accept(snapshots.publish());
+    }
+
+    /* Close the stream of frames to spectators, if there is one. */
+    private void endFrames() {
+        if (frames == null) return;
+        try {
+            frames.close();
+        } catch (IOException e) {
+            System.err.println("Spectator stream not closed: " + e);
+        }
+        frames = null;
+    }
+
+    /* Close the journal of the game, if it is recorded. */
+    private void endJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Recording not closed: " + e);
+        }
+        journal = null;
+    }
+
+    /** Run the queued commands in order until shutdown. */
+    public void run() {
+        try {
+            while (running) {
+                commands.take().run();
+            }
+        } catch (InterruptedException e) {
+            // Stop playing.
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package jman;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/** An instance of this class lets one thread play a game on a JManBoard
+  * while one other thread (e.g. the Swing event dispatch thread) draws it,
+  * without locks and without ever seeing a round half done.
+  * The playing thread calls publish() after each round; the drawing thread
+  * calls acquire() to get the latest BoardSnapshot and release() when it is
+  * done with it.  Three snapshots are used in turn: the latest one, the one
+  * being read, and one being brought up to date.  A snapshot is brought up
+  * to date by copying only the cells that changed since it was last
+  * published, so publishing costs time proportional to the changes.  If
+  * more changes than the board has cells are recorded between two
+  * publications (e.g. many rounds played in a batch), they are dropped and
+  * the next snapshot is copied in full instead. */
+public class SnapshotBuffer implements BoardListener {
+
+    private JManBoard board;                 // the board copied
+    private BoardSnapshot[] snapshots = new BoardSnapshot[3];
+    private volatile BoardSnapshot latest;   // the last snapshot published
+    private AtomicReference<BoardSnapshot> reading = new AtomicReference<BoardSnapshot>();
+    private long version;                    // # of publications so far
+
+    // Cells changed in each of the last two publications and since the last one.
+    private ChangedCells[] recent = {new ChangedCells(), new ChangedCells()};
+    private ChangedCells pending = new ChangedCells();
+    private boolean overflow;                // "pending was dropped: copy every cell"
+
+    /** Constructor: a buffer of board b, which publishes its first snapshot
+      * at once.  Must be called on the thread that plays the game. */
+    public SnapshotBuffer(JManBoard b) {
+        setBoard(b);
+    }
+
+    /** Copy board b from now on instead of the current board, and publish
+      * a snapshot of it.  Must be called on the thread that plays the game. */
+    public void setBoard(JManBoard b) {
+        if (board != null) {
+            board.removeBoardListener(this);
+        }
+        board = b;
+        board.addBoardListener(this);
+        for (int i= 0; i < snapshots.length; i= i+1) {
+            BoardSnapshot s = snapshots[i];
+            if (s == null || s.getWidth() != b.getWidth() || s.getHeight() != b.getHeight()) {
+                snapshots[i] = new BoardSnapshot(b.getWidth(), b.getHeight());
+            } else {
+                s.version = -1;  // must be copied in full
+            }
+        }
+        pending.clear();
+        overflow = false;
+        publish();
+    }
+
+    public void cellChanged(JManBoard b, int x, int y) {
+        if (overflow) return;
+        if (pending.size() >= (long) b.getWidth() * b.getHeight()) {
+            overflow = true;
+            pending.clear();
+            return;
+        }
+        pending.add(x, y);
+    }
+
+    /** Publish a snapshot of the board as it is now, and yield the cells that
+      * changed since the last publication as pairs x0, y0, x1, y1, ...
+      * (null if too many changes were recorded, so every cell may have changed).
+      * Must be called on the thread that plays the game. */
+    public int[] publish() {
+        version= version+1;
+        ChangedCells oldest = recent[0];
+        recent[0] = recent[1];
+        recent[1] = pending;
+        pending = oldest;
+        pending.clear();
+        boolean all = overflow;
+        if (all) {
+            overflow = false;
+            for (int i= 0; i < snapshots.length; i= i+1) {
+                snapshots[i].version = -1;  // must be copied in full
+            }
+        }
+
+        BoardSnapshot s = free();
+        if (s.version == version - 1) {
+            copyChanges(s, recent[1]);
+        } else if (s.version >= 0 && s.version == version - 2) {
+            copyChanges(s, recent[0]);
+            copyChanges(s, recent[1]);
+        } else {
+            s.copyAll(board);
+        }
+        s.copyState(board);
+        s.version = version;
+        latest = s;
+        return all ? null : recent[1].toArray();
+    }
+
+    /* Copy the cells in c from the board into s. */
+    private void copyChanges(BoardSnapshot s, ChangedCells c) {
+        for (int i= 0; i < c.size(); i= i+1) {
+            s.copyCell(board, c.getX(i), c.getY(i));
+        }
+    }
+
+    /* Yields: a snapshot that is neither the latest one nor being read. */
+    private BoardSnapshot free() {
+        BoardSnapshot r = reading.get();
+        for (int i= 0; i < snapshots.length; i= i+1) {
+            BoardSnapshot s = snapshots[i];
+            if (s != latest && s != r) return s;
+        }
+        throw new IllegalStateException("No free snapshot");  // cannot happen
+    }
+
+    /** Yields: the latest snapshot, which will not change until release() is
+      * called.  Only one thread may read snapshots, and it must release each
+      * one before acquiring the next. */
+    public BoardSnapshot acquire() {
+        while (true) {
+            BoardSnapshot s = latest;
+            reading.set(s);
+            // If a newer snapshot was published meanwhile, s may be being reused.
+            if (latest == s) return s;
+        }
+    }
+
+    /** Release the snapshot yielded by the last call of acquire(). */
+    public void release() {
+        reading.set(null);
+    }
+}
@@ -0,0 +1,186 @@
+package jman;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** This class is a MODEL class; an instance of this class keeps count of
+  * the walkers and pillars of a board, by type and color, and of the ones
+  * of each color in each bucket of BUCKET_SIZE x BUCKET_SIZE cells, so
+  * that the pieces of a color nearest to a cell can be found by looking at
+  * the buckets around it, nearest first, rather than at the whole board.
+  *
+  * The board tells its index about every piece that is put, moved,
+  * captured, or changes color.  The buckets are kept in an array, or, for
+  * a board with STORAGE_CHUNKED, in a hash map of the buckets that are not
+  * empty.  BUCKET_SIZE divides ParallelRound.STRIPE_HEIGHT and is at most
+  * half of it, so the stripes that act at the same time in a parallel
+  * round never change the same bucket; the totals, which pillars of any
+  * stripe change, are updated atomically. */
+class TargetIndex {
+
+    /** Log (base 2) of BUCKET_SIZE. */
+    static final int BUCKET_SHIFT = 4;
+    /** Width and height of a bucket in cells. */
+    static final int BUCKET_SIZE = 1 << BUCKET_SHIFT;
+
+    private JManBoard board;    // the board indexed
+    private int bucketsWide;    // # of columns of buckets
+    private int bucketsHigh;    // # of rows of buckets
+    private int[] counts;       // counts[3*b + c]: # of pieces of color c in bucket b (null if sparse)
+    private HashMap<Long, int[]> sparse; // counts of the non-empty buckets (null if not sparse)
+    private AtomicIntegerArray totals = new AtomicIntegerArray(16); // # of pieces of type t and color c at (t << 2) | c
+
+    /** Constructor: an empty index of the walkers and pillars of board b, with
+      * its buckets in a hash map if sparse. */
+    TargetIndex(JManBoard b, boolean sparse) {
+        board = b;
+        bucketsWide = (b.getWidth() + BUCKET_SIZE - 1) >> BUCKET_SHIFT;
+        bucketsHigh = (b.getHeight() + BUCKET_SIZE - 1) >> BUCKET_SHIFT;
+        if (sparse) {
+            this.sparse = new HashMap<Long, int[]>();
+        } else {
+            counts = new int[3 * bucketsWide * bucketsHigh];
+        }
+    }
+
+    /** Yields: the number of pieces of type t and color c.
+      * Precondition: t is Piece.WALKER or Piece.PILLAR. */
+    int count(int t, int c) {
+        return totals.get((t << 2) | c);
+    }
+
+    /** Yields: the number of walkers and pillars of color c. */
+    int count(int c) {
+        return count(Piece.WALKER, c) + count(Piece.PILLAR, c);
+    }
+
+    /** Add a piece of type t and color c at (x, y); nothing if it is not a
+      * walker or pillar. */
+    void add(int t, int x, int y, int c) {
+        if (t != Piece.WALKER && t != Piece.PILLAR) return;
+        totals.incrementAndGet((t << 2) | c);
+        bump(x, y, c, 1);
+    }
+
+    /** Remove the piece of type t and color c at (x, y); nothing if it is
+      * not a walker or pillar. */
+    void remove(int t, int x, int y, int c) {
+        if (t != Piece.WALKER && t != Piece.PILLAR) return;
+        totals.decrementAndGet((t << 2) | c);
+        bump(x, y, c, -1);
+    }
+
+    /** Record that the piece of type t and color c moved from (fromX, fromY)
+      * to (toX, toY); nothing if it is not a walker or pillar. */
+    void move(int t, int fromX, int fromY, int toX, int toY, int c) {
+        if (t != Piece.WALKER && t != Piece.PILLAR) return;
+        if ((fromX >> BUCKET_SHIFT) == (toX >> BUCKET_SHIFT)
+            && (fromY >> BUCKET_SHIFT) == (toY >> BUCKET_SHIFT)) return;
+        bump(fromX, fromY, c, -1);
+        bump(toX, toY, c, 1);
+    }
+
+    /** Record that the piece of type t at (x, y) changed color from old to c;
+      * nothing if it is not a walker or pillar. */
+    void recolor(int t, int x, int y, int old, int c) {
+        if (t != Piece.WALKER && t != Piece.PILLAR) return;
+        totals.decrementAndGet((t << 2) | old);
+        totals.incrementAndGet((t << 2) | c);
+        bump(x, y, old, -1);
+        bump(x, y, c, 1);
+    }
+
+    /* Add d to the count of pieces of color c in the bucket of (x, y). */
+    private void bump(int x, int y, int c, int d) {
+        int bx = x >> BUCKET_SHIFT, by = y >> BUCKET_SHIFT;
+        if (counts != null) {
+            counts[3*(by*bucketsWide + bx) + c] += d;
+            return;
+        }
+        Long k = key(bx, by);
+        int[] b = sparse.get(k);
+        if (b == null) {
+            b = new int[3];
+            sparse.put(k, b);
+        }
+        b[c] += d;
+        if (b[0] == 0 && b[1] == 0 && b[2] == 0) sparse.remove(k);
+    }
+
+    /* Yields: the number of pieces of color c in bucket (bx, by). */
+    private int bucketCount(int bx, int by, int c) {
+        if (counts != null) return counts[3*(by*bucketsWide + bx) + c];
+        int[] b = sparse.get(key(bx, by));
+        return b == null ? 0 : b[c];
+    }
+
+    /* Yields: the key of bucket (bx, by) in the hash map. */
+    private static long key(int bx, int by) {
+        return ((long) bx << 32) | (by & 0xFFFFFFFFL);
+    }
+
+    /** Find the (at most) k walkers and pillars of color c nearest to (x, y),
+      * by the number of steps between them (ignoring what is in the way), and
+      * store their positions in xs[0..] and ys[0..], nearest first; pieces at
+      * the same distance are in no particular order.  Yields: the number of
+      * pieces found, which is less than k only if there are fewer than k.
+      * The buckets are looked at in square rings around the bucket of (x, y),
+      * and the search stops once no piece in the next ring can be nearer than
+      * the k-th piece found, so it takes time proportional to the number of
+      * buckets within that distance, not to the number of pieces.
+      * Precondition: k <= xs.length and k <= ys.length. */
+    int nearest(int x, int y, int c, int k, int[] xs, int[] ys) {
+        int total = count(c);
+        k = Math.min(k, total);
+        if (k <= 0) return 0;
+        int[] dists = new int[k];
+        int found = 0;
+        int bx = x >> BUCKET_SHIFT, by = y >> BUCKET_SHIFT;
+        int rings = Math.max(Math.max(bx, bucketsWide - 1 - bx), Math.max(by, bucketsHigh - 1 - by));
+
+        // invariant: the k nearest pieces in the rings 0..r-1 are in xs, ys and dists.
+        for (int r= 0; r <= rings; r= r+1) {
+            if (found == k && (k == total || dists[k-1] <= (r-1) * BUCKET_SIZE + 1)) break;
+            for (int j= by - r; j <= by + r; j= j+1) {
+                if (j < 0 || j >= bucketsHigh) continue;
+                int step = (j == by - r || j == by + r) ? 1 : 2*r;
+                for (int i= bx - r; i <= bx + r; i= i + Math.max(step, 1)) {
+                    if (i < 0 || i >= bucketsWide || bucketCount(i, j, c) == 0) continue;
+                    found = scan(i, j, x, y, c, k, found, xs, ys, dists);
+                }
+            }
+        }
+        return found;
+    }
+
+    /* Add the pieces of color c in bucket (i, j) to the nearest found so far
+     * to (x, y): xs, ys and dists[0..found-1], nearest first, at most k of
+     * them.  Yields: the new number found. */
+    private int scan(int i, int j, int x, int y, int c, int k, int found,
+                     int[] xs, int[] ys, int[] dists) {
+        int x1 = Math.min(board.getWidth(), (i+1) << BUCKET_SHIFT);
+        int y1 = Math.min(board.getHeight(), (j+1) << BUCKET_SHIFT);
+        for (int yy= j << BUCKET_SHIFT; yy < y1; yy= yy+1) {
+            for (int xx= i << BUCKET_SHIFT; xx < x1; xx= xx+1) {
+                int t = board.typeAt(xx, yy);
+                if ((t != Piece.WALKER && t != Piece.PILLAR) || board.colorAt(xx, yy) != c) continue;
+                int d = Math.abs(xx - x) + Math.abs(yy - y);
+                if (found == k && d >= dists[k-1]) continue;
+
+                // Insert (xx, yy) in order, dropping the farthest if k are found.
+                int m = found < k ? found : k-1;
+                while (m > 0 && dists[m-1] > d) {
+                    xs[m] = xs[m-1];
+                    ys[m] = ys[m-1];
+                    dists[m] = dists[m-1];
+                    m= m-1;
+                }
+                xs[m] = xx;
+                ys[m] = yy;
+                dists[m] = d;
+                if (found < k) found= found+1;
+            }
+        }
+        return found;
+    }
+}
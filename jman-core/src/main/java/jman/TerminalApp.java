@@ -0,0 +1,313 @@
+package jman;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/** This class is a CONTROLLER class; an instance of this class plays a game
+  * on a text terminal, e.g. over ssh on a server without a display, drawing
+  * it with a TerminalView after each round.  The arrow keys (or w, a, s, d)
+  * move J*Man, u and r undo and redo a round, f starts or stops
+  * fast-forward (see SimulationThread.startFastForward), n starts a new
+  * game, and q quits.  The rounds are drawn by a thread of their own, so a
+  * slow terminal does not slow the game: the cells changed by the rounds
+  * played while a frame is written are drawn together in the next one.
+  *
+  * To play:  java -cp jman-core/target/jman-core-1.0-SNAPSHOT.jar jman.TerminalApp [options] [w h bl wa pi]
+  * To watch a game sent by a FrameStream (see FrameReader.open):
+  *           java -cp jman-core/target/jman-core-1.0-SNAPSHOT.jar jman.TerminalApp --watch tcp:7070
+  * Options:
+  *   "--realtime n": the game is played in real time at n rounds a second;
+  *   "--level file": the games are played on the level in file (see LevelFile);
+  *   "--size cols rows": the size of the terminal (default: $COLUMNS and
+  *   $LINES, or 80 x 24);
+  *   "--ascii": the pieces are drawn with ASCII characters only. */
+public class TerminalApp {
+
+    /** Bytes of history kept to undo rounds, per game (as in JManApp). */
+    public static final long HISTORY_BYTES = 64L << 20;
+    /** First byte of the escape sequence of an arrow key. */
+    private static final int ESC = 27;
+    /** Most changed cells kept for the next frame; past it, the next frame
+      * compares every cell shown instead (see TerminalView.redraw). */
+    private static final int MAX_CHANGED = 1 << 16;
+
+    private SimulationThread simulation; // the thread that plays the game
+    private TerminalView view;           // draws the game
+    private int w, h, bl, wa, pi;        // size and pieces of a new game
+    private Path level;                  // level of a new game (null: a random board)
+    private volatile boolean realTime; // "the game is played in real time"
+    private volatile boolean quit;       // "the player quit, or the view failed"
+
+    // The rounds played since the last frame drawn, for the writer thread
+    private Thread writer;               // draws the frames
+    private ChangedCells changed = new ChangedCells(); // cells they changed; guarded by itself
+    private boolean roundsWaiting;       // "a round was played"; guarded by changed
+    private boolean newGame;             // "a game was started": draw the whole board; guarded by changed
+    private boolean manyChanged;         // "too many cells changed to keep": redraw; guarded by changed
+
+    /** Application main: play a game, or watch one, on this terminal. */
+    public static void main(String[] pars) throws IOException {
+        int ticksPerSecond = 0;
+        String watch = null;
+        String level = null;
+        boolean ascii = false;
+        int cols = envInt("COLUMNS", 80), rows = envInt("LINES", 24);
+        while (pars.length >= 1 && pars[0].startsWith("--")) {
+            int used = 2;
+            if (pars[0].equals("--realtime") && pars.length >= 2) {
+                ticksPerSecond = Integer.parseInt(pars[1]);
+            } else if (pars[0].equals("--watch") && pars.length >= 2) {
+                watch = pars[1];
+            } else if (pars[0].equals("--level") && pars.length >= 2) {
+                level = pars[1];
+            } else if (pars[0].equals("--size") && pars.length >= 3) {
+                cols = Integer.parseInt(pars[1]);
+                rows = Integer.parseInt(pars[2]);
+                used = 3;
+            } else if (pars[0].equals("--ascii")) {
+                ascii = true;
+                used = 1;
+            } else {
+                throw new IllegalArgumentException("Unknown option " + pars[0]);
+            }
+            pars = Arrays.copyOfRange(pars, used, pars.length);
+        }
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16);
+        TerminalView view = new TerminalView(out, cols, rows - 1, ascii);
+        if (watch != null) {
+            watch(view, watch);
+            return;
+        }
+
+        TerminalApp app = new TerminalApp(view);
+        if (pars.length == 5) {
+            app.w = Integer.parseInt(pars[0]);
+            app.h = Integer.parseInt(pars[1]);
+            app.bl = Integer.parseInt(pars[2]);
+            app.wa = Integer.parseInt(pars[3]);
+            app.pi = Integer.parseInt(pars[4]);
+        }
+        if (level != null) {
+            app.level = Paths.get(level);
+        }
+        String saved = stty("-g");
+        try {
+            stty("-icanon -echo min 1");
+            app.play(ticksPerSecond, System.in);
+        } finally {
+            if (saved != null) stty(saved);
+            view.close();
+        }
+    }
+
+    /** Constructor: a game, not yet started, of the default size drawn by view. */
+    public TerminalApp(TerminalView view) {
+        this.view = view;
+        w = JManBoard.DEFAULT_WIDTH;
+        h = JManBoard.DEFAULT_HEIGHT;
+        bl = JManBoard.DEFAULT_BLOCKS;
+        wa = JManBoard.DEFAULT_WALKERS;
+        pi = JManBoard.DEFAULT_PILLARS;
+    }
+
+    /** Play games, in real time at ticksPerSecond rounds a second if it is
+      * not 0, with the keys read from keys, until q is read or keys ends. */
+    public void play(int ticksPerSecond, InputStream keys) throws IOException {
+        JManBoard first = newBoard();
+        simulation = new SimulationThread(first, this::roundPlayed);
+        writer = new Thread(this::drawFrames, "J*Man terminal writer");
+        writer.setDaemon(true);
+        writer.start();
+        simulation.start();
+        simulation.newGame(() -> first);  // draws the whole board
+        if (ticksPerSecond > 0) {
+            realTime = true;
+            simulation.startRealTime(ticksPerSecond);
+        }
+        while (!quit) {
+            int k = keys.read();
+            if (k == ESC && keys.read() == '[') {
+                k = keys.read();
+                if (k == 'A') k = 'w';
+                else if (k == 'B') k = 's';
+                else if (k == 'D') k = 'a';
+                else if (k == 'C') k = 'd';
+            }
+            if (k == 'w') {
+                simulation.move(JManBoard.MOVE_UP);
+            } else if (k == 's') {
+                simulation.move(JManBoard.MOVE_DOWN);
+            } else if (k == 'a') {
+                simulation.move(JManBoard.MOVE_LEFT);
+            } else if (k == 'd') {
+                simulation.move(JManBoard.MOVE_RIGHT);
+            } else if (k == 'u') {
+                simulation.undo();
+            } else if (k == 'r') {
+                simulation.redo();
+            } else if (k == 'f') {
+                simulation.toggleFastForward(new Autopilot());
+            } else if (k == 'n') {
+                simulation.newGame(this::newBoard);
+            } else if (k == 'q' || k < 0) {
+                quit = true;
+            }
+        }
+        simulation.shutdown();
+        synchronized (changed) {
+            changed.notify();
+        }
+        try {
+            simulation.join();
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* Yields: a new board, which records its history.
+     * Throws an UncheckedIOException if the level cannot be loaded. */
+    private JManBoard newBoard() {
+        JManBoard b;
+        if (level == null) {
+            b = new JManBoard(w, h, bl, wa, pi);
+        } else {
+            try {
+                b = LevelFile.load(level);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        b.recordHistory(HISTORY_BYTES);
+        return b;
+    }
+
+    /* Have the writer draw the cells changed by a round (null: all of them)
+     * with those of the rounds not yet drawn.  Called on the simulation
+     * thread after each round. */
+    private void roundPlayed(int[] cells) {
+        synchronized (changed) {
+            if (cells == null) {
+                newGame = true;
+                changed.clear();
+            } else if (!newGame && !manyChanged) {
+                for (int k= 0; k < cells.length; k= k+2) {
+                    changed.add(cells[k], cells[k+1]);
+                }
+                if (changed.size() > MAX_CHANGED) {
+                    manyChanged = true;
+                    changed.clear();
+                }
+            }
+            roundsWaiting = true;
+            changed.notify();
+        }
+    }
+
+    /* Draw the latest snapshot of the board whenever rounds were played since
+     * the last frame, writing the cells they changed, until quit.  Runs on
+     * the writer thread, which alone uses view while a game is played. */
+    private void drawFrames() {
+        while (true) {
+            int[] cells;
+            boolean all, many;
+            synchronized (changed) {
+                try {
+                    while (!roundsWaiting && !quit) {
+                        changed.wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (quit) return;
+                all = newGame;
+                many = manyChanged;
+                cells = all || many ? null : changed.toArray();
+                changed.clear();
+                roundsWaiting = newGame = manyChanged = false;
+            }
+            SnapshotBuffer snapshots = simulation.getSnapshots();
+            BoardSnapshot s = snapshots.acquire();
+            try {
+                String status = "round " + s.getTick()
+                                + (realTime ? "" : "  arrows: move  u: undo  r: redo")
+                                + "  f: fast  n: new game  q: quit";
+                if (all) {
+                    view.drawAll(s, s.getJManX(), s.getJManY(), status);
+                } else if (many) {
+                    view.redraw(s, s.getJManX(), s.getJManY(), status);
+                } else {
+                    view.drawChanged(s, cells, s.getJManX(), s.getJManY(), status);
+                }
+            } catch (IOException e) {
+                quit = true;
+            } finally {
+                snapshots.release();
+            }
+        }
+    }
+
+    /* Draw the game read from source (see FrameReader.open) with view, frame
+     * by frame, until it ends. */
+    private static void watch(TerminalView view, String source) throws IOException {
+        try (FrameReader r = FrameReader.open(source)) {
+            int jx = 0, jy = 0;  // where J*Man is
+            while (r.next()) {
+                int[] cells = r.getChanged();
+                if (cells == null) {
+                    for (int i= 0; i < r.getWidth() * r.getHeight(); i= i+1) {
+                        if (r.typeAt(i % r.getWidth(), i / r.getWidth()) == Piece.JMAN) {
+                            jx = i % r.getWidth();
+                            jy = i / r.getWidth();
+                        }
+                    }
+                    view.redraw(r, jx, jy, "round " + r.getRound());
+                } else {
+                    for (int i= 0; i < cells.length; i= i+2) {
+                        if (r.typeAt(cells[i], cells[i+1]) == Piece.JMAN) {
+                            jx = cells[i];
+                            jy = cells[i+1];
+                        }
+                    }
+                    view.drawChanged(r, cells, jx, jy, "round " + r.getRound());
+                }
+            }
+        } finally {
+            view.close();
+        }
+    }
+
+    /* Run stty with args on the terminal of this process.  Yields: what it
+     * printed, trimmed, or null if it failed (e.g. there is no terminal). */
+    private static String stty(String args) {
+        try {
+            Process p = new ProcessBuilder("sh", "-c", "stty " + args + " < /dev/tty")
+                .redirectErrorStream(true).start();
+            String out = new String(p.getInputStream().readAllBytes()).trim();
+            return p.waitFor() == 0 ? out : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /* Yields: environment variable name as an int, or dflt if it is not set. */
+    private static int envInt(String name, int dflt) {
+        String v = System.getenv(name);
+        try {
+            return v == null ? dflt : Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            return dflt;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package jman;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** This class is a VIEW class.  An instance of this class draws a game board
+  * on a text terminal with ANSI escape sequences, one character per cell,
+  * e.g. to watch a game over ssh on a machine without a display.  The
+  * pieces are drawn with the shapes of BoardPainter: J*Man as an asterisk,
+  * a walker as a triangle, a pillar as a disk, and a block as a square, in
+  * the color of the piece (or as *, A, O and # if the terminal shows only
+  * ASCII).
+  *
+  * A board bigger than the terminal is shown through a viewport that keeps
+  * J*Man away from its edges.  The view remembers what each cell of the
+  * viewport shows, so after the first frame drawChanged writes only the
+  * cursor moves and glyphs of the cells that look different, and the bytes
+  * written per round are proportional to the cells that changed, not to
+  * the size of the board; redraw, e.g. after a keyframe, compares every
+  * cell of the viewport but still writes only those that look different.
+  * The last row of the terminal is a status line. */
+public class TerminalView {
+
+    /** Glyphs of the piece types (Piece.BLOCK, JMAN, WALKER, PILLAR). */
+    private static final String[] GLYPHS = {"\u2588", "*", "\u25B2", "\u25CF"};
+    private static final String[] ASCII_GLYPHS = {"#", "*", "A", "O"};
+    /** ANSI colors (SGR parameters) of the color codes RED, GREEN, YELLOW, WHITE. */
+    private static final String[] COLORS = {"31", "32", "33", "37"};
+    /** Distance in cells J*Man is kept from the edges of the viewport, if it fits. */
+    private static final int MARGIN = 4;
+
+    private OutputStream out;   // the terminal
+    private String[] glyphs;    // GLYPHS or ASCII_GLYPHS
+    private int cols, rows;     // size of the viewport in cells (the status line is below it)
+    private int width, height;  // size of the board drawn
+    private int left, top;      // cell of the board in the top left corner of the viewport
+    private short[] shown = new short[0]; // what each cell of the viewport shows (see look), or -1
+    private int cursorX = -1, cursorY = -1; // position of the cursor in the viewport (-1: unknown)
+    private int sgr = -1;       // color code in effect (4: J*Man's bold, +4; -1: unknown)
+    private StringBuilder buf = new StringBuilder(); // the output of the current frame
+    private long written;       // # of bytes written to out
+
+    /** Constructor: a view that draws on terminal out, which is cols columns
+      * wide and rows + 1 rows high, with only ASCII characters if ascii.
+      * Precondition: cols > 0 and rows > 0. */
+    public TerminalView(OutputStream out, int cols, int rows, boolean ascii) {
+        this.out = out;
+        this.cols = cols;
+        this.rows = rows;
+        glyphs = ascii ? ASCII_GLYPHS : GLYPHS;
+    }
+
+    /** Yields: the number of bytes written to the terminal so far. */
+    public long getWritten() {
+        return written;
+    }
+
+    /** Clear the terminal and draw board b, on which J*Man is at (jx, jy),
+      * with status below it. */
+    public void drawAll(BoardCells b, int jx, int jy, String status) throws IOException {
+        width = b.getWidth();
+        height = b.getHeight();
+        int w = Math.min(cols, width), h = Math.min(rows, height);
+        if (shown.length != w*h) shown = new short[w*h];
+        Arrays.fill(shown, (short) -1);
+        left = center(jx, w, width);
+        top = center(jy, h, height);
+        buf.append("\033[0m\033[2J\033[H");
+        sgr = -1;
+        cursorX = cursorY = 0;
+        for (int y= 0; y < h; y= y+1) {
+            for (int x= 0; x < w; x= x+1) {
+                draw(b, x, y);
+            }
+        }
+        drawStatus(status);
+    }
+
+    /** Draw board b, on which J*Man is at (jx, jy), with status below it,
+      * comparing every cell of the viewport with what it shows and writing
+      * only those that look different.  The terminal is cleared (see
+      * drawAll) only if b is not of the size of the board last drawn. */
+    public void redraw(BoardCells b, int jx, int jy, String status) throws IOException {
+        if (b.getWidth() != width || b.getHeight() != height) {
+            drawAll(b, jx, jy, status);
+            return;
+        }
+        int w = Math.min(cols, width), h = Math.min(rows, height);
+        left = clamp(left, jx, w, width);
+        top = clamp(top, jy, h, height);
+        for (int y= 0; y < h; y= y+1) {
+            for (int x= 0; x < w; x= x+1) {
+                draw(b, x, y);
+            }
+        }
+        drawStatus(status);
+    }
+
+    /** Draw the cells of board b given as pairs x0, y0, x1, y1, ..., which are
+      * all the cells that changed since the last frame, with status below the
+      * board; J*Man is at (jx, jy).  If J*Man came too near an edge of the
+      * viewport, the viewport moves and the board is redrawn (see redraw). */
+    public void drawChanged(BoardCells b, int[] cells, int jx, int jy, String status) throws IOException {
+        int w = Math.min(cols, width), h = Math.min(rows, height);
+        if (b.getWidth() != width || b.getHeight() != height
+                || left != clamp(left, jx, w, width) || top != clamp(top, jy, h, height)) {
+            redraw(b, jx, jy, status);
+            return;
+        }
+        for (int i= 0; i + 1 < cells.length; i= i+2) {
+            int x = cells[i] - left, y = cells[i+1] - top;
+            if (x >= 0 && y >= 0 && x < w && y < h) draw(b, x, y);
+        }
+        drawStatus(status);
+    }
+
+    /* Draw cell (x, y) of the viewport, if it does not already show what is
+     * in the board there. */
+    private void draw(BoardCells b, int x, int y) {
+        int w = Math.min(cols, width);
+        short look = look(b, left + x, top + y);
+        if (shown[y*w + x] == look) return;
+        shown[y*w + x] = look;
+        moveTo(x, y);
+        if (look == 0) {
+            buf.append(' ');
+        } else {
+            int t = (look >> 2) - 1, c = look & 3;
+            int s = t == Piece.JMAN ? c + 4 : c;
+            if (s != sgr) {
+                buf.append("\033[").append(t == Piece.JMAN ? "1;" : "0;").append(COLORS[c]).append('m');
+                sgr = s;
+            }
+            buf.append(glyphs[t]);
+        }
+        cursorX= cursorX+1;
+    }
+
+    /* Yields: what cell (x, y) of b looks like: 0 if it is empty, and
+     * otherwise (type + 1) * 4 + color code. */
+    private static short look(BoardCells b, int x, int y) {
+        int t = b.typeAt(x, y);
+        return t == BoardCells.EMPTY ? 0 : (short) ((t + 1) * 4 + b.colorAt(x, y));
+    }
+
+    /* Move the cursor to cell (x, y) of the viewport, unless it is there. */
+    private void moveTo(int x, int y) {
+        if (x == cursorX && y == cursorY) return;
+        buf.append("\033[").append(y + 1).append(';').append(x + 1).append('H');
+        cursorX = x;
+        cursorY = y;
+    }
+
+    /* Write status on the line below the viewport, and send the frame. */
+    private void drawStatus(String status) throws IOException {
+        moveTo(0, Math.min(rows, height));
+        buf.append("\033[0m").append(status, 0, Math.min(status.length(), cols)).append("\033[K");
+        sgr = -1;
+        cursorX = -1;
+        byte[] bytes = buf.toString().getBytes(StandardCharsets.UTF_8);
+        buf.setLength(0);
+        out.write(bytes);
+        out.flush();
+        written= written + bytes.length;
+    }
+
+    /* Yields: the first of n cells of a line of size cells shown, so that
+     * cell j is in the middle. */
+    private static int center(int j, int n, int size) {
+        return Math.max(0, Math.min(size - n, j - n/2));
+    }
+
+    /* Yields: first, the first of n cells of a line of size cells shown, if
+     * cell j is at least MARGIN cells from either end of them (or as near as
+     * the ends of the line allow); otherwise the first cell that puts j in
+     * the middle. */
+    private static int clamp(int first, int j, int n, int size) {
+        int m = Math.min(MARGIN, (n - 1) / 2);
+        boolean low = j - first < m && first > 0;
+        boolean high = first + n - 1 - j < m && first + n < size;
+        return low || high ? center(j, n, size) : first;
+    }
+
+    /** Leave the terminal as it was: default colors, and the cursor below
+      * the status line. */
+    public void close() throws IOException {
+        moveTo(0, Math.min(rows, height) + 1);
+        buf.append("\033[0m\n");
+        byte[] bytes = buf.toString().getBytes(StandardCharsets.UTF_8);
+        buf.setLength(0);
+        out.write(bytes);
+        out.flush();
+    }
+}
@@ -0,0 +1,69 @@
+package jman;
+
+/** An instance of this class measures how well a real-time game keeps to
+  * its tick rate: how late each tick started compared with its deadline
+  * (the jitter), how many deadlines were missed, how long the rounds took,
+  * and how many frames the view drew.  Ticks are recorded by the thread
+  * that plays the game and frames by the event dispatch thread; a report
+  * covers everything recorded since the previous one. */
+public class TickStats {
+
+    private long periodNanos;   // time between deadlines
+    private long windowStart;   // System.nanoTime() of the last report
+    private int ticks;          // # of ticks played since the last report
+    private int missed;         // # of deadlines missed since the last report
+    private long jitterSum;     // total jitter of those ticks, in ns
+    private long jitterMax;     // greatest jitter of those ticks, in ns
+    private long roundSum;      // total time taken by their rounds, in ns
+    private long roundMax;      // longest of their rounds, in ns
+    private int frames;         // # of frames drawn since the last report
+
+    /** Constructor: statistics of a game with a tick every periodNanos ns. */
+    public TickStats(long periodNanos) {
+        this.periodNanos = periodNanos;
+        windowStart = System.nanoTime();
+    }
+
+    /** Record a tick that started late ns after its deadline (late < 0 if it
+      * was early) and whose round took round ns.  Its jitter is |late|.  A
+      * tick that started a whole period or more late missed its deadline. */
+    public synchronized void tickPlayed(long late, long round) {
+        ticks= ticks+1;
+        if (late >= periodNanos) missed= missed+1;
+        jitterSum = jitterSum + Math.abs(late);
+        jitterMax = Math.max(jitterMax, Math.abs(late));
+        roundSum = roundSum + round;
+        roundMax = Math.max(roundMax, round);
+    }
+
+    /** Record a deadline for which no tick was played, because the tick
+      * before it had not started yet. */
+    public synchronized void tickSkipped() {
+        missed= missed+1;
+    }
+
+    /** Record that the view drew a frame. */
+    public synchronized void frameRendered() {
+        frames= frames+1;
+    }
+
+    /** Yields: a one-line report of the tick rate, jitter, missed deadlines,
+      * round times, and frame rate since the last report, and start a new
+      * report. */
+    public synchronized String report() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1, now - windowStart) / 1e9;
+        String s = String.format("%.1f ticks/s, jitter %.1f/%.1f ms, %d missed, round %.1f/%.1f ms, %.1f fps",
+                                 ticks / seconds,
+                                 ticks == 0 ? 0.0 : jitterSum / 1e6 / ticks, jitterMax / 1e6,
+                                 missed,
+                                 ticks == 0 ? 0.0 : roundSum / 1e6 / ticks, roundMax / 1e6,
+                                 frames / seconds);
+        windowStart = now;
+        ticks = 0;
+        missed = 0;
+        jitterSum = jitterMax = roundSum = roundMax = 0;
+        frames = 0;
+        return s;
+    }
+}
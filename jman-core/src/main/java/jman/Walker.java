@@ -0,0 +1,54 @@
+package jman;
+
+/** This class is a MODEL class; an instance of this class represents
+  * a Walker, storing data such as current position and color.
+  * However, this class does have one method that provides CONTROLLER
+  * functionality -- the method act().   */
+  
+public class Walker extends Piece {
+
+    /** Constructor: a new Walker at position (x, y) with given color code c.
+      * Precondition: (x, y) is a nonnegative coordinate and c is one of
+      * Piece.RED (0), Piece.GREEN (1) and Piece.YELLOW (2).     */
+    public Walker(int x, int y, int c) {
+        super(Piece.WALKER, x, y, c);
+    }
+
+    /** Yields: representation of this piece */
+    public String toString() {
+        String color= "";
+        return getColorWord() + " Walker at (" + getX() + ", " + getY() + ")";
+    }
+
+    /** a walker has 1/3 probability of walking to a 4-direction neighbour */
+    public void act(JManBoard board) {
+        act(board, board.getRandom());
+    }
+
+    /** a walker has 1/3 probability of walking to a 4-direction neighbour,
+      * with the choices drawn from rand */
+    public void act(JManBoard board, JManRandom rand) {
+        int r = rand.nextInt(0, 2);
+        if (r == 0) {
+            takeAction(board, rand);
+        }
+    }
+
+    /** the walker walks to a 4-direction neighbour chosen with rand, if
+      * that neighbour is empty */
+    public void takeAction(JManBoard board, JManRandom rand) {
+        int move = rand.nextInt(1, 4);
+        int xx = x, yy = y;         // the potential new location after moving
+
+        if (move == 1) yy--;        // move up
+        else if (move == 2) yy++;   // move down
+        else if (move == 3) xx--;   // move left
+        else xx++;                  // move right
+
+        if (board.isEmpty(xx, yy)) {
+            board.move(x, y, xx, yy);
+            if (GameMetrics.ENABLED) GameMetrics.walkerStepped();
+        }
+    }
+
+}
\ No newline at end of file
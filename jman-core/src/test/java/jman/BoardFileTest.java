@@ -0,0 +1,103 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests of BoardFile: a board saved with any storage and loaded with any
+  * storage plays the same game as the board that was saved. */
+class BoardFileTest {
+
+    /** Rounds played before a board is saved. */
+    static final int ROUNDS_BEFORE = 40;
+    /** Rounds compared after a board is loaded. */
+    static final int ROUNDS_AFTER = 200;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyStoragePairPlaysTheSameGame() throws IOException {
+        for (int saved : TestBoards.STORAGES) {
+            for (int loaded : TestBoards.STORAGES) {
+                JManBoard b = new JManBoard(37, 23, 60, 25, 25, saved, 1234 + saved);
+                TestBoards.play(b, 0, ROUNDS_BEFORE);
+                Path file = dir.resolve("board-" + saved + "-" + loaded);
+                BoardFile.save(b, file);
+                JManBoard c = BoardFile.load(file, loaded);
+                String what = "saved as " + saved + ", loaded as " + loaded;
+                assertEquals(loaded, c.getStorageType(), what);
+                TestBoards.assertSameBoard(b, c, what + ", when loaded");
+                for (int i= 0; i < ROUNDS_AFTER; i= i+1) {
+                    TestBoards.play(b, ROUNDS_BEFORE + i, 1);
+                    TestBoards.play(c, ROUNDS_BEFORE + i, 1);
+                    TestBoards.assertSameBoard(b, c, what + ", round " + b.getTicks());
+                }
+            }
+        }
+    }
+
+    @Test
+    void loadKeepsTheSavedStorage() throws IOException {
+        for (int s : TestBoards.STORAGES) {
+            JManBoard b = new JManBoard(10, 10, 5, 3, 3, s, 7);
+            Path file = dir.resolve("board-" + s);
+            BoardFile.save(b, file);
+            JManBoard c = BoardFile.load(file);
+            assertEquals(s, c.getStorageType());
+            TestBoards.assertSameBoard(b, c, "storage " + s);
+        }
+    }
+
+    @Test
+    void loadRejectsWhatIsNotABoardFile() throws IOException {
+        Path file = dir.resolve("not-a-board");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> BoardFile.load(file));
+    }
+
+    @Test
+    void loadRejectsCorruptCellsAndActors() throws IOException {
+        for (int s : TestBoards.STORAGES) {
+            JManBoard b = new JManBoard(10, 10, 5, 3, 3, s, 7);
+            Path file = dir.resolve("board-" + s);
+            BoardFile.save(b, file);
+            byte[] good = Files.readAllBytes(file);
+            int x = b.getJMan().getX() == 0 && b.getJMan().getY() == 0 ? 1 : 0;
+
+            byte[] bad = good.clone();
+            bad[HEADER_BYTES + x] = 7;                       // no such type
+            assertCorrupt(bad, "type of storage " + s);
+            bad = good.clone();
+            bad[HEADER_BYTES + x] = (byte) Piece.BLOCK;
+            bad[HEADER_BYTES + 10 + x] = 4;                  // no such color
+            assertCorrupt(bad, "color of storage " + s);
+            bad = good.clone();
+            bad[HEADER_BYTES + x] = (byte) Piece.JMAN;       // a second J*Man
+            assertCorrupt(bad, "J*Man of storage " + s);
+            bad = good.clone();
+            ByteBuffer.wrap(bad).putInt(bad.length - 8, -5); // an actor off the board
+            assertCorrupt(bad, "actor of storage " + s);
+            bad = good.clone();
+            ByteBuffer.wrap(bad).putInt(bad.length - 4, 10);
+            assertCorrupt(bad, "actor of storage " + s);
+        }
+    }
+
+    /** Bytes of the header of a board file. */
+    static final int HEADER_BYTES = 13*4 + 8 + 4*8 + 8;
+
+    /** Assert that loading a file of bytes throws an IOException. */
+    void assertCorrupt(byte[] bytes, String what) throws IOException {
+        Path file = dir.resolve("corrupt");
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> BoardFile.load(file), what);
+    }
+}
@@ -0,0 +1,138 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Tests of undo, redo, and rewind (see class BoardHistory): with a history
+  * small enough that rounds are folded into the base and keyframes are
+  * thinned, the board after each of them is the board played again from the
+  * same seed to the same round. */
+class BoardHistoryTest {
+
+    /** Rounds played in each test. */
+    static final int ROUNDS = 1500;
+    /** Bytes of history: a few dozen deltas and three keyframes of newBoard. */
+    static final long HISTORY_BYTES = 40_000;
+
+    static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void undoEveryRoundAcrossFoldsAndKeyframes() {
+        for (int s : TestBoards.STORAGES) {
+            ArrayList<JManBoard> ref = replay(s, ROUNDS);
+            JManBoard b = newBoard(s);
+            b.recordHistory(HISTORY_BYTES);
+            play(b, 0, ROUNDS);
+            assertTrue(b.getEarliestTick() == 0, "earliest round " + b.getEarliestTick());
+            while (b.undo()) {
+                TestBoards.assertSameBoard(ref.get((int) b.getTicks()), b,
+                                           "storage " + s + ", undone to round " + b.getTicks());
+            }
+            assertEquals(0, b.getTicks());
+        }
+    }
+
+    @Test
+    void redoWhatWasUndone() {
+        for (int s : TestBoards.STORAGES) {
+            ArrayList<JManBoard> ref = replay(s, ROUNDS);
+            JManBoard b = newBoard(s);
+            b.recordHistory(HISTORY_BYTES);
+            play(b, 0, ROUNDS);
+            for (int i= 0; i < 20; i= i+1) {
+                assertTrue(b.undo());
+            }
+            while (b.redo()) {
+                TestBoards.assertSameBoard(ref.get((int) b.getTicks()), b,
+                                           "storage " + s + ", redone to round " + b.getTicks());
+            }
+            assertEquals(ROUNDS, b.getTicks());
+        }
+    }
+
+    @Test
+    void rewindToAnyRoundAndPlayOn() {
+        for (int s : TestBoards.STORAGES) {
+            ArrayList<JManBoard> ref = replay(s, ROUNDS + 20);
+            JManBoard b = newBoard(s);
+            b.recordHistory(HISTORY_BYTES);
+            play(b, 0, ROUNDS);
+            // Playing on drops the rounds after the target, so the targets go back in time.
+            long[] targets = {ROUNDS - 1, ROUNDS - 40, 1025, 1024, 1023, 700, 512, 511, 300, 5, 0};
+            for (long t : targets) {
+                b.rewindTo(t);
+                TestBoards.assertSameBoard(ref.get((int) t), b, "storage " + s + ", rewound to " + t);
+                play(b, t, 20);
+                TestBoards.assertSameBoard(ref.get((int) t + 20), b,
+                                           "storage " + s + ", 20 rounds after rewinding to " + t);
+                assertFalse(b.redo(), "redo after playing on");
+            }
+        }
+    }
+
+    @Test
+    void longGamesDropTheOldestRounds() {
+        int n = 12 * ROUNDS;
+        JManBoard b = newBoard(JManBoard.STORAGE_PRIMITIVE);
+        b.recordHistory(HISTORY_BYTES);
+        play(b, 0, n);
+        long earliest = b.getEarliestTick();
+        assertTrue(earliest > 0, "the directions of every round are kept");
+        assertTrue(n - earliest <= HISTORY_BYTES / 8 + 1024, "rounds kept: " + (n - earliest));
+
+        ArrayList<JManBoard> ref = replay(JManBoard.STORAGE_PRIMITIVE, n);
+        b.rewindTo(earliest);
+        TestBoards.assertSameBoard(ref.get((int) earliest), b, "rewound to the earliest round");
+        play(b, earliest, (int) (n - earliest));
+        TestBoards.assertSameBoard(ref.get(n), b, "played on to the last round");
+    }
+
+    /** Yields: a small board with storage s and a fixed seed. */
+    static JManBoard newBoard(int s) {
+        return new JManBoard(24, 24, 40, 15, 15, s, 31 + s);
+    }
+
+    /** Play n rounds of b, the first being round first, as TestBoards.play
+      * does, but with every seventh round played in parallel on pool. */
+    static void play(JManBoard b, long first, int n) {
+        for (long i= first; i < first + n; i= i+1) {
+            b.changeJManDirection(TestBoards.direction(i));
+            if (i % 7 == 3) {
+                b.act(pool);
+            } else {
+                b.act();
+            }
+        }
+    }
+
+    /** Yields: copies of newBoard(s), without history, after each of rounds
+      * 0..n played as play plays them. */
+    static ArrayList<JManBoard> replay(int s, int n) {
+        ArrayList<JManBoard> boards = new ArrayList<JManBoard>();
+        JManBoard b = newBoard(s);
+        boards.add(b.copy(s));
+        for (int i= 0; i < n; i= i+1) {
+            play(b, i, 1);
+            boards.add(b.copy(s));
+        }
+        return boards;
+    }
+}
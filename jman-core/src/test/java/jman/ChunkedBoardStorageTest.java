@@ -0,0 +1,85 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests of ChunkedBoardStorage: as pieces come and go, a chunk switches
+  * between its short list and one element per cell, and it always yields
+  * the piece in each cell. */
+class ChunkedBoardStorageTest {
+
+    int moved;  // # of pieces moved out of the first chunk
+
+    @Test
+    void chunkGoesDenseAndBackToSparse() {
+        ChunkedBoardStorage s = new ChunkedBoardStorage();
+        Piece[] cells = new Piece[ChunkedBoardStorage.CHUNK_SIZE * ChunkedBoardStorage.CHUNK_SIZE];
+        ArrayList<Piece> pieces = new ArrayList<Piece>();
+        JManRandom r = new JManRandom(3);
+        int limit = ChunkedBoardStorage.SPARSE_LIMIT;
+
+        add(s, cells, pieces, r, limit);
+        assertEquals(0, s.getDenseChunkCount(), limit + " pieces");
+        add(s, cells, pieces, r, 1);
+        assertEquals(1, s.getDenseChunkCount(), (limit + 1) + " pieces");
+        add(s, cells, pieces, r, 3*limit);
+        assertStored(s, cells);
+
+        // Back down to SPARSE_LIMIT/2 + 1 pieces, it stays dense...
+        remove(s, cells, pieces, r, pieces.size() - limit/2 - 1);
+        assertEquals(1, s.getDenseChunkCount(), pieces.size() + " pieces");
+        assertStored(s, cells);
+        // ... and at SPARSE_LIMIT/2 it is sparse again, with the same pieces.
+        remove(s, cells, pieces, r, 1);
+        assertEquals(0, s.getDenseChunkCount(), pieces.size() + " pieces");
+        assertStored(s, cells);
+        // Back and forth across SPARSE_LIMIT, it stays sparse.
+        add(s, cells, pieces, r, limit - pieces.size());
+        remove(s, cells, pieces, r, 1);
+        add(s, cells, pieces, r, 1);
+        assertEquals(0, s.getDenseChunkCount());
+        assertStored(s, cells);
+
+        remove(s, cells, pieces, r, pieces.size());
+        assertStored(s, cells);
+        assertEquals(moved, s.getChunkCount(), "the first chunk is dropped");
+    }
+
+    /** Put n blocks in empty cells, chosen with r, of the first chunk of s,
+      * and record them in cells and pieces. */
+    static void add(ChunkedBoardStorage s, Piece[] cells, ArrayList<Piece> pieces, JManRandom r, int n) {
+        for (int i= 0; i < n; i= i+1) {
+            int k = r.nextInt(0, cells.length - 1);
+            while (cells[k] != null) {
+                k = (k + 1) % cells.length;
+            }
+            Piece p = new Block(k % ChunkedBoardStorage.CHUNK_SIZE, k / ChunkedBoardStorage.CHUNK_SIZE);
+            s.put(p);
+            cells[k] = p;
+            pieces.add(p);
+        }
+    }
+
+    /** Move n of the pieces, chosen with r, out of the first chunk of s,
+      * each into a chunk of its own, and forget them in cells and pieces. */
+    void remove(ChunkedBoardStorage s, Piece[] cells, ArrayList<Piece> pieces, JManRandom r, int n) {
+        for (int i= 0; i < n; i= i+1) {
+            Piece p = pieces.remove(r.nextInt(0, pieces.size() - 1));
+            cells[p.getY() * ChunkedBoardStorage.CHUNK_SIZE + p.getX()] = null;
+            moved= moved+1;
+            s.move(p.getX(), p.getY(), moved * ChunkedBoardStorage.CHUNK_SIZE, 0);
+        }
+    }
+
+    /** Assert that s yields the piece of cells in each cell of its first chunk. */
+    static void assertStored(ChunkedBoardStorage s, Piece[] cells) {
+        for (int k= 0; k < cells.length; k= k+1) {
+            int x = k % ChunkedBoardStorage.CHUNK_SIZE, y = k / ChunkedBoardStorage.CHUNK_SIZE;
+            assertSame(cells[k], s.get(x, y), "cell " + x + ", " + y);
+        }
+    }
+}
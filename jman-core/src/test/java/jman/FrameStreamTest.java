@@ -0,0 +1,195 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests of FrameStream and FrameReader: the board a reader keeps up to date
+  * is, after each frame, the board as it was at the round of the frame. */
+class FrameStreamTest {
+
+    /** Rounds played in each test. */
+    static final int ROUNDS = 150;
+
+    @Test
+    void readerFollowsEveryRound() throws IOException {
+        for (boolean compress : new boolean[] {false, true}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ArrayList<byte[]> boards = new ArrayList<byte[]>();
+            ArrayList<Long> rounds = new ArrayList<Long>();
+            JManBoard b = new JManBoard(40, 30, 100, 30, 30, JManBoard.STORAGE_PRIMITIVE, 5);
+            b.recordHistory(1L << 24);
+            FrameStream s = new FrameStream(b, out, compress, 16, FrameStream.DEFAULT_MAX_BYTES);
+            record(b, boards, rounds);
+            for (int i= 0; i < ROUNDS; i= i+1) {
+                if (i % 10 == 9) {
+                    b.undo();           // a few cells change
+                } else if (i == 100) {
+                    b.rewindTo(20);     // many cells change: sent as a keyframe
+                } else {
+                    TestBoards.play(b, i, 1);
+                }
+                s.endRound();
+                record(b, boards, rounds);
+            }
+            JManBoard c = new JManBoard(25, 45, 50, 10, 10, JManBoard.STORAGE_OBJECTS, 6);
+            s.setBoard(c);              // a board of another size
+            record(c, boards, rounds);
+            for (int i= 0; i < 20; i= i+1) {
+                TestBoards.play(c, i, 1);
+                s.endRound();
+                record(c, boards, rounds);
+            }
+            s.close();
+            assertEquals(0, s.getDropped());
+            assertNull(s.getFailure());
+
+            int keyframes = 0;
+            try (FrameReader r = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+                for (int i= 0; i < boards.size(); i= i+1) {
+                    String what = "compressed " + compress + ", frame " + i;
+                    assertTrue(r.next(), what);
+                    assertEquals((long) rounds.get(i), r.getRound(), what);
+                    assertEquals(boards.get(i).length, 2 * r.getWidth() * r.getHeight(), what);
+                    assertBoard(boards.get(i), r, what);
+                    if (r.isKeyframe()) keyframes= keyframes+1;
+                }
+                assertFalse(r.next());
+            }
+            assertTrue(keyframes > ROUNDS / 16 && keyframes < boards.size() / 2,
+                       "keyframes sent: " + keyframes);
+        }
+    }
+
+    @Test
+    void slowReaderSeesGapsButNoWrongBoard() throws Exception {
+        CountDownLatch go = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream stalled = new OutputStream() {
+            public void write(int k) throws IOException {
+                write(new byte[] {(byte) k}, 0, 1);
+            }
+
+            public void write(byte[] a, int off, int n) throws IOException {
+                // The header, written by the constructor, goes through.
+                try {
+                    if (written.size() >= 12) go.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                synchronized (written) {
+                    written.write(a, off, n);
+                }
+            }
+        };
+        HashMap<Long, byte[]> boards = new HashMap<Long, byte[]>();
+        JManBoard b = new JManBoard(60, 60, 300, 60, 60, JManBoard.STORAGE_PRIMITIVE, 8);
+        int keyframe = 17 + 2 * 60 * 60;
+        FrameStream s = new FrameStream(b, stalled, false, 1000, 3 * keyframe);
+        boards.put(b.getTicks(), TestBoards.cells(b));
+        for (int i= 0; i < ROUNDS; i= i+1) {
+            TestBoards.play(b, i, 1);
+            s.endRound();
+            boards.put(b.getTicks(), TestBoards.cells(b));
+        }
+        assertTrue(s.getDropped() > 0, "frames dropped");
+        go.countDown();
+        s.close();
+
+        int frames = 0;
+        byte[] all;
+        synchronized (written) {
+            all = written.toByteArray();
+        }
+        try (FrameReader r = new FrameReader(new ByteArrayInputStream(all))) {
+            while (r.next()) {
+                assertBoard(boards.get(r.getRound()), r, "round " + r.getRound());
+                frames= frames+1;
+            }
+        }
+        assertTrue(frames > 0 && frames < ROUNDS + 1, "frames read: " + frames);
+    }
+
+    @Test
+    void readerRejectsCorruptFrames() throws IOException {
+        assertCorrupt(keyframe(-3, 4));
+        assertCorrupt(keyframe(0, 4));
+        assertCorrupt(keyframe(1 << 16, 1 << 16));   // would not fit in an int
+        assertCorrupt(keyframe(1 << 15, 1 << 14));   // more than MAX_CELLS
+        byte[] cells = {Piece.BLOCK, 9, Piece.JMAN, Piece.RED};  // a block of color 9
+        assertCorrupt(keyframe(2, 1, cells));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream d = new DataOutputStream(bytes);
+        d.write(keyframe(2, 1, new byte[] {BoardCells.EMPTY, Piece.JMAN, 0, Piece.GREEN}));
+        d.writeByte(FrameStream.DELTA);
+        d.writeLong(1);
+        d.writeInt(1);
+        d.writeInt(0);
+        d.writeInt(0);
+        d.writeByte(7);                                 // no such type
+        d.writeByte(0);
+        try (FrameReader r = new FrameReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertTrue(r.next());
+            assertEquals(Piece.GREEN, r.colorAt(1, 0));
+            assertEquals(BoardCells.EMPTY, r.typeAt(2, 0));
+            assertEquals(0, r.colorAt(2, 0));           // off the board
+            assertEquals(0, r.colorAt(-1, 5));
+            assertThrows(IOException.class, r::next);
+        }
+    }
+
+    /** Yields: a frame stream of a keyframe of a w x h board, with rows of
+      * types and colors as given by cells (none if cells is omitted). */
+    static byte[] keyframe(int w, int h, byte... cells) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream d = new DataOutputStream(bytes);
+        d.writeInt(FrameStream.MAGIC);
+        d.writeInt(FrameStream.VERSION);
+        d.writeInt(0);
+        d.writeByte(FrameStream.KEYFRAME);
+        d.writeLong(0);
+        d.writeInt(w);
+        d.writeInt(h);
+        d.write(cells);
+        return bytes.toByteArray();
+    }
+
+    /** Assert that reading the first frame of stream throws an IOException. */
+    static void assertCorrupt(byte[] stream) throws IOException {
+        try (FrameReader r = new FrameReader(new ByteArrayInputStream(stream))) {
+            assertThrows(IOException.class, r::next);
+        }
+    }
+
+    /** Add the cells of b to boards, and its round to rounds. */
+    static void record(JManBoard b, ArrayList<byte[]> boards, ArrayList<Long> rounds) {
+        boards.add(TestBoards.cells(b));
+        rounds.add(b.getTicks());
+    }
+
+    /** Assert that r shows the board whose cells are given by cells (see TestBoards.cells). */
+    static void assertBoard(byte[] cells, FrameReader r, String what) {
+        int n = r.getWidth() * r.getHeight();
+        for (int i= 0; i < n; i= i+1) {
+            int x = i % r.getWidth(), y = i / r.getWidth();
+            assertEquals(cells[i], (byte) r.typeAt(x, y), what + ", type at " + x + ", " + y);
+            if (cells[i] != BoardCells.EMPTY) {
+                assertEquals(cells[n + i], (byte) r.colorAt(x, y), what + ", color at " + x + ", " + y);
+            }
+        }
+    }
+}
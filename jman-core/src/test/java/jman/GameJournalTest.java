@@ -0,0 +1,96 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests of GameJournal and JournalReplay: a game replayed from its journal
+  * to any round, from a checkpoint or from the start, is the game as it was
+  * played live at that round (which, since a game depends only on its
+  * generator and directions, is the journal's new board played again to
+  * that round). */
+class GameJournalTest {
+
+    /** Rounds played in each test. */
+    static final int ROUNDS = 751;
+    /** Rounds between checkpoints. */
+    static final int CHECKPOINT_EVERY = 100;
+    /** Rounds replayed to: the start, the end, and either side of checkpoints. */
+    static final long[] TARGETS = {0, 1, 2, 99, 100, 101, 350, 699, 700, 701, 750, 751};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayIsTheLiveGame() throws IOException {
+        for (int s : TestBoards.STORAGES) {
+            Path file = dir.resolve("journal-" + s);
+            GameJournal j = playLive(file, s);
+            try (JournalReplay r = new JournalReplay(file)) {
+                assertEquals(ROUNDS, r.getRounds());
+                for (long t : TARGETS) {
+                    JManBoard b = r.seek(t);
+                    TestBoards.assertSameBoard(live(j, t), b, "storage " + s + ", round " + t);
+                    r.playTo(b, Math.min(ROUNDS, t + 37));
+                    TestBoards.assertSameBoard(live(j, b.getTicks()), b,
+                                               "storage " + s + ", played on from round " + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    void replayWithoutCheckpoints() throws IOException {
+        Path file = dir.resolve("journal");
+        GameJournal j = playLive(file, JManBoard.STORAGE_PRIMITIVE);
+        Files.delete(GameJournal.checkpointsFor(file));
+        try (JournalReplay r = new JournalReplay(file)) {
+            for (long t : TARGETS) {
+                TestBoards.assertSameBoard(live(j, t), r.seek(t), "round " + t);
+            }
+        }
+    }
+
+    @Test
+    void checkpointCutShortIsIgnored() throws IOException {
+        Path file = dir.resolve("journal");
+        GameJournal j = playLive(file, JManBoard.STORAGE_PRIMITIVE);
+        Path ckpt = GameJournal.checkpointsFor(file);
+        try (FileChannel ch = FileChannel.open(ckpt, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 10);  // the checkpoint of round 700, as if the game crashed
+        }
+        try (JournalReplay r = new JournalReplay(file)) {
+            for (long t : TARGETS) {
+                TestBoards.assertSameBoard(live(j, t), r.seek(t), "round " + t);
+            }
+        }
+    }
+
+    /** Play ROUNDS rounds of a game with storage s, recorded in a journal in
+      * file.  Yields: the journal, closed. */
+    static GameJournal playLive(Path file, int s) throws IOException {
+        try (GameJournal j = new GameJournal(file, 30, 20, 40, 20, 20, s, CHECKPOINT_EVERY)) {
+            JManBoard b = j.newBoard();
+            for (int i= 0; i < ROUNDS; i= i+1) {
+                TestBoards.play(b, i, 1);
+                j.recordRound(b);
+            }
+            return j;
+        }
+    }
+
+    /** Yields: the board of the game recorded by journal j, as it was
+      * played live to round t. */
+    static JManBoard live(GameJournal j, long t) {
+        JManBoard b = j.newBoard();
+        TestBoards.play(b, 0, (int) t);
+        return b;
+    }
+}
@@ -0,0 +1,169 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests of GameServer, through sockets on this machine: the replies to the
+  * commands of several sessions, and the counts the server reports. */
+class GameServerTest {
+
+    /** Sessions played at once. */
+    static final int SESSIONS = 4;
+    /** Rounds played in each session. */
+    static final int ROUNDS = 25;
+
+    GameServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new GameServer(0, 2);
+    }
+
+    @AfterEach
+    void stop() {
+        server.shutdown();
+    }
+
+    @Test
+    void sessionsPlayTheirOwnGames() throws Exception {
+        Client[] clients = new Client[SESSIONS];
+        for (int i= 0; i < SESSIONS; i= i+1) {
+            clients[i] = new Client(server.getPort());
+        }
+        waitFor(() -> server.getSessions() == SESSIONS, "sessions open");
+        for (int i= 0; i < SESSIONS; i= i+1) {
+            assertEquals("OK " + (20 + i) + " 15", clients[i].ask("NEW " + (20 + i) + " 15 10 4 4"));
+        }
+        for (int r= 1; r <= ROUNDS; r= r+1) {
+            for (Client c : clients) {
+                String[] t = c.ask("UDLRN".substring(r % 5, r % 5 + 1)).split(" ");
+                assertEquals(4, t.length, String.join(" ", t));
+                assertEquals("T", t[0]);
+                assertEquals(r, Integer.parseInt(t[1]));
+                int captures = Integer.parseInt(t[2]), left = Integer.parseInt(t[3]);
+                assertTrue(captures >= 0 && left >= 0 && captures + left <= 8, String.join(" ", t));
+            }
+        }
+        for (Client c : clients) {
+            String[] s = c.ask("STATS").split(" ");
+            assertEquals("S", s[0]);
+            assertEquals(ROUNDS, Integer.parseInt(s[1]));
+            assertTrue(Long.parseLong(s[2]) <= Long.parseLong(s[3]), "mean <= max");
+        }
+        assertEquals(SESSIONS * (ROUNDS + 2), server.getCommands());
+        assertEquals(SESSIONS * ROUNDS, server.getLatency().getCount());
+
+        for (Client c : clients) {
+            c.send("QUIT");
+        }
+        waitFor(() -> server.getSessions() == 0, "sessions closed");
+    }
+
+    @Test
+    void badCommandsAreAnsweredWithErr() throws Exception {
+        Client c = new Client(server.getPort());
+        assertTrue(c.ask("U").startsWith("ERR no game"));
+        assertTrue(c.ask("NEW 5 5").startsWith("ERR usage"));
+        assertTrue(c.ask("NEW 100000 100000 0 1 1").startsWith("ERR board too big"));
+        assertTrue(c.ask("JUMP").startsWith("ERR unknown"));
+        assertEquals("OK " + JManBoard.DEFAULT_WIDTH + " " + JManBoard.DEFAULT_HEIGHT, c.ask("NEW"));
+        assertTrue(c.ask("N").startsWith("T 1 "));
+        c.close();
+    }
+
+    @Test
+    void clientThatDoesNotReadIsNotRead() throws Exception {
+        // A small socket buffer, so that the replies (about 14 MB) cannot all
+        // wait in the sockets.
+        Client c = new Client(server.getPort(), 8192);
+        assertEquals("OK 20 20", c.ask("NEW 20 20 10 4 4"));
+        int n = 1_000_000;
+        Thread writer = new Thread(() -> {
+            byte[] moves = "N\n".repeat(1000).getBytes(StandardCharsets.US_ASCII);
+            try {
+                for (int i= 0; i < n / 1000; i= i+1) {
+                    c.out.write(moves);
+                }
+                c.out.flush();
+            } catch (IOException e) {
+                // The test fails below.
+            }
+        });
+        writer.setDaemon(true);
+        writer.start();
+
+        // The replies fill the sockets, then out or the queue of commands,
+        // and the server stops reading.
+        long last = -1;
+        while (server.getCommands() != last) {
+            last = server.getCommands();
+            Thread.sleep(300);
+        }
+        assertTrue(last < n, "commands run while the replies were not read: " + last);
+
+        for (int i= 1; i <= n; i= i+1) {
+            String reply = c.in.readLine();
+            assertTrue(reply.startsWith("T " + i + " "), reply);
+        }
+        assertEquals(n + 1, server.getCommands());
+        c.close();
+    }
+
+    /* Wait up to 5 seconds for done to hold; fail with what otherwise. */
+    static void waitFor(java.util.function.BooleanSupplier done, String what) throws InterruptedException {
+        for (int i= 0; i < 500 && !done.getAsBoolean(); i= i+1) {
+            Thread.sleep(10);
+        }
+        assertTrue(done.getAsBoolean(), what);
+    }
+
+    /* A client of the server: a socket, its lines in, and its bytes out. */
+    static class Client {
+        Socket socket;
+        BufferedReader in;
+        OutputStream out;
+
+        Client(int port) throws IOException {
+            this(port, 0);
+        }
+
+        /* A client whose socket receives into a buffer of size bytes (0:
+         * the default size). */
+        Client(int port, int size) throws IOException {
+            socket = new Socket();
+            if (size > 0) socket.setReceiveBufferSize(size);
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = socket.getOutputStream();
+        }
+
+        /* Send line. */
+        void send(String line) throws IOException {
+            out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        /* Yields: the reply to line. */
+        String ask(String line) throws IOException {
+            send(line);
+            return in.readLine();
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+    }
+}
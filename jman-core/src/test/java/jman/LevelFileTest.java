@@ -0,0 +1,115 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests of LevelFile: a board saved as a level loads with the same cells,
+  * and a file that is not a valid level is rejected with an IOException
+  * that names the line at fault. */
+class LevelFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void saveAndLoadKeepTheCells() throws IOException {
+        for (int s : TestBoards.STORAGES) {
+            JManBoard b = new JManBoard(23, 17, 30, 12, 12, s, 5 + s);
+            TestBoards.play(b, 0, 10);
+            Path file = dir.resolve("level-" + s);
+            LevelFile.save(b, file);
+            JManBoard c = LevelFile.load(file);
+            String what = "storage " + s;
+            assertEquals(s, c.getStorageType(), what);
+            assertEquals(b.getJMan().getColor(), c.getJMan().getColor(), what + ", J*Man's color");
+            assertArrayEquals(TestBoards.cells(b), TestBoards.cells(c), what + ", cells");
+            for (int t : new int[] {Piece.BLOCK, Piece.WALKER, Piece.PILLAR}) {
+                assertEquals(b.getPieceCount(t), c.getPieceCount(t), what + ", pieces of type " + t);
+            }
+            for (int loaded : TestBoards.STORAGES) {
+                JManBoard d = LevelFile.load(file, loaded);
+                assertEquals(loaded, d.getStorageType(), what);
+                assertArrayEquals(TestBoards.cells(b), TestBoards.cells(d), what + ", loaded as " + loaded);
+            }
+        }
+    }
+
+    @Test
+    void levelWrittenByHand() throws IOException {
+        Path file = write("jman-level 1",
+                          "; a comment, then a blank line",
+                          "",
+                          "size 6 4",
+                          "storage primitive",
+                          "seed 42",
+                          "jman green",
+                          "board",
+                          "#.r",                 // short rows end in empty cells
+                          "  *  Y\r",
+                          "",
+                          "gG#..y");
+        JManBoard b = LevelFile.load(file);
+        assertEquals(6, b.getWidth());
+        assertEquals(4, b.getHeight());
+        assertEquals(JManBoard.STORAGE_PRIMITIVE, b.getStorageType());
+        assertEquals(Piece.GREEN, b.getJMan().getColor());
+        assertEquals(2, b.getJMan().getX());
+        assertEquals(1, b.getJMan().getY());
+        assertEquals(Piece.PILLAR, b.typeAt(5, 1));
+        assertEquals(Piece.YELLOW, b.colorAt(5, 1));
+        assertEquals(Piece.WALKER, b.typeAt(0, 3));
+        assertEquals(BoardCells.EMPTY, b.typeAt(3, 0));
+        assertEquals(BoardCells.EMPTY, b.typeAt(0, 2));
+        assertEquals(2, b.getPieceCount(Piece.BLOCK));
+
+        // The seed fixes the game.
+        JManBoard c = LevelFile.load(file);
+        TestBoards.play(b, 0, 50);
+        TestBoards.play(c, 0, 50);
+        TestBoards.assertSameBoard(b, c, "the same level and seed");
+    }
+
+    @Test
+    void loadRejectsBadLevels() throws IOException {
+        assertBad("not a J*Man level", "jman-level");
+        assertBad("not a J*Man level", "level 1", "size 2 2", "board", "*.", "..");
+        assertBad("unsupported version", "jman-level 9", "size 2 2", "board", "*.", "..");
+        assertBad("line 2: bad header line", "jman-level 1", "size 2", "board", "*.", "..");
+        assertBad("line 3: bad header line", "jman-level 1", "size 2 2", "storage arrays", "board", "*.", "..");
+        assertBad("line 3: bad header line", "jman-level 1", "size 2 2", "jman white", "board", "*.", "..");
+        assertBad("no line \"board\"", "jman-level 1", "size 2 2");
+        assertBad("no valid line \"size w h\"", "jman-level 1", "board", "*.", "..");
+        assertBad("no valid line \"size w h\"", "jman-level 1", "size 0 2", "board", "", "");
+        assertBad("too big", "jman-level 1", "size 100000 100000", "board", "*");
+        assertBad("line 4: a second J*Man", "jman-level 1", "size 3 2", "board", "*.*", "...");
+        assertBad("line 5: row 1 is longer than 3", "jman-level 1", "size 3 2", "board", "*..", "....");
+        assertBad("line 4: 'x' is not a cell", "jman-level 1", "size 3 2", "board", "*x.", "...");
+        assertBad("only 2 of 3 rows", "jman-level 1", "size 3 3", "board", "*..", "...");
+        assertBad("no J*Man", "jman-level 1", "size 3 2", "board", "r..", "..G");
+    }
+
+    /** Yields: a file whose lines are lines. */
+    Path write(String... lines) throws IOException {
+        Path file = Files.createTempFile(dir, "level", ".txt");
+        Files.write(file, (String.join("\n", lines) + "\n").getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    /** Assert that loading a level whose lines are lines throws an
+      * IOException whose message contains message. */
+    void assertBad(String message, String... lines) throws IOException {
+        Path file = write(lines);
+        IOException e = assertThrows(IOException.class, () -> LevelFile.load(file), message);
+        assertTrue(e.getMessage().contains(message), message + ": " + e.getMessage());
+    }
+}
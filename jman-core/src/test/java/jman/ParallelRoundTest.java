@@ -0,0 +1,77 @@
+package jman;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Tests of rounds played in parallel (see class ParallelRound): the game
+  * played on a board depends on its seed only, not on the number of threads
+  * that play it. */
+class ParallelRoundTest {
+
+    /** Rounds played in each test. */
+    static final int ROUNDS = 200;
+    /** Threads of the pools compared. */
+    static final int[] THREADS = {1, 2, 8};
+
+    static ForkJoinPool[] pools = new ForkJoinPool[THREADS.length];
+
+    @BeforeAll
+    static void startPools() {
+        for (int i= 0; i < THREADS.length; i= i+1) {
+            pools[i] = new ForkJoinPool(THREADS[i]);
+        }
+    }
+
+    @AfterAll
+    static void stopPools() {
+        for (ForkJoinPool p : pools) {
+            p.shutdown();
+        }
+    }
+
+    @Test
+    void everyPoolPlaysTheSameGame() {
+        for (int s : TestBoards.STORAGES) {
+            // Without a pool, the stripes act one after the other.
+            JManBoard serial = newBoard(s);
+            JManBoard[] boards = new JManBoard[pools.length];
+            for (int i= 0; i < pools.length; i= i+1) {
+                boards[i] = newBoard(s);
+            }
+            for (int r= 0; r < ROUNDS; r= r+1) {
+                serial.changeJManDirection(TestBoards.direction(r));
+                serial.act((ForkJoinPool) null);
+                for (int i= 0; i < pools.length; i= i+1) {
+                    boards[i].changeJManDirection(TestBoards.direction(r));
+                    boards[i].act(pools[i]);
+                    TestBoards.assertSameBoard(serial, boards[i],
+                                               "storage " + s + ", " + THREADS[i] + " threads, round " + (r + 1));
+                }
+            }
+        }
+    }
+
+    @Test
+    void listenersDoNotChangeTheGame() {
+        JManBoard quiet = newBoard(JManBoard.STORAGE_PRIMITIVE);
+        JManBoard heard = newBoard(JManBoard.STORAGE_PRIMITIVE);
+        ChangedCells changed = new ChangedCells();
+        heard.addBoardListener(changed);
+        for (int r= 0; r < ROUNDS; r= r+1) {
+            quiet.changeJManDirection(TestBoards.direction(r));
+            quiet.act(pools[0]);
+            heard.changeJManDirection(TestBoards.direction(r));
+            heard.act(pools[pools.length - 1]);
+            TestBoards.assertSameBoard(quiet, heard, "round " + (r + 1));
+        }
+    }
+
+    /** Yields: a board with storage s, tall enough for several stripes, and
+      * a fixed seed. */
+    static JManBoard newBoard(int s) {
+        return new JManBoard(90, 5 * ParallelRound.STRIPE_HEIGHT + 7, 800, 400, 400, s, 17 + s);
+    }
+}
@@ -0,0 +1,107 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Tests of how often walkers and pillars act: over many rounds, played
+  * with act() or act(pool), each does something with probability
+  * 1/Piece.ACTION_ODDS a round, as if it rolled a die of its own. */
+class PieceActionTest {
+
+    /** Rounds played in each test. */
+    static final int ROUNDS = 1000;
+    /** Largest relative difference allowed between a count and its
+      * expectation: several standard deviations for the counts here, but
+      * far less than the difference the odds 1/2 or 1/4 would make. */
+    static final double TOLERANCE = 0.02;
+
+    static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void walkersStepOnceInActionOddsRounds() {
+        for (boolean parallel : new boolean[] {false, true}) {
+            // Few walkers and no other pieces, so a walker that acts almost always
+            // finds the cell it chose empty, and no other walker takes its cell.
+            JManBoard b = new JManBoard(200, 200, 0, 400, 0, JManBoard.STORAGE_PRIMITIVE, 41);
+            long free = 0, stepped = 0;  // walkers with 4 empty neighbours, and those that left
+            for (int r= 0; r < ROUNDS; r= r+1) {
+                boolean[] before = new boolean[b.getWidth() * b.getHeight()];
+                for (int y= 0; y < b.getHeight(); y= y+1) {
+                    for (int x= 0; x < b.getWidth(); x= x+1) {
+                        before[y*b.getWidth() + x] = b.typeAt(x, y) == Piece.WALKER
+                            && b.isEmpty(x - 1, y) && b.isEmpty(x + 1, y)
+                            && b.isEmpty(x, y - 1) && b.isEmpty(x, y + 1);
+                    }
+                }
+                play(b, parallel);
+                for (int i= 0; i < before.length; i= i+1) {
+                    if (before[i]) {
+                        free= free+1;
+                        if (b.typeAt(i % b.getWidth(), i / b.getWidth()) == BoardCells.EMPTY) {
+                            stepped= stepped+1;
+                        }
+                    }
+                }
+            }
+            assertNear((double) free / Piece.ACTION_ODDS, stepped, "walkers stepped, parallel " + parallel);
+        }
+    }
+
+    @Test
+    void pillarsChooseTheirColorOnceInActionOddsRounds() {
+        for (boolean parallel : new boolean[] {false, true}) {
+            JManBoard b = new JManBoard(100, 100, 0, 0, 2000, JManBoard.STORAGE_PRIMITIVE, 43);
+            long pillars = 0, recolored = 0;
+            int[] colors = new int[b.getWidth() * b.getHeight()];
+            for (int r= 0; r < ROUNDS; r= r+1) {
+                for (int i= 0; i < colors.length; i= i+1) {
+                    int x = i % b.getWidth(), y = i / b.getWidth();
+                    colors[i] = b.typeAt(x, y) == Piece.PILLAR ? b.colorAt(x, y) : -1;
+                }
+                play(b, parallel);
+                for (int i= 0; i < colors.length; i= i+1) {
+                    if (colors[i] >= 0) {
+                        pillars= pillars+1;
+                        if (b.colorAt(i % b.getWidth(), i / b.getWidth()) != colors[i]) {
+                            recolored= recolored+1;
+                        }
+                    }
+                }
+            }
+            // A pillar that acts chooses one of 3 colors, so 2 times in 3 a new one.
+            assertNear(pillars * 2.0 / 3 / Piece.ACTION_ODDS, recolored,
+                       "pillars recolored, parallel " + parallel);
+        }
+    }
+
+    /** Play a round of b in which J*Man stays put, in parallel on pool if parallel. */
+    static void play(JManBoard b, boolean parallel) {
+        b.changeJManDirection(JManBoard.MOVE_NONE);
+        if (parallel) {
+            b.act(pool);
+        } else {
+            b.act();
+        }
+    }
+
+    /** Assert that count is within TOLERANCE of expected. */
+    static void assertNear(double expected, long count, String what) {
+        assertTrue(Math.abs(count - expected) <= TOLERANCE * expected,
+                   what + ": " + count + ", expected about " + Math.round(expected));
+    }
+}
@@ -0,0 +1,166 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests of the walkers and pillars a board keeps count of (see class
+  * TargetIndex): after every kind of change to a board, its counts and the
+  * nearest pieces it finds are the ones a scan of the whole board finds. */
+class TargetIndexTest {
+
+    /** Rounds played in each test. */
+    static final int ROUNDS = 60;
+
+    static ForkJoinPool pool;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void matchesAScanAfterSerialRounds() {
+        for (int s : TestBoards.STORAGES) {
+            JManBoard b = newBoard(s);
+            assertIndexed(b, "storage " + s + ", new board");
+            for (int i= 0; i < ROUNDS; i= i+1) {
+                TestBoards.play(b, i, 1);
+                assertIndexed(b, "storage " + s + ", round " + b.getTicks());
+            }
+        }
+    }
+
+    @Test
+    void matchesAScanAfterParallelRounds() {
+        for (int s : TestBoards.STORAGES) {
+            JManBoard b = newBoard(s);
+            for (int i= 0; i < ROUNDS; i= i+1) {
+                b.changeJManDirection(TestBoards.direction(i));
+                b.act(pool);
+                assertIndexed(b, "storage " + s + ", parallel round " + b.getTicks());
+            }
+        }
+    }
+
+    @Test
+    void matchesAScanAfterUndoAndRedo() {
+        for (int s : TestBoards.STORAGES) {
+            JManBoard b = newBoard(s);
+            b.recordHistory(1L << 24);
+            TestBoards.play(b, 0, ROUNDS);
+            while (b.undo()) {
+                assertIndexed(b, "storage " + s + ", undone to round " + b.getTicks());
+            }
+            assertEquals(0, b.getTicks());
+            for (int i= 0; i < ROUNDS / 2; i= i+1) {
+                assertTrue(b.redo());
+            }
+            assertIndexed(b, "storage " + s + ", redone to round " + b.getTicks());
+            b.rewindTo(ROUNDS / 4);
+            assertIndexed(b, "storage " + s + ", rewound to round " + b.getTicks());
+        }
+    }
+
+    @Test
+    void matchesAScanAfterLoad() throws IOException {
+        for (int s : TestBoards.STORAGES) {
+            JManBoard b = newBoard(s);
+            TestBoards.play(b, 0, ROUNDS / 2);
+            Path file = dir.resolve("board-" + s);
+            BoardFile.save(b, file);
+            for (int loaded : TestBoards.STORAGES) {
+                JManBoard c = BoardFile.load(file, loaded);
+                assertIndexed(c, "saved as " + s + ", loaded as " + loaded);
+                TestBoards.play(c, ROUNDS / 2, ROUNDS / 2);
+                assertIndexed(c, "saved as " + s + ", loaded as " + loaded + ", round " + c.getTicks());
+            }
+        }
+    }
+
+    /** Yields: a board with storage s that spans several buckets each way,
+      * and has several walkers and pillars of each color. */
+    static JManBoard newBoard(int s) {
+        return new JManBoard(70, 50, 300, 120, 120, s, 99 + s);
+    }
+
+    /** Assert that the counts and nearest pieces b yields are those found by
+      * scanning all of its cells. */
+    static void assertIndexed(JManBoard b, String what) {
+        int[][] counts = new int[4][3];
+        for (int y= 0; y < b.getHeight(); y= y+1) {
+            for (int x= 0; x < b.getWidth(); x= x+1) {
+                int t = b.typeAt(x, y);
+                if (t == Piece.WALKER || t == Piece.PILLAR) {
+                    counts[t][b.colorAt(x, y)]= counts[t][b.colorAt(x, y)] + 1;
+                }
+            }
+        }
+        for (int c= 0; c < 3; c= c+1) {
+            assertEquals(counts[Piece.WALKER][c], b.getPieceCount(Piece.WALKER, c), what + ", walkers of color " + c);
+            assertEquals(counts[Piece.PILLAR][c], b.getPieceCount(Piece.PILLAR, c), what + ", pillars of color " + c);
+        }
+
+        int prey = Piece.preyOf(b.getJMan().getColor());
+        int capturable = prey == -1 ? 0 : counts[Piece.WALKER][prey] + counts[Piece.PILLAR][prey];
+        assertEquals(capturable, b.getCapturableCount(), what + ", capturable");
+
+        int[][] from = {{b.getJMan().getX(), b.getJMan().getY()}, {0, 0},
+                        {b.getWidth() - 1, b.getHeight() - 1}, {b.getWidth() / 2, 3}};
+        for (int[] p : from) {
+            for (int c= 0; c < 3; c= c+1) {
+                for (int k : new int[] {1, 7, 1000}) {
+                    assertNearest(b, p[0], p[1], c, k, what);
+                }
+            }
+        }
+    }
+
+    /** Assert that b.nearest(x, y, c, k, ...) finds pieces of color c at the
+      * k smallest distances from (x, y), nearest first, each once. */
+    static void assertNearest(JManBoard b, int x, int y, int c, int k, String what) {
+        int[] all = new int[b.getWidth() * b.getHeight()];
+        int n = 0;
+        for (int yy= 0; yy < b.getHeight(); yy= yy+1) {
+            for (int xx= 0; xx < b.getWidth(); xx= xx+1) {
+                int t = b.typeAt(xx, yy);
+                if ((t == Piece.WALKER || t == Piece.PILLAR) && b.colorAt(xx, yy) == c) {
+                    all[n] = Math.abs(xx - x) + Math.abs(yy - y);
+                    n= n+1;
+                }
+            }
+        }
+        Arrays.sort(all, 0, n);
+
+        int[] xs = new int[k], ys = new int[k];
+        int found = b.nearest(x, y, c, k, xs, ys);
+        String where = what + ", nearest " + k + " of color " + c + " to " + x + ", " + y;
+        assertEquals(Math.min(k, n), found, where);
+        for (int i= 0; i < found; i= i+1) {
+            int t = b.typeAt(xs[i], ys[i]);
+            assertTrue((t == Piece.WALKER || t == Piece.PILLAR) && b.colorAt(xs[i], ys[i]) == c,
+                       where + ": no such piece at " + xs[i] + ", " + ys[i]);
+            assertEquals(all[i], Math.abs(xs[i] - x) + Math.abs(ys[i] - y), where + ", #" + i);
+            for (int j= 0; j < i; j= j+1) {
+                assertTrue(xs[i] != xs[j] || ys[i] != ys[j], where + ": found twice");
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package jman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Boards for the tests: games played in a fixed pattern of directions, and
+  * assertions that two boards are the same. */
+class TestBoards {
+
+    static final int[] STORAGES = {JManBoard.STORAGE_OBJECTS, JManBoard.STORAGE_PRIMITIVE,
+                                   JManBoard.STORAGE_CHUNKED};
+
+    private TestBoards() {
+    }
+
+    /** Yields: the direction J*Man is given in round i of a test game. */
+    static int direction(long i) {
+        return JManBoard.MOVE_UP + (int) ((i / 3) % 4);
+    }
+
+    /** Play n rounds of b, the first being round first of the game, moving
+      * J*Man in direction(i) in round i. */
+    static void play(JManBoard b, long first, int n) {
+        for (long i= first; i < first + n; i= i+1) {
+            b.changeJManDirection(direction(i));
+            b.act();
+        }
+    }
+
+    /** Assert that boards b and c are the same: the same cells, rounds,
+      * captures, next direction of J*Man, and state of the generator. */
+    static void assertSameBoard(JManBoard b, JManBoard c, String what) {
+        assertEquals(b.getWidth(), c.getWidth(), what);
+        assertEquals(b.getHeight(), c.getHeight(), what);
+        assertEquals(b.getTicks(), c.getTicks(), what + ", rounds");
+        assertEquals(b.getCaptures(), c.getCaptures(), what + ", captures");
+        assertEquals(b.nextJManDirection(), c.nextJManDirection(), what + ", next direction");
+        assertArrayEquals(b.getRandom().getState(), c.getRandom().getState(), what + ", generator");
+        assertArrayEquals(cells(b), cells(c), what + ", cells");
+    }
+
+    /** Yields: the type of each cell of b, row by row, then the color code
+      * of each cell (0 if it is empty). */
+    static byte[] cells(BoardCells b) {
+        int w = b.getWidth(), n = w * b.getHeight();
+        byte[] cells = new byte[2*n];
+        for (int i= 0; i < n; i= i+1) {
+            int t = b.typeAt(i % w, i / w);
+            cells[i] = (byte) t;
+            cells[n + i] = t == BoardCells.EMPTY ? 0 : (byte) b.colorAt(i % w, i / w);
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,181 @@
+package jman;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/** This class is a VIEW class.  An instance of this class draws a game
+  * board onto any Graphics: the panel of a JManFrame, or an offscreen
+  * image when there is no display (e.g. in benchmarks).  Each tile is
+  * JManFrame.TILE_WIDTH x JManFrame.TILE_HEIGHT pixels unless the tile
+  * size is changed, e.g. to zoom in or out.  Tiles smaller than
+  * MIN_SHAPE_SIZE are too small to show the shapes of the pieces, so
+  * each one is drawn as a square of the color of its piece instead.  */
+public class BoardPainter {
+
+    /** Smallest tile width and height in pixels at which the pieces are
+      * drawn as shapes. */
+    public static final int MIN_SHAPE_SIZE = 4;
+
+    /* The color to draw for each color code of Piece (RED, GREEN, YELLOW, WHITE). */
+    private static final Color[] COLORS = {Color.red, Color.green, Color.yellow, Color.white};
+    /* The RGB value of each color in COLORS. */
+    private static final int[] RGBS = new int[COLORS.length];
+    static {
+        for (int c= 0; c < COLORS.length; c= c+1) {
+            RGBS[c] = COLORS[c].getRGB();
+        }
+    }
+
+    private int height; // height of the game board in tiles.
+    private int width;  // width of the game board in tiles.
+    private int tileWidth  = JManFrame.TILE_WIDTH;  // width of a tile in pixels.
+    private int tileHeight = JManFrame.TILE_HEIGHT; // height of a tile in pixels.
+    private BufferedImage cells; // one pixel per cell, for painting small tiles
+    private int[] pixels = new int[0]; // colors of the cells of image cells
+
+    /** Constructor: a painter for a w x h game board. */
+    public BoardPainter(int w, int h) {
+        width  = w;
+        height = h;
+    }
+
+    /** Yields: the width of a tile in pixels. */
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    /** Yields: the height of a tile in pixels. */
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    /** Set the width and height of a tile to w x h pixels.
+      * Precondition: w > 0 and h > 0. */
+    public void setTileSize(int w, int h) {
+        tileWidth  = w;
+        tileHeight = h;
+    }
+
+    /** Yields: the width and height of the whole board in pixels. */
+    public Dimension getBoardSize() {
+        return new Dimension(tileWidth*width, tileHeight*height);
+    }
+
+    /** Paint the game board into g, starting at pixel (0, 0).  If board is
+      * null, paint only the background.  board may be a live JManBoard or a
+      * BoardSnapshot of one.  Only the tiles that intersect the
+      * clip of g are painted, so a repaint of a small part of the board
+      * costs time proportional to that part.  Yields: the number of tiles
+      * painted (0 if board is null). */
+    public int paint(Graphics g, BoardCells board) {
+        final int TILE_WIDTH  = tileWidth;
+        final int TILE_HEIGHT = tileHeight;
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, TILE_WIDTH*width, TILE_HEIGHT*height);
+        }
+
+        //paint the background
+        g.setColor(Color.BLACK);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Only continue if there is a board
+        if (board == null) {
+            return 0;
+        }
+
+        // Paint each element of the game board that is in the clip
+        int i0 = Math.max(0, clip.x / TILE_WIDTH);
+        int j0 = Math.max(0, clip.y / TILE_HEIGHT);
+        int i1 = Math.min(width,  (clip.x + clip.width  + TILE_WIDTH  - 1) / TILE_WIDTH);
+        int j1 = Math.min(height, (clip.y + clip.height + TILE_HEIGHT - 1) / TILE_HEIGHT);
+        int n = Math.max(0, i1 - i0) * Math.max(0, j1 - j0);
+        if (TILE_WIDTH < MIN_SHAPE_SIZE || TILE_HEIGHT < MIN_SHAPE_SIZE) {
+            paintCells(g, board, i0, j0, i1, j1);
+            return n;
+        }
+        for (int i= i0; i < i1; i= i+1) {
+            for (int j= j0; j < j1; j= j+1) {
+                int type = board.typeAt(i,j);
+                if (type != BoardCells.EMPTY) {
+                    paintPiece(g, type, colorOf(board.colorAt(i,j)), i, j);
+                }
+            }
+        }
+        return n;
+    }
+
+    /* Paint tiles i0..i1-1 x j0..j1-1 of board into g as squares of the
+     * colors of their pieces: fill an image with one pixel per cell and
+     * draw it scaled to the tile size.  Takes time proportional to the
+     * number of tiles, and draws each one with a single pixel write. */
+    private void paintCells(Graphics g, BoardCells board, int i0, int j0, int i1, int j1) {
+        int w = i1 - i0, h = j1 - j0;
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        if (cells == null || cells.getWidth() < w || cells.getHeight() < h) {
+            cells = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            pixels = new int[w*h];
+        }
+        for (int j= j0; j < j1; j= j+1) {
+            int row = (j - j0)*w;
+            for (int i= i0; i < i1; i= i+1) {
+                pixels[row + i - i0] = board.typeAt(i, j) == BoardCells.EMPTY
+                    ? 0 : rgbOf(board.colorAt(i, j));
+            }
+        }
+        cells.setRGB(0, 0, w, h, pixels, 0, w);
+        g.drawImage(cells, i0*tileWidth, j0*tileHeight, i1*tileWidth, j1*tileHeight,
+                    0, 0, w, h, null);
+    }
+
+    /** Yields: the color to draw for color code c, one of Piece.RED,
+      * Piece.GREEN, Piece.YELLOW and Piece.WHITE. */
+    public static Color colorOf(int c) {
+        return COLORS[c];
+    }
+
+    /** Yields: the RGB value of colorOf(c). */
+    public static int rgbOf(int c) {
+        return RGBS[c];
+    }
+
+    /** Yields: the rectangle of pixels of tile (i, j). */
+    public Rectangle tileBounds(int i, int j) {
+        return new Rectangle(i * tileWidth, j * tileHeight, tileWidth, tileHeight);
+    }
+
+    /** Paint a piece of type type and color color into g as tile (i, j),
+      * over whatever is already there. */
+    public void paintPiece(Graphics g, int type, Color color, int i, int j) {
+        final int TILE_WIDTH  = tileWidth;
+        final int TILE_HEIGHT = tileHeight;
+
+        // tile (i, j) is in pixels (h..h1-1, v..v1-1)
+        int h  = i * TILE_WIDTH;
+        int h1 = (i+1) * TILE_WIDTH;
+        int v  = j * TILE_HEIGHT;
+        int v1 = (j+1) * TILE_HEIGHT;
+
+        g.setColor(color);
+        if (type == Piece.BLOCK) {
+            // Tile is a block; fill it with a square.
+            g.fillRect(h+1, v, TILE_WIDTH-2, TILE_HEIGHT-2);
+        } else if (type == Piece.JMAN){
+            // Fill J*Man's square with J*Man's Asterix Icon.
+            g.drawLine(h+3, v+2, h1-3, v1-2);
+            g.drawLine(h+3, v1-2, h1-3, v+2);
+            g.drawLine(h+1, v+TILE_HEIGHT/2, h1-1, v+TILE_HEIGHT/2);
+            g.drawLine(h+TILE_WIDTH/2, v+1, h+TILE_WIDTH/2, v1-1);
+        } else if (type == Piece.WALKER){
+            //Tile is a walker, fill it with an appropriate colored triangle.
+            g.fillPolygon(new int[]{h+1, h1-1, h+TILE_WIDTH/2},
+                          new int[]{v1-2, v1-2, v}, 3);
+        } else if (type == Piece.PILLAR){
+            // Tile is a pillar, fill it with an appropriate colored disk.
+            g.fillOval(h+1, v, TILE_WIDTH-2, TILE_HEIGHT-2);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package jman;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import javax.swing.*;
+
+/** This class is a CONTROLLER class; an instances of this class start
+  * the game and allocate all of the other necessary objects.  They
+  * also communicate between the view and the model via call-back
+  * functions (e.g. Listeners).         */
+public class JManApp implements ActionListener {
+    
+    /** Constants that define button functionality in the game */
+    /** Command to create a new game. */
+    public static final String BUTTON_NEW_GAME = "button_new";
+    /** Command to move up. */
+    public static final String BUTTON_UP       = "button_up";
+    /** Command to move down. */
+    public static final String BUTTON_DOWN     = "button_down";
+    /** Command to move left. */
+    public static final String BUTTON_LEFT     = "button_left";
+    /** Command to move right. */
+    public static final String BUTTON_RIGHT    = "button_right";
+    /** Command to undo the last round. */
+    public static final String BUTTON_UNDO     = "button_undo";
+    /** Command to redo the last round undone. */
+    public static final String BUTTON_REDO     = "button_redo";
+    /** Command to start or stop fast-forward (a toggle button). */
+    public static final String BUTTON_FAST_FORWARD = "button_fast_forward";
+
+    /** Frames a second drawn in real-time mode, whatever the tick rate. */
+    public static final int FRAMES_PER_SECOND = 60;
+    /** Bytes of history kept to undo rounds, per game. */
+    public static final long HISTORY_BYTES = 64L << 20;
+        
+    private volatile JManBoard board; // The game board
+    private JManFrame view;   // The application view.
+    private SimulationThread simulation; // The thread that plays the game.
+
+    // In real-time and fast-forward mode (and after them): the timer that
+    // draws a frame, the cells changed by the rounds played since the last
+    // frame ("all of them" if repaintAll), and in real-time mode the
+    // statistics of the game.  frameTimer is null before either mode starts.
+    private volatile Timer frameTimer;
+    private ChangedCells unpainted = new ChangedCells();
+    private boolean repaintAll;
+    private TickStats stats;
+    
+    /** Application main. Initializes a new game: the default game, or, if
+      * pars is "w h bl wa pi", a w x h game with bl blocks, wa walkers, and
+      * pi pillars.  Boards too big for the screen are shown in a viewport.
+      * pars may start with options:
+      *   "--realtime n": the game is played in real time at n rounds a second;
+      *   "--journal file": the first game is recorded in file (see GameJournal);
+      *   "--level file": the first game is played on the level in file (see
+      *   LevelFile); not with --journal, since a journal replays only the
+      *   random boards JManBoard makes from a seed;
+      *   "--spectate target": the games are sent to target, a file, pipe, or
+      *   "tcp:port", for a FrameReader in another process (see FrameStream). */
+    public static void main(String[] pars) throws IOException {
+        int ticksPerSecond = 0;
+        String journalFile = null;
+        String spectate = null;
+        String levelFile = null;
+        while (pars.length >= 2 && pars[0].startsWith("--")) {
+            if (pars[0].equals("--realtime")) {
+                ticksPerSecond = Integer.parseInt(pars[1]);
+            } else if (pars[0].equals("--journal")) {
+                journalFile = pars[1];
+            } else if (pars[0].equals("--spectate")) {
+                spectate = pars[1];
+            } else if (pars[0].equals("--level")) {
+                levelFile = pars[1];
+            } else {
+                throw new IllegalArgumentException("Unknown option " + pars[0]);
+            }
+            pars = Arrays.copyOfRange(pars, 2, pars.length);
+        }
+        if (journalFile != null && levelFile != null) {
+            throw new IllegalArgumentException("--journal cannot record a game on a --level board");
+        }
+        JManBoard level = levelFile == null ? null : LevelFile.load(Paths.get(levelFile));
+        int w = JManBoard.DEFAULT_WIDTH, h = JManBoard.DEFAULT_HEIGHT;
+        int bl = JManBoard.DEFAULT_BLOCKS, wa = JManBoard.DEFAULT_WALKERS;
+        int pi = JManBoard.DEFAULT_PILLARS;
+        if (pars.length == 5) {
+            w = Integer.parseInt(pars[0]);
+            h = Integer.parseInt(pars[1]);
+            bl = Integer.parseInt(pars[2]);
+            wa = Integer.parseInt(pars[3]);
+            pi = Integer.parseInt(pars[4]);
+        }
+        if (level != null) {
+            w = level.getWidth();
+            h = level.getHeight();
+            bl = wa = pi = 0;
+        }
+        JManApp app = new JManApp(h, w, bl, wa, pi);
+        if (journalFile != null) {
+            GameJournal journal = new GameJournal(Paths.get(journalFile), w, h, bl, wa, pi,
+                                                  JManBoard.STORAGE_OBJECTS,
+                                                  GameJournal.DEFAULT_CHECKPOINT_EVERY);
+            app.simulation.newGame(() -> app.board = withHistory(journal.newBoard()), journal);
+        } else if (level != null) {
+            JManBoard b = level;
+            app.simulation.newGame(() -> app.board = withHistory(b));
+        }
+        if (spectate != null) {
+            String target = spectate;
+            app.simulation.spectate(b -> {
+                try {
+                    return FrameStream.open(b, target, true);
+                } catch (IOException e) {
+                    System.err.println("Not spectated: " + e);
+                    return null;
+                }
+            });
+        }
+        if (ticksPerSecond > 0) {
+            int tps = ticksPerSecond;
+            SwingUtilities.invokeLater(() -> app.startRealTime(tps));
+        }
+    }
+    
+    /** Constructor: a default 20 x 20 game with 10 walkers, 10 pillars,
+      * and 20 blocks placed randomly throughout the game board. 
+      * J*Man is at position (0, 0), and all other pieces are placed 
+      * randomly about the aboard */
+    public JManApp(){
+        this(JManBoard.DEFAULT_WIDTH,  JManBoard.DEFAULT_HEIGHT, 
+             JManBoard.DEFAULT_BLOCKS, JManBoard.DEFAULT_WALKERS, 
+             JManBoard.DEFAULT_PILLARS);
+    }
+    
+    /** Constructor: a game with an h x w game board with bl blocks, wa walkers, 
+      * and pi pillars. 
+      * J*Man is at position (0, 0), and all other pieces are placed randomly.
+      * Precondition: number of pieces specified is <= h*w. */
+    public JManApp(int h, int w, int bl, int wa, int pi) {
+        // Create a new view and register this as a listener
+        view = new JManFrame(w,h);
+        
+        // Create the game board, put J*Man in (0,0), and
+        // put the rest of the pieces randomly on the JManGUI.
+        board = new JManBoard(w,h,bl,wa,pi);
+        board.recordHistory(HISTORY_BYTES);
+
+        // Play it on its own thread, which tells the view what changed.
+        simulation = new SimulationThread(board, this::roundPlayed);
+        view.addController(this);        
+        view.setVisible(true);
+        simulation.start();
+    }
+    
+    /* Yields: b, after starting to record its history. */
+    private static JManBoard withHistory(JManBoard b) {
+        b.recordHistory(HISTORY_BYTES);
+        return b;
+    }
+
+    /** Yields: the current game board.  It is owned by the simulation thread,
+      * so other threads should read it only through getSnapshots(). */
+    public JManBoard getBoard() {
+        return board;
+    }
+
+    /** Switch to real-time mode: rounds are played ticksPerSecond times a
+      * second whatever the buttons pushed, and the view draws the rounds
+      * played so far FRAMES_PER_SECOND times a second, so the frame rate
+      * does not depend on the tick rate.  The title of the view reports the
+      * tick rate, jitter, missed deadlines, and frame rate once a second.
+      * Must be called on the event dispatch thread, at most once. */
+    public void startRealTime(int ticksPerSecond) {
+        stats = simulation.startRealTime(ticksPerSecond);
+        startFrames();
+        new Timer(1000, e -> view.showStatus(stats.report())).start();
+    }
+
+    /** Stop fast-forward mode if it is on, and otherwise start it: while it
+      * is on, J*Man is moved by an Autopilot and rounds are played in batches
+      * as fast as the simulation thread can play them, and the view draws
+      * the rounds played so far at most FRAMES_PER_SECOND times a second,
+      * however many there were.  It stops by itself when the game is over.
+      * Whether it is on is decided by the simulation thread, and the view's
+      * button follows it each frame.  Must be called on the event dispatch thread. */
+    public void toggleFastForward() {
+        startFrames();
+        simulation.toggleFastForward(new Autopilot());
+    }
+
+    /* Start drawing the rounds played FRAMES_PER_SECOND times a second,
+     * rather than after each round, unless that was started already. */
+    private void startFrames() {
+        if (frameTimer != null) return;
+        Timer t = new Timer(1000 / FRAMES_PER_SECOND, e -> drawFrame());
+        t.setCoalesce(true);
+        frameTimer = t;
+        t.start();
+    }
+
+    /* Tell the view about the cells changed by a round (null: all of them).
+     * Called on the simulation thread after each round. */
+    private void roundPlayed(int[] cells) {
+        if (frameTimer == null) {
+            SwingUtilities.invokeLater(() -> view.cellsChanged(cells));
+            return;
+        }
+        synchronized (unpainted) {
+            if (cells == null) {
+                repaintAll = true;
+            } else if (!repaintAll) {
+                for (int k= 0; k < cells.length; k= k+2) {
+                    unpainted.add(cells[k], cells[k+1]);
+                }
+            }
+        }
+    }
+
+    /* Draw the cells changed by the rounds played since the last frame. */
+    private void drawFrame() {
+        int[] cells;
+        synchronized (unpainted) {
+            cells = repaintAll ? null : unpainted.toArray();
+            unpainted.clear();
+            repaintAll = false;
+        }
+        if (cells == null || cells.length > 0) {
+            view.cellsChanged(cells);
+            if (stats != null) stats.frameRendered();
+        }
+        view.showFastForward(simulation.isFastForward());
+    }
+
+    /** Yields: the buffer of snapshots through which the view reads the board. */
+    public SnapshotBuffer getSnapshots() {
+        return simulation.getSnapshots();
+    }
+    
+    /** Process a button push.
+      * If the button was newGame, open a dialog and ask whether a new game
+      * is desired and act accordingly.
+      * 
+      * If the button was bUp, bDown, bLeft, or bRight, queue a round on the
+      * simulation thread in which JMan moves in that direction and then all
+      * other pieces act (in real-time mode, queue the direction for the next
+      * round).  This method returns at once; the view is repainted when the
+      * round is over.
+      *
+      * If the button was bUndo or bRedo, queue the undoing of the last round
+      * or the redoing of the last round undone.
+      *
+      * If the button was bFastForward, stop fast-forward mode if it is on,
+      * and otherwise start it.
+      *
+      * Button pushes are queued, so they are handled one at a time, in order. */
+    public void actionPerformed(ActionEvent e) {
+        if (e.getActionCommand().equals(BUTTON_NEW_GAME)) {
+            if (JOptionPane.showConfirmDialog(view, 
+                                              "Start a new game of the current size?",
+                                              "New Game?",
+                                              JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
+                System.out.println(e);
+                // This is going to take a while, so it is done on the simulation thread.
+                simulation.newGame(() -> board = withHistory(new JManBoard()));
+                return;
+            }
+        }
+        
+        /** Set field nextJManDirection to the direction in which JMan should move.
+          *  It should be one of the JManBoard constants MOVE_UP, MOVE_DOWN, 
+          *  MOVE_LEFT, or MOVE_RIGHT */
+        if (e.getActionCommand().equals(BUTTON_UP)) {
+            simulation.move(JManBoard.MOVE_UP);
+        } else if (e.getActionCommand().equals(BUTTON_DOWN)) {
+            simulation.move(JManBoard.MOVE_DOWN);
+        } else if (e.getActionCommand().equals(BUTTON_LEFT)) {
+            simulation.move(JManBoard.MOVE_LEFT);
+        } else if (e.getActionCommand().equals(BUTTON_RIGHT)) {
+            simulation.move(JManBoard.MOVE_RIGHT);
+        } else if (e.getActionCommand().equals(BUTTON_UNDO)) {
+            simulation.undo();
+        } else if (e.getActionCommand().equals(BUTTON_REDO)) {
+            simulation.redo();
+        } else if (e.getActionCommand().equals(BUTTON_FAST_FORWARD)) {
+            toggleFastForward();
+        } else {
+            throw new RuntimeException("Unknown button pressed in Application J*Man");
+        }
+    }
+
+}
\ No newline at end of file
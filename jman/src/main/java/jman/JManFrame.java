@@ -0,0 +1,444 @@
+package jman;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import javax.swing.*;
+
+/** This class is a a VIEW class.  Instances of this class provide the GUI.
+  * They display buttons, as well as the current positions and colors of
+  * the various board pieces.  However, and instance of this class does
+  * not actually do anything on its own.  For the buttons to work and the
+  * board pieces to move, we need a CONTROLLER class.     */
+public class JManFrame extends JFrame {
+    
+    /** Constants to determine screen geometry. */
+    public static final int TILE_WIDTH  = 16;  // width of a tile in pixels.
+    public static final int TILE_HEIGHT = 16;  // height of a tile in pixels.
+    /** Largest board, in pixels, shown whole; a bigger board is shown in a
+      * scrollable, zoomable viewport of this size that follows J*Man. */
+    public static final int MAX_VIEW_WIDTH  = 960;
+    public static final int MAX_VIEW_HEIGHT = 640;
+    /** Largest width or height of the minimap of a viewport, in pixels. */
+    public static final int MINIMAP_SIZE = 160;
+    /** The tile sizes, in pixels, that a viewport can zoom between. */
+    private static final int[] ZOOM_SIZES = {1, 2, 4, 8, 16, 32};
+    
+    // The controller that communicates between the view and the model.
+    private JManApp controller = null;
+    
+    // The panel that contains the board of the game. Class JManPanel is an "inner class", defined below.
+    private JManPanel panel = null;
+
+    // Draws the board into the panel.
+    private BoardPainter painter;
+
+    // The cells of the board that changed since the panel was last repainted,
+    // as told by the controller; used only on the event dispatch thread.
+    private ChangedCells changed = new ChangedCells();
+
+    // In viewport mode, the scroll pane that shows part of the panel and the
+    // minimap of the whole board; both are null if the whole board is shown.
+    private JScrollPane scroller = null;
+    private MiniMap minimap = null;
+    private int zoom = 4;   // index in ZOOM_SIZES of the current tile size
+    
+    // Buttons on the GUI
+    private JButton bUp      = new JButton("Up");
+    private JButton bDown    = new JButton("Down");
+    private JButton bLeft    = new JButton("Left");
+    private JButton bRight   = new JButton("Right");
+    private JButton bNewGame = new JButton("New Game");
+    private JButton bUndo    = new JButton("Undo");
+    private JButton bRedo    = new JButton("Redo");
+    private JToggleButton bFastForward = new JToggleButton("Fast Forward");
+    private JButton bZoomIn  = new JButton("Zoom In");
+    private JButton bZoomOut = new JButton("Zoom Out");
+    
+    // Box to contain the direction buttons
+    private Box buttonBox   = new Box(BoxLayout.X_AXIS);
+    
+    // The box to contain buttonBox and the instructions
+    private Box instructBox = new Box(BoxLayout.Y_AXIS);
+    
+    private int height = 20; // height of the game board in tiles.
+    private int width  = 20; // width of the game board in tiles.
+    
+    /** Constructor: Initialize the view of aN h x w game board. */
+    public JManFrame(int w, int h) {
+        super("J*Man!!!");
+        this.width  = w;
+        this.height = h;
+        painter = new BoardPainter(w, h);
+        boolean viewport = w*TILE_WIDTH > MAX_VIEW_WIDTH || h*TILE_HEIGHT > MAX_VIEW_HEIGHT;
+        int viewWidth = Math.min(w*TILE_WIDTH, MAX_VIEW_WIDTH);
+        
+        // Set the preferred dimensions of the buttons
+        Dimension buttondim = new Dimension(viewWidth/4,27);
+        bUp.setPreferredSize(buttondim);
+        bDown.setPreferredSize(buttondim);
+        bLeft.setPreferredSize(buttondim);
+        bRight.setPreferredSize(buttondim);
+        bNewGame.setPreferredSize(new Dimension(viewWidth/2,27));
+        bUndo.setPreferredSize(new Dimension(viewWidth/4,27));
+        bRedo.setPreferredSize(new Dimension(viewWidth/4,27));
+        bFastForward.setPreferredSize(new Dimension(viewWidth/4,27));
+        
+        // Add the direction buttons to buttonBox and set the buttonBox alignment
+        buttonBox.add(bUp);
+        buttonBox.add(bDown);
+        buttonBox.add(bLeft);
+        buttonBox.add(bRight);
+        buttonBox.setAlignmentX(0);
+        
+        // Set the action commands for each of the buttons
+        bUp.setActionCommand(JManApp.BUTTON_UP);
+        bDown.setActionCommand(JManApp.BUTTON_DOWN);
+        bLeft.setActionCommand(JManApp.BUTTON_LEFT);
+        bRight.setActionCommand(JManApp.BUTTON_RIGHT);
+        bNewGame.setActionCommand(JManApp.BUTTON_NEW_GAME);
+        bUndo.setActionCommand(JManApp.BUTTON_UNDO);
+        bRedo.setActionCommand(JManApp.BUTTON_REDO);
+        bFastForward.setActionCommand(JManApp.BUTTON_FAST_FORWARD);
+
+        // The arrow keys push the direction buttons.
+        bindKey("UP", bUp);
+        bindKey("DOWN", bDown);
+        bindKey("LEFT", bLeft);
+        bindKey("RIGHT", bRight);
+        bindKey("ctrl Z", bUndo);
+        bindKey("ctrl Y", bRedo);
+        bindKey("F", bFastForward);
+        
+        // Set up the game board display.
+        panel= new JManPanel();
+        
+        // Place the direction buttons and the instructions into instructBox and
+        // set its alignment.
+        instructBox.setAlignmentX(0);
+        instructBox.add(buttonBox);
+        addInstructions(instructBox);
+        
+        // Put the board and buttons and instructions into the frame.
+        Box gameBox = new Box(BoxLayout.X_AXIS);
+        gameBox.add(bNewGame);
+        gameBox.add(bUndo);
+        gameBox.add(bRedo);
+        gameBox.add(bFastForward);
+        getContentPane().add(gameBox, BorderLayout.NORTH);
+        if (viewport) {
+            addViewport();
+        } else {
+            getContentPane().add(panel, BorderLayout.CENTER);
+        }
+        getContentPane().add(instructBox, BorderLayout.SOUTH);
+        
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        pack();
+        setLocation(5,30);
+        setResizable(viewport);
+        setVisible(false);
+    }
+
+    /* Make pressing key (a KeyStroke name, e.g. "UP") anywhere in the frame push button b. */
+    private void bindKey(String key, AbstractButton b) {
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key), key);
+        getRootPane().getActionMap().put(key, new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                b.doClick(0);
+            }
+        });
+    }
+
+    /* Put the panel into the frame in a scroll pane of at most
+     * MAX_VIEW_WIDTH x MAX_VIEW_HEIGHT pixels, with the zoom buttons and
+     * the minimap beside it. */
+    private void addViewport() {
+        scroller = new JScrollPane(panel);
+        scroller.setPreferredSize(new Dimension(MAX_VIEW_WIDTH, MAX_VIEW_HEIGHT));
+        scroller.getViewport().setScrollMode(JViewport.BLIT_SCROLL_MODE);
+        scroller.getViewport().addChangeListener(e -> {
+            if (minimap != null) minimap.repaint();
+        });
+        getContentPane().add(scroller, BorderLayout.CENTER);
+
+        minimap = new MiniMap();
+        bZoomIn.addActionListener(e -> zoom(1));
+        bZoomOut.addActionListener(e -> zoom(-1));
+        Box side = new Box(BoxLayout.Y_AXIS);
+        side.add(minimap);
+        side.add(bZoomIn);
+        side.add(bZoomOut);
+        getContentPane().add(side, BorderLayout.EAST);
+    }
+
+    /* Change the tile size of the viewport by d steps of ZOOM_SIZES (d > 0
+     * zooms in), keeping J*Man in the middle of the view. */
+    private void zoom(int d) {
+        int z = Math.max(0, Math.min(ZOOM_SIZES.length - 1, zoom + d));
+        if (z == zoom) {
+            return;
+        }
+        zoom = z;
+        painter.setTileSize(ZOOM_SIZES[z], ZOOM_SIZES[z]);
+        panel.setPreferredSize(painter.getBoardSize());
+        panel.revalidate();
+        scroller.validate();
+        centerOnJMan();
+        panel.repaint();
+    }
+
+    /* Scroll the viewport so that J*Man is in the middle of it. */
+    private void centerOnJMan() {
+        if (controller == null) {
+            return;
+        }
+        Rectangle tile = jManTile();
+        JViewport view = scroller.getViewport();
+        Dimension extent = view.getExtentSize();
+        Dimension size = painter.getBoardSize();
+        int x = Math.max(0, Math.min(size.width - extent.width, tile.x - extent.width/2));
+        int y = Math.max(0, Math.min(size.height - extent.height, tile.y - extent.height/2));
+        view.setViewPosition(new Point(x, y));
+    }
+
+    /* Scroll the viewport, if needed, so that J*Man is at least a quarter
+     * of the view away from its edges. */
+    private void followJMan() {
+        if (scroller == null || controller == null) {
+            return;
+        }
+        Rectangle tile = jManTile();
+        Rectangle visible = panel.getVisibleRect();
+        tile.grow(visible.width/4, visible.height/4);
+        if (!visible.contains(tile)) {
+            panel.scrollRectToVisible(tile);
+        }
+    }
+    
+    /* Yields: the bounds of J*Man's tile in the latest snapshot of the board. */
+    private Rectangle jManTile() {
+        SnapshotBuffer snapshots = controller.getSnapshots();
+        BoardSnapshot s = snapshots.acquire();
+        try {
+            return painter.tileBounds(s.getJManX(), s.getJManY());
+        } finally {
+            snapshots.release();
+        }
+    }
+    
+    /** Add to instructBox the rules of the game (a sequence of JLabels). */
+    private void addInstructions(Box instructBox) {
+        instructBox.add(new JLabel(" Use the four buttons to direct J*Man (the star-", SwingConstants.LEFT));
+        instructBox.add(new JLabel(" like piece) to capture the other colored pieces.", SwingConstants.LEFT));
+        instructBox.add(new JLabel(" J*Man can capture: ", SwingConstants.LEFT));
+        instructBox.add(new JLabel("    a green piece if he is yellow,", SwingConstants.LEFT));
+        instructBox.add(new JLabel("    a yellow piece if he is red, ", SwingConstants.LEFT));
+        instructBox.add(new JLabel("    a red piece if he is green.", SwingConstants.LEFT));
+        instructBox.add(new JLabel(" Walkers (triangles) wander randomly about.", SwingConstants.LEFT));
+        instructBox.add(new JLabel(" Pillars (circles) change color occasionally.", SwingConstants.LEFT));
+        instructBox.add(new JLabel(" Nothing can enter a block (white square).", SwingConstants.LEFT));
+        instructBox.add(new JLabel(" Be careful. With patience, you can always capture ", SwingConstants.LEFT));
+        instructBox.add(new JLabel(" a pillar, but capturing all walkers requires ", SwingConstants.LEFT));
+        instructBox.add(new JLabel(" thinking ahead. Good Luck!", SwingConstants.LEFT));
+    }
+    
+    /** Add a JManApp to communicate with both user and the Model */
+    public void addController(JManApp controller) {
+        if (this.controller == null) {
+            this.controller = controller;
+            changed.clear();
+            bUp.addActionListener(controller);
+            bDown.addActionListener(controller);
+            bLeft.addActionListener(controller);
+            bRight.addActionListener(controller);
+            bNewGame.addActionListener(controller);
+            bUndo.addActionListener(controller);
+            bRedo.addActionListener(controller);
+            bFastForward.addActionListener(controller);
+        } else {
+            throw new IllegalStateException("Attempt to add controller when one is already registered with view");
+        }
+    }
+    
+    /** Remove the active JManApp.  This method is useful for reseting the game. */
+    public void removeController() {
+        if (controller != null) {
+            bUp.removeActionListener(controller);
+            bDown.removeActionListener(controller);
+            bLeft.removeActionListener(controller);
+            bRight.removeActionListener(controller);
+            bNewGame.removeActionListener(controller);
+            bUndo.removeActionListener(controller);
+            bRedo.removeActionListener(controller);
+            bFastForward.removeActionListener(controller);
+            controller = null;
+        } else {
+            throw new IllegalStateException("Attempt to remove controller when none is currently registered with view");
+        }
+    }
+    
+    /** Show whether the game is in fast-forward mode on its button. */
+    public void showFastForward(boolean on) {
+        bFastForward.setSelected(on);
+    }
+
+    /** Show status (e.g. the frame rate of a real-time game) in the title. */
+    public void showStatus(String status) {
+        setTitle("J*Man!!!  " + status);
+    }
+
+    /** Instruct the inner panel to repaint.  Used for animation. */
+    public void repaint() {
+        changed.clear();
+        panel.repaint();
+    }
+
+    /** Record that the cells given as pairs x0, y0, x1, y1, ... changed
+      * (or, if cells is null, that the whole board did) and repaint them.
+      * Called by the controller after each round.
+      * Must be called on the event dispatch thread. */
+    public void cellsChanged(int[] cells) {
+        if (cells == null) {
+            repaint();
+            if (minimap != null) {
+                minimap.repaint();
+            }
+            return;
+        }
+        for (int k= 0; k < cells.length; k= k+2) {
+            changed.add(cells[k], cells[k+1]);
+        }
+        repaintChanged();
+    }
+
+    /** Instruct the inner panel to repaint only the tiles whose cells changed
+      * since the last repaint, e.g. after a round.  If the changed tiles are
+      * a good part of the rectangle that contains them all, that rectangle is
+      * repainted; otherwise each changed tile is queued for repainting on its
+      * own, and Swing paints the queued tiles together, so the time taken
+      * depends on the number of changes, not on the board size.
+      * In viewport mode, the view first scrolls to follow J*Man, and changed
+      * tiles that cannot be seen are not painted.
+      * Must be called on the event dispatch thread. */
+    public void repaintChanged() {
+        int n = changed.size();
+        if (n == 0) {
+            return;
+        }
+        followJMan();
+        Rectangle visible = panel.getVisibleRect();
+        Rectangle union = painter.tileBounds(changed.getMinX(), changed.getMinY());
+        union.add(painter.tileBounds(changed.getMaxX(), changed.getMaxY()));
+        union = union.intersection(visible);
+        long tileArea = (long) painter.getTileWidth() * painter.getTileHeight();
+        if (union.isEmpty()) {
+            // Nothing that changed can be seen.
+        } else if (n * tileArea * 4 >= (long) union.width * union.height) {
+            panel.repaint(union);
+        } else {
+            for (int k= 0; k < n; k= k+1) {
+                Rectangle tile = painter.tileBounds(changed.getX(k), changed.getY(k));
+                if (tile.intersects(visible)) {
+                    panel.repaint(tile);
+                }
+            }
+        }
+        changed.clear();
+        if (minimap != null) {
+            minimap.repaint();
+        }
+    }
+    
+    /* Inner class to take care of the graphics. 
+     * The beauty of inner classes is that they are a separate class that has access 
+     * to all of the fields of the parent class (in this case, width and height are 
+     * from the JManFrame class). This is a powerful programming technique, but a bit
+     * difficult to master.  We present it here without further comment.
+     */
+    private class JManPanel extends JPanel{
+        /* Constructor: a new panel whose dimensions are given by outer class. */
+        public JManPanel() {
+            setPreferredSize(painter.getBoardSize());
+        }
+        
+        /* Paint the game board as of the latest snapshot of it (only the
+         * background before there is a controller, which is recorded as a
+         * paint of 0 tiles). */
+        public void paint(Graphics g) {
+            long start = GameMetrics.ENABLED ? System.nanoTime() : 0;
+            int tiles;
+            if (controller == null) {
+                tiles = painter.paint(g, null);
+            } else {
+                SnapshotBuffer snapshots = controller.getSnapshots();
+                BoardSnapshot s = snapshots.acquire();
+                try {
+                    tiles = painter.paint(g, s);
+                } finally {
+                    snapshots.release();
+                }
+            }
+            if (GameMetrics.ENABLED) GameMetrics.painted(tiles, start);
+        }
+    } // End of inner class JManPanel
+
+    /* Inner class that shows the whole board at a glance in viewport mode,
+     * with the part in the viewport outlined.  Each pixel shows the color of
+     * one cell sampled from the part of the board it covers, so painting it
+     * takes time proportional to its size, not the board's.
+     */
+    private class MiniMap extends JPanel {
+        private int mapWidth;   // width of the map in pixels
+        private int mapHeight;  // height of the map in pixels
+        private int[] pixels;   // colors of the pixels of the map
+        private BufferedImage image; // the map
+
+        /* Constructor: a minimap whose longer side is MINIMAP_SIZE pixels. */
+        public MiniMap() {
+            double scale = (double) MINIMAP_SIZE / Math.max(width, height);
+            mapWidth  = Math.max(1, Math.min(width,  (int) (width * scale)));
+            mapHeight = Math.max(1, Math.min(height, (int) (height * scale)));
+            pixels = new int[mapWidth*mapHeight];
+            image = new BufferedImage(mapWidth, mapHeight, BufferedImage.TYPE_INT_RGB);
+            Dimension d = new Dimension(mapWidth, mapHeight);
+            setPreferredSize(d);
+            setMaximumSize(d);
+            setAlignmentX(0);
+        }
+
+        /* Paint the map and the outline of the viewport. */
+        public void paint(Graphics g) {
+            if (controller == null) {
+                g.setColor(Color.BLACK);
+                g.fillRect(0, 0, mapWidth, mapHeight);
+                return;
+            }
+            SnapshotBuffer snapshots = controller.getSnapshots();
+            BoardSnapshot board = snapshots.acquire();
+            try {
+                for (int my= 0; my < mapHeight; my= my+1) {
+                    int j = (int) ((long) my * height / mapHeight);
+                    for (int mx= 0; mx < mapWidth; mx= mx+1) {
+                        int i = (int) ((long) mx * width / mapWidth);
+                        pixels[my*mapWidth + mx] = board.typeAt(i, j) == BoardCells.EMPTY
+                            ? 0 : BoardPainter.rgbOf(board.colorAt(i, j));
+                    }
+                }
+            } finally {
+                snapshots.release();
+            }
+            image.setRGB(0, 0, mapWidth, mapHeight, pixels, 0, mapWidth);
+            g.drawImage(image, 0, 0, null);
+
+            // Outline the part of the board in the viewport.
+            Rectangle visible = panel.getVisibleRect();
+            Dimension size = painter.getBoardSize();
+            g.setColor(Color.CYAN);
+            g.drawRect((int) ((long) visible.x * mapWidth / size.width),
+                       (int) ((long) visible.y * mapHeight / size.height),
+                       Math.max(1, (int) ((long) visible.width * mapWidth / size.width) - 1),
+                       Math.max(1, (int) ((long) visible.height * mapHeight / size.height) - 1));
+        }
+    } // End of inner class MiniMap
+}
\ No newline at end of file